@@ -1,6 +1,7 @@
 package com.apicollab.platform.auth.config;
 
 import com.apicollab.platform.auth.repository.UserRepository;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -28,6 +29,7 @@ import java.util.Arrays;
 import java.util.Collections;
 
 import com.apicollab.platform.auth.service.JwtService;
+import com.apicollab.platform.auth.service.UserPrincipalCache;
 
 @Configuration
 @EnableWebSecurity
@@ -36,6 +38,7 @@ public class ApplicationConfig {
 
     private final UserRepository userRepository;
     private final JwtService jwtService; // Inject JwtService instead of Filter
+    private final UserPrincipalCache userPrincipalCache;
 
     @Bean
     public UserDetailsService userDetailsService() {
@@ -69,18 +72,21 @@ public class ApplicationConfig {
             .requestMatchers("/api/v1/test/**")
             .requestMatchers("/api/v1/mock/**")
             .requestMatchers("/ws-stomp/**")
+            .requestMatchers("/api/v1/internal/broker/**") // node-to-node, checked against the cluster secret
             .requestMatchers(HttpMethod.OPTIONS, "/**");
     }
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        JwtAuthenticationFilter jwtAuthFilter = new JwtAuthenticationFilter(jwtService, userDetailsService());
+        JwtAuthenticationFilter jwtAuthFilter = new JwtAuthenticationFilter(jwtService, userPrincipalCache);
         
         http
             .csrf(AbstractHttpConfigurer::disable)
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/api/v1/auth/register", "/api/v1/auth/authenticate").permitAll()
+                // Async re-dispatches (proxy CompletableFutures, streaming bodies) were authorized on the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                .requestMatchers("/api/v1/auth/register", "/api/v1/auth/authenticate", "/api/v1/auth/jwks").permitAll()
                 .requestMatchers("/api/v1/admin/**").hasAuthority("ADMIN")
                 .anyRequest().authenticated()
             )
@@ -0,0 +1,53 @@
+package com.apicollab.platform.auth.config;
+
+import com.apicollab.platform.auth.service.JwtService;
+import com.apicollab.platform.auth.service.UserPrincipalCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+/**
+ * STOMP counterpart of {@link JwtAuthenticationFilter}: authenticates the
+ * "Authorization: Bearer" header of a CONNECT frame and binds the user to the
+ * session, so message handlers receive it as their {@code Principal}.
+ * Connections without a valid token stay anonymous, and
+ * {@link com.apicollab.platform.core.config.WorkspaceChannelInterceptor}
+ * refuses their SUBSCRIBE and SEND frames.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class JwtChannelInterceptor implements ChannelInterceptor {
+
+    private final JwtService jwtService;
+    private final UserPrincipalCache userPrincipalCache;
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return message;
+        }
+        try {
+            JwtService.VerifiedToken token = jwtService.verify(authHeader.substring(7));
+            if (token.username() != null) {
+                userPrincipalCache.resolve(token)
+                        .filter(user -> jwtService.isTokenValid(token, user))
+                        .ifPresent(user -> accessor.setUser(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities())));
+            }
+        } catch (Exception e) {
+            log.debug("Rejected STOMP credentials: {}", e.getMessage());
+        }
+        return message;
+    }
+}
@@ -21,6 +21,7 @@ public class AuthenticationService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final UserPrincipalCache userPrincipalCache;
 
     public AuthenticationResponse register(RegisterRequest request) {
         User.Role role = User.Role.EDITOR;
@@ -75,5 +76,6 @@ public class AuthenticationService {
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         user.setMustChangePassword(false);
         repository.save(user);
+        userPrincipalCache.invalidate(username);
     }
 }
@@ -0,0 +1,388 @@
+package com.apicollab.platform.auth.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Signing keys for asymmetric access tokens (any RSA or ECDSA algorithm).
+ * The newest key signs and its {@code kid} goes into each token's header;
+ * older keys stay in the ring until every token they signed has expired, so
+ * a rotation never logs anyone out. Verification looks the {@code kid} up in
+ * an in-memory map and never touches the database.
+ * <p>
+ * Each node has its own ring, kept in {@code key-file} so a restart does not
+ * invalidate outstanding tokens, and publishes the public halves as a JWKS
+ * ({@link #jwks}). The JWKS of the peers in {@code jwks-peers} (by default
+ * the cluster nodes) are fetched in the background every
+ * {@code jwks-refresh-ms}, so verification never waits on the network. A new
+ * key is published for two refresh intervals before it signs, which gives
+ * every peer time to learn it; a {@code kid} nobody has published yet is
+ * rejected and only triggers an early refresh, at most once per
+ * {@code jwks-refresh-min-ms}.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    private static final String JWKS_PATH = "/api/v1/auth/jwks";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SignatureAlgorithm algorithm;
+    private final boolean enabled;
+    private final Path keyFile;
+    private final long rotationIntervalMs;
+    private final long tokenLifetimeMs;
+    private final List<String> peers;
+    private final long peerRefreshMinMs;
+    private final long activationDelayMs;
+    private final HttpClient httpClient;
+    private final SecureRandom random = new SecureRandom();
+
+    // Newest first; replaced as a whole on rotation
+    private volatile List<SigningKey> ring = List.of();
+    private volatile Map<String, PublicKey> localKeys = Map.of();
+    private volatile Map<String, Object> jwks = Map.of("keys", List.of());
+
+    private final Map<String, Map<String, PublicKey>> keysByPeer = new ConcurrentHashMap<>();
+    private volatile Map<String, PublicKey> peerKeys = Map.of();
+    private final AtomicBoolean peerRefreshRunning = new AtomicBoolean();
+    private volatile long lastPeerRefresh;
+
+    public JwtKeyRing(
+            @Value("${application.security.jwt.algorithm:RS256}") SignatureAlgorithm algorithm,
+            @Value("${application.security.jwt.key-file:data/jwt-keys.json}") String keyFile,
+            @Value("${application.security.jwt.rotation-interval-ms:604800000}") long rotationIntervalMs,
+            @Value("${application.security.jwt.expiration:86400000}") long tokenLifetimeMs,
+            @Value("${application.security.jwt.jwks-peers:${application.websocket.broker.cluster.nodes:}}") String[] peers,
+            @Value("${application.websocket.broker.cluster.self-url:}") String selfUrl,
+            @Value("${application.security.jwt.jwks-refresh-ms:30000}") long peerRefreshMs,
+            @Value("${application.security.jwt.jwks-refresh-min-ms:5000}") long peerRefreshMinMs
+    ) {
+        this.algorithm = algorithm;
+        this.enabled = algorithm.isRsa() || algorithm.isEllipticCurve();
+        this.keyFile = keyFile.isBlank() ? null : Path.of(keyFile);
+        this.rotationIntervalMs = rotationIntervalMs;
+        this.tokenLifetimeMs = tokenLifetimeMs;
+        String self = normalize(selfUrl);
+        this.peers = Arrays.stream(peers).map(JwtKeyRing::normalize).filter(p -> !p.isEmpty() && !p.equals(self)).distinct().toList();
+        this.peerRefreshMinMs = peerRefreshMinMs;
+        this.activationDelayMs = this.peers.isEmpty() ? 0 : 2 * peerRefreshMs;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+        if (enabled) {
+            load();
+            rotate();
+        }
+    }
+
+    public record SigningKey(String kid, SignatureAlgorithm algorithm, PrivateKey privateKey, PublicKey publicKey, long createdAt) {}
+
+    // On-disk form: PKCS#8 / X.509 DER, base64
+    private record StoredKey(String kid, SignatureAlgorithm algorithm, String privateKey, String publicKey, long createdAt) {}
+
+    public record KeyStats(String kid, String algorithm, long createdAt, boolean active) {}
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The key new tokens are signed with: the newest one that has been
+     * published for the activation delay, or the oldest if none has (a new ring).
+     */
+    public SigningKey active() {
+        List<SigningKey> keys = ring;
+        return keys.get(activeIndex(keys, System.currentTimeMillis()));
+    }
+
+    private int activeIndex(List<SigningKey> keys, long now) {
+        for (int i = 0; i < keys.size(); i++) {
+            if (now - keys.get(i).createdAt() >= activationDelayMs) return i;
+        }
+        return keys.size() - 1;
+    }
+
+    /**
+     * The public key for {@code kid}, from this node's ring or the last fetched
+     * peer JWKS; {@code null} if neither has it. Never blocks on a peer.
+     */
+    public PublicKey verificationKey(String kid) {
+        if (kid == null) return null;
+        PublicKey key = localKeys.get(kid);
+        if (key == null) key = peerKeys.get(kid);
+        if (key == null && !peers.isEmpty() && System.currentTimeMillis() - lastPeerRefresh >= peerRefreshMinMs) {
+            refreshPeers();
+        }
+        return key;
+    }
+
+    /**
+     * This node's public keys as a JSON Web Key Set.
+     */
+    public Map<String, Object> jwks() {
+        return jwks;
+    }
+
+    public List<KeyStats> getStats() {
+        List<SigningKey> keys = ring;
+        int active = activeIndex(keys, System.currentTimeMillis());
+        List<KeyStats> stats = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            SigningKey k = keys.get(i);
+            stats.add(new KeyStats(k.kid(), k.algorithm().getValue(), k.createdAt(), i == active));
+        }
+        return stats;
+    }
+
+    /**
+     * Starts a new active key once the current one is {@code rotation-interval-ms}
+     * old (or was made for another algorithm) and retires keys whose tokens
+     * have all expired. A key signed tokens until its successor became
+     * active, so it is needed for one token lifetime after that.
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.rotation-check-ms:60000}")
+    public synchronized void rotate() {
+        if (!enabled) return;
+        long now = System.currentTimeMillis();
+        List<SigningKey> keys = new ArrayList<>(ring);
+        boolean changed = false;
+        if (keys.isEmpty() || keys.get(0).algorithm() != algorithm || now - keys.get(0).createdAt() >= rotationIntervalMs) {
+            keys.add(0, generate(now));
+            changed = true;
+        }
+        for (int i = keys.size() - 1; i > 0 && now - keys.get(i - 1).createdAt() - activationDelayMs >= tokenLifetimeMs; i--) {
+            keys.remove(i);
+            changed = true;
+        }
+        if (!changed) return;
+        install(keys);
+        save(keys);
+        log.info("JWT signing key {} ({}) signs from {} ms on; {} key(s) in the ring",
+                keys.get(0).kid(), algorithm.getValue(), activationDelayMs, keys.size());
+    }
+
+    private SigningKey generate(long now) {
+        KeyPair pair = Keys.keyPairFor(algorithm);
+        byte[] kid = new byte[12];
+        random.nextBytes(kid);
+        return new SigningKey(Base64.getUrlEncoder().withoutPadding().encodeToString(kid), algorithm, pair.getPrivate(), pair.getPublic(), now);
+    }
+
+    private void install(List<SigningKey> keys) {
+        Map<String, PublicKey> byKid = new HashMap<>();
+        List<Map<String, Object>> jwkList = new ArrayList<>();
+        for (SigningKey key : keys) {
+            byKid.put(key.kid(), key.publicKey());
+            jwkList.add(toJwk(key));
+        }
+        this.localKeys = Map.copyOf(byKid);
+        this.jwks = Map.of("keys", List.copyOf(jwkList));
+        this.ring = List.copyOf(keys);
+    }
+
+    // --- peers ---
+
+    /**
+     * Fetches the peers' JWKS on a virtual thread, unless a fetch is already
+     * running, so neither the scheduler nor a request thread waits on a peer.
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.jwks-refresh-ms:30000}")
+    public void refreshPeers() {
+        if (peers.isEmpty() || !peerRefreshRunning.compareAndSet(false, true)) return;
+        lastPeerRefresh = System.currentTimeMillis();
+        try {
+            Thread.ofVirtual().name("jwks-refresh").start(() -> {
+                try {
+                    fetchPeers();
+                } finally {
+                    peerRefreshRunning.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            peerRefreshRunning.set(false);
+            throw e;
+        }
+    }
+
+    private void fetchPeers() {
+        for (String peer : peers) {
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(peer + JWKS_PATH))
+                        .timeout(Duration.ofSeconds(2))
+                        .GET()
+                        .build();
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    throw new IOException("HTTP " + response.statusCode());
+                }
+                Map<String, PublicKey> keys = new HashMap<>();
+                for (JsonNode jwk : objectMapper.readTree(response.body()).path("keys")) {
+                    keys.put(jwk.path("kid").asText(), fromJwk(jwk));
+                }
+                keysByPeer.put(peer, keys);
+            } catch (Exception e) {
+                // Keep what was last learned from this peer
+                log.warn("Could not fetch JWKS from {}: {}", peer, e.getMessage());
+            }
+        }
+        Map<String, PublicKey> all = new HashMap<>();
+        keysByPeer.values().forEach(all::putAll);
+        peerKeys = Map.copyOf(all);
+    }
+
+    // --- persistence ---
+
+    private void load() {
+        if (keyFile == null || !Files.exists(keyFile)) return;
+        try {
+            List<StoredKey> stored = objectMapper.readValue(keyFile.toFile(), new TypeReference<List<StoredKey>>() {});
+            List<SigningKey> keys = new ArrayList<>();
+            for (StoredKey s : stored) {
+                KeyFactory factory = KeyFactory.getInstance(s.algorithm().isRsa() ? "RSA" : "EC");
+                keys.add(new SigningKey(s.kid(), s.algorithm(),
+                        factory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(s.privateKey()))),
+                        factory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(s.publicKey()))),
+                        s.createdAt()));
+            }
+            keys.sort((a, b) -> Long.compare(b.createdAt(), a.createdAt()));
+            install(keys);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            // Starting with a fresh key only costs the users of old tokens a new login
+            log.warn("Could not read JWT keys from {}, starting a new ring", keyFile, e);
+        }
+    }
+
+    private void save(List<SigningKey> keys) {
+        if (keyFile == null) return;
+        List<StoredKey> stored = keys.stream()
+                .map(k -> new StoredKey(k.kid(), k.algorithm(),
+                        Base64.getEncoder().encodeToString(k.privateKey().getEncoded()),
+                        Base64.getEncoder().encodeToString(k.publicKey().getEncoded()),
+                        k.createdAt()))
+                .toList();
+        try {
+            Path parent = keyFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = keyFile.resolveSibling(keyFile.getFileName() + ".tmp");
+            Files.deleteIfExists(tmp);
+            try {
+                Files.createFile(tmp, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            } catch (UnsupportedOperationException e) {
+                Files.createFile(tmp);
+            }
+            objectMapper.writeValue(tmp.toFile(), stored);
+            Files.move(tmp, keyFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write JWT keys to {}; tokens will not survive a restart", keyFile, e);
+        }
+    }
+
+    // --- JWK encoding (RFC 7517/7518) ---
+
+    private static Map<String, Object> toJwk(SigningKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kid", key.kid());
+        jwk.put("use", "sig");
+        jwk.put("alg", key.algorithm().getValue());
+        if (key.publicKey() instanceof RSAPublicKey rsa) {
+            jwk.put("kty", "RSA");
+            jwk.put("n", base64Url(rsa.getModulus(), 0));
+            jwk.put("e", base64Url(rsa.getPublicExponent(), 0));
+        } else if (key.publicKey() instanceof ECPublicKey ec) {
+            int size = (ec.getParams().getCurve().getField().getFieldSize() + 7) / 8;
+            jwk.put("kty", "EC");
+            jwk.put("crv", size == 32 ? "P-256" : size == 48 ? "P-384" : "P-521");
+            jwk.put("x", base64Url(ec.getW().getAffineX(), size));
+            jwk.put("y", base64Url(ec.getW().getAffineY(), size));
+        }
+        return jwk;
+    }
+
+    private static PublicKey fromJwk(JsonNode jwk) throws GeneralSecurityException {
+        String kty = jwk.path("kty").asText();
+        if ("RSA".equals(kty)) {
+            return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                    unsigned(jwk.path("n").asText()), unsigned(jwk.path("e").asText())));
+        }
+        if ("EC".equals(kty)) {
+            String curve = switch (jwk.path("crv").asText()) {
+                case "P-256" -> "secp256r1";
+                case "P-384" -> "secp384r1";
+                case "P-521" -> "secp521r1";
+                default -> throw new GeneralSecurityException("Unsupported curve " + jwk.path("crv").asText());
+            };
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec(curve));
+            ECPoint point = new ECPoint(unsigned(jwk.path("x").asText()), unsigned(jwk.path("y").asText()));
+            return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+        }
+        throw new GeneralSecurityException("Unsupported key type " + kty);
+    }
+
+    // Big-endian without sign byte, left-padded to length when one is given
+    private static String base64Url(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (bytes.length < length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static BigInteger unsigned(String base64Url) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(base64Url));
+    }
+
+    private static String normalize(String url) {
+        String trimmed = url == null ? "" : url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
@@ -1,36 +1,145 @@
 package com.apicollab.platform.auth.service;
 
+import com.apicollab.platform.auth.domain.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies the access tokens. With an RSA or ECDSA
+ * {@code algorithm} (RS256 by default) tokens are signed by the active key of
+ * the {@link JwtKeyRing} and name it in their {@code kid} header; HS256 signs
+ * with the shared {@code secret-key} as before. The parser is built once and
+ * resolves the verification key from memory; a token is parsed and its
+ * signature checked a single time, and the result is kept in a bounded cache
+ * keyed by the token's SHA-256 until the token expires, so repeat requests
+ * with the same token skip the signature and JSON work entirely.
+ */
 @Service
 public class JwtService {
 
-    @Value("${application.security.jwt.secret-key:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}")
-    private String secretKey;
+    // Signed into every token so the request principal can be built without loading the user
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
 
-    @Value("${application.security.jwt.expiration:86400000}")
-    private long jwtExpiration;
+    private final SignatureAlgorithm algorithm;
+    private final Key signInKey;
+    private final JwtKeyRing keyRing;
+    private final JwtParser parser;
+    private final long jwtExpiration;
+    private final int cacheSize;
+
+    private final Map<String, VerifiedToken> verified = new ConcurrentHashMap<>();
+
+    private final LongAdder parses = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheHitNanos = new LongAdder();
+
+    public JwtService(
+            JwtKeyRing keyRing,
+            @Value("${application.security.jwt.algorithm:RS256}") SignatureAlgorithm algorithm,
+            @Value("${application.security.jwt.secret-key:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}") String secretKey,
+            @Value("${application.security.jwt.expiration:86400000}") long jwtExpiration,
+            @Value("${application.security.jwt.verified-cache-size:10000}") int cacheSize
+    ) {
+        if (algorithm != SignatureAlgorithm.HS256 && !keyRing.isEnabled()) {
+            throw new IllegalStateException("Unsupported JWT algorithm " + algorithm + "; use HS256 or an RSA/ECDSA algorithm");
+        }
+        this.algorithm = algorithm;
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.keyRing = keyRing;
+        this.parser = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                if (!keyRing.isEnabled()) return signInKey;
+                // Never fall back to the shared secret here, or anyone holding it could mint tokens
+                Key key = keyRing.verificationKey(header.getKeyId());
+                if (key == null) throw new JwtException("Unknown signing key " + header.getKeyId());
+                return key;
+            }
+        }).build();
+        this.jwtExpiration = jwtExpiration;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * A token whose signature and expiry have been checked.
+     */
+    public record VerifiedToken(String username, Claims claims, long expiresAtMillis) {
+
+        public boolean isExpired() {
+            return expiresAtMillis <= System.currentTimeMillis();
+        }
+    }
+
+    public record Stats(String algorithm, long parses, long avgParseNanos, long cacheHits, long avgCacheHitNanos, int cached,
+                        List<JwtKeyRing.KeyStats> keys) {}
+
+    /**
+     * Verifies {@code token} once and returns its claims; throws a
+     * {@link io.jsonwebtoken.JwtException} if it is malformed, forged or expired.
+     */
+    public VerifiedToken verify(String token) {
+        long start = System.nanoTime();
+        String key = hash(token);
+        VerifiedToken cached = verified.get(key);
+        if (cached != null && !cached.isExpired()) {
+            cacheHits.increment();
+            cacheHitNanos.add(System.nanoTime() - start);
+            return cached;
+        }
+        if (cached != null) {
+            verified.remove(key, cached);
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        VerifiedToken result = new VerifiedToken(claims.getSubject(), claims,
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+        if (cacheSize > 0) {
+            if (verified.size() >= cacheSize) {
+                evictExpired();
+                // Still full of live tokens: start over rather than track recency
+                if (verified.size() >= cacheSize) verified.clear();
+            }
+            verified.put(key, result);
+        }
+        parses.increment();
+        parseNanos.add(System.nanoTime() - start);
+        return result;
+    }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).username();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(verify(token).claims());
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -38,6 +147,11 @@ public class JwtService {
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
+        if (userDetails instanceof User user) {
+            extraClaims = new HashMap<>(extraClaims);
+            extraClaims.put(USER_ID_CLAIM, user.getId());
+            extraClaims.put(ROLE_CLAIM, user.getRole().name());
+        }
         return buildToken(extraClaims, userDetails, jwtExpiration);
     }
 
@@ -46,40 +160,48 @@ public class JwtService {
             UserDetails userDetails,
             long expiration
     ) {
-        return Jwts
+        JwtBuilder builder = Jwts
                 .builder()
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + expiration));
+        if (!keyRing.isEnabled()) {
+            return builder.signWith(signInKey, SignatureAlgorithm.HS256).compact();
+        }
+        JwtKeyRing.SigningKey key = keyRing.active();
+        return builder
+                .setHeaderParam(JwsHeader.KEY_ID, key.kid())
+                .signWith(key.privateKey(), key.algorithm())
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(verify(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.username().equals(userDetails.getUsername()) && !token.isExpired();
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    @Scheduled(fixedDelayString = "${application.security.jwt.cache-sweep-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        verified.values().removeIf(token -> token.expiresAtMillis() <= now);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public Stats getStats() {
+        long p = parses.sum();
+        long h = cacheHits.sum();
+        return new Stats(algorithm.getValue(), p, p == 0 ? 0 : parseNanos.sum() / p, h, h == 0 ? 0 : cacheHitNanos.sum() / h, verified.size(),
+                keyRing.getStats());
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,116 @@
+package com.apicollab.platform.auth.service;
+
+import com.apicollab.platform.auth.domain.User;
+import com.apicollab.platform.auth.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Turns a verified token into the request principal. In {@code CLAIMS} mode
+ * the token's signed {@code uid} claim identifies the account and a
+ * short-lived per-user record (id, role) stands in for loading the user on
+ * every request; the record is dropped straight away by
+ * role changes and deletions ({@link #invalidate}) and otherwise reloaded
+ * after {@code cache-ttl-ms}, which also bounds how long another node's
+ * change takes to apply here. {@code DATABASE} mode loads the user for every
+ * request as before.
+ * <p>
+ * The principal is a detached {@link User} without password; it carries the
+ * id, so services can use it as an association without looking it up again.
+ */
+@Component
+public class UserPrincipalCache {
+
+    public enum Mode { CLAIMS, DATABASE }
+
+    private final UserRepository userRepository;
+    private final Mode mode;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public UserPrincipalCache(
+            UserRepository userRepository,
+            @Value("${application.security.principal.mode:CLAIMS}") Mode mode,
+            @Value("${application.security.principal.cache-ttl-ms:60000}") long ttlMs,
+            @Value("${application.security.principal.max-entries:10000}") int maxEntries
+    ) {
+        this.userRepository = userRepository;
+        this.mode = mode;
+        this.ttlNanos = ttlMs * 1_000_000;
+        this.maxEntries = maxEntries;
+    }
+
+    // id is null when the user does not exist (any more)
+    private record Entry(Long id, User.Role role, String email, boolean mustChangePassword, long loadedAt) {}
+
+    public record Stats(Mode mode, long hits, long loads, long invalidations, int size) {}
+
+    public Optional<User> resolve(JwtService.VerifiedToken token) {
+        String username = token.username();
+        if (mode == Mode.DATABASE) {
+            loads.increment();
+            return userRepository.findByUsername(username);
+        }
+
+        Entry entry = current(username);
+        if (entry.id() == null) {
+            return Optional.empty();
+        }
+        Long claimedId = token.claims().get(JwtService.USER_ID_CLAIM, Long.class);
+        if (claimedId != null && !claimedId.equals(entry.id())) {
+            // Issued to a deleted account whose username has since been reused
+            return Optional.empty();
+        }
+        return Optional.of(User.builder()
+                .id(entry.id())
+                .username(username)
+                .email(entry.email())
+                // The current role wins over the claimed one, so a demotion applies before the token expires
+                .role(entry.role())
+                .mustChangePassword(entry.mustChangePassword())
+                .build());
+    }
+
+    /**
+     * Forgets what is known about {@code username}; its next request reloads it.
+     */
+    public void invalidate(String username) {
+        if (entries.remove(username) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(mode, hits.sum(), loads.sum(), invalidations.sum(), entries.size());
+    }
+
+    private Entry current(String username) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(username);
+        if (entry != null && now - entry.loadedAt() < ttlNanos) {
+            hits.increment();
+            return entry;
+        }
+        loads.increment();
+        Entry loaded = userRepository.findByUsername(username)
+                .map(u -> new Entry(u.getId(), u.getRole(), u.getEmail(), u.isMustChangePassword(), now))
+                .orElseGet(() -> new Entry(null, null, null, false, now));
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(e -> now - e.loadedAt() >= ttlNanos);
+            if (entries.size() >= maxEntries) entries.clear();
+        }
+        entries.put(username, loaded);
+        return loaded;
+    }
+}
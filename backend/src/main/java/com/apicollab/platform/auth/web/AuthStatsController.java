@@ -0,0 +1,29 @@
+package com.apicollab.platform.auth.web;
+
+import com.apicollab.platform.auth.service.JwtService;
+import com.apicollab.platform.auth.service.UserPrincipalCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin/stats/auth")
+@RequiredArgsConstructor
+public class AuthStatsController {
+
+    private final JwtService jwtService;
+    private final UserPrincipalCache userPrincipalCache;
+
+    // Includes the key ids of the signing ring
+    @GetMapping("/token")
+    public ResponseEntity<JwtService.Stats> getTokenStats() {
+        return ResponseEntity.ok(jwtService.getStats());
+    }
+
+    @GetMapping("/principal")
+    public ResponseEntity<UserPrincipalCache.Stats> getPrincipalStats() {
+        return ResponseEntity.ok(userPrincipalCache.getStats());
+    }
+}
@@ -1,11 +1,13 @@
 package com.apicollab.platform.auth.web;
 
 import com.apicollab.platform.auth.service.AuthenticationService;
+import com.apicollab.platform.auth.service.JwtKeyRing;
 import com.apicollab.platform.auth.web.dto.AuthenticationRequest;
 import com.apicollab.platform.auth.web.dto.AuthenticationResponse;
 import com.apicollab.platform.auth.web.dto.RegisterRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.apicollab.platform.auth.web.dto.ChangePasswordRequest;
 import java.security.Principal;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/auth")
@@ -20,6 +23,7 @@ import java.security.Principal;
 public class AuthenticationController {
 
     private final AuthenticationService service;
+    private final JwtKeyRing jwtKeyRing;
 
     @PostMapping("/register")
     public ResponseEntity<AuthenticationResponse> register(
@@ -43,4 +47,10 @@ public class AuthenticationController {
         service.changePassword(connectedUser.getName(), request);
         return ResponseEntity.ok().build();
     }
+
+    // Public keys of this node, for peers and other services verifying its tokens
+    @GetMapping("/jwks")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity.ok(jwtKeyRing.jwks());
+    }
 }
@@ -3,6 +3,7 @@ package com.apicollab.platform.auth.web;
 import com.apicollab.platform.auth.domain.User;
 import com.apicollab.platform.auth.repository.UserRepository;
 import com.apicollab.platform.auth.service.AuthenticationService;
+import com.apicollab.platform.auth.service.UserPrincipalCache;
 import com.apicollab.platform.auth.web.dto.AuthenticationResponse;
 import com.apicollab.platform.auth.web.dto.RegisterRequest;
 import lombok.RequiredArgsConstructor;
@@ -25,6 +26,7 @@ public class UserController {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserPrincipalCache userPrincipalCache;
 
     @GetMapping
     public ResponseEntity<List<User>> getAllUsers() {
@@ -74,12 +76,16 @@ public class UserController {
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid role");
         }
-        return ResponseEntity.ok(userRepository.save(user));
+        User saved = userRepository.save(user);
+        // Outstanding tokens still claim the old role; make the next request see the new one
+        userPrincipalCache.invalidate(saved.getUsername());
+        return ResponseEntity.ok(saved);
     }
 
     @DeleteMapping("/{username}")
     public ResponseEntity<Void> deleteUser(@PathVariable String username) {
         userRepository.findByUsername(username).ifPresent(userRepository::delete);
+        userPrincipalCache.invalidate(username);
         return ResponseEntity.noContent().build();
     }
 }
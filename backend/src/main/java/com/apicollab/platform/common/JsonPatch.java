@@ -0,0 +1,187 @@
+package com.apicollab.platform.common;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structural diff and patch for JSON trees, in the shape of RFC 6902
+ * ({@code add}/{@code remove}/{@code replace} with JSON Pointer paths). Key
+ * order is preserved as well, so applying {@code diff(a, b)} to {@code a}
+ * yields a tree that serializes exactly like {@code b}: object adds may name
+ * the key they go {@code before}, and an {@code order} op lists the final keys
+ * when existing ones were rearranged.
+ * <p>
+ * Array changes are expressed relative to the longest common prefix and
+ * suffix, which keeps inserting or deleting a parameter or path entry small.
+ */
+public final class JsonPatch {
+
+    private JsonPatch() {}
+
+    public static ArrayNode diff(JsonNode source, JsonNode target) {
+        ArrayNode ops = JsonNodeFactory.instance.arrayNode();
+        diff(source, target, "", ops);
+        return ops;
+    }
+
+    /**
+     * Applies {@code ops} to a copy of {@code source} and returns the result.
+     */
+    public static JsonNode apply(JsonNode source, ArrayNode ops) {
+        JsonNode root = source.deepCopy();
+        for (JsonNode op : ops) {
+            String path = op.get("path").asText();
+            String kind = op.get("op").asText();
+            if (path.isEmpty()) {
+                if (!kind.equals("replace") && !kind.equals("order")) throw new IllegalArgumentException("Unsupported root op " + kind);
+                if (kind.equals("replace")) root = op.get("value").deepCopy();
+                else reorder((ObjectNode) root, op.get("keys"));
+                continue;
+            }
+            JsonPointer pointer = JsonPointer.compile(path);
+            JsonNode parent = root.at(pointer.head());
+            String key = pointer.last().getMatchingProperty();
+            switch (kind) {
+                case "add" -> {
+                    if (parent instanceof ArrayNode array) array.insert(Integer.parseInt(key), op.get("value").deepCopy());
+                    else if (op.has("before")) insertBefore((ObjectNode) parent, key, op.get("value").deepCopy(), op.get("before").asText());
+                    else ((ObjectNode) parent).set(key, op.get("value").deepCopy());
+                }
+                case "remove" -> {
+                    if (parent instanceof ArrayNode array) array.remove(Integer.parseInt(key));
+                    else ((ObjectNode) parent).remove(key);
+                }
+                case "replace" -> {
+                    if (parent instanceof ArrayNode array) array.set(Integer.parseInt(key), op.get("value").deepCopy());
+                    else ((ObjectNode) parent).set(key, op.get("value").deepCopy());
+                }
+                case "order" -> reorder((ObjectNode) root.at(pointer), op.get("keys"));
+                default -> throw new IllegalArgumentException("Unsupported op " + kind);
+            }
+        }
+        return root;
+    }
+
+    private static void diff(JsonNode source, JsonNode target, String path, ArrayNode ops) {
+        if (same(source, target)) return;
+
+        if (source instanceof ObjectNode from && target instanceof ObjectNode to) {
+            List<String> resulting = new ArrayList<>();
+            for (Iterator<String> it = from.fieldNames(); it.hasNext(); ) {
+                String key = it.next();
+                if (to.has(key)) {
+                    resulting.add(key);
+                    diff(from.get(key), to.get(key), path + "/" + escape(key), ops);
+                } else {
+                    ops.addObject().put("op", "remove").put("path", path + "/" + escape(key));
+                }
+            }
+            List<String> wanted = new ArrayList<>(to.size());
+            to.fieldNames().forEachRemaining(wanted::add);
+            // Surviving keys still in their original order: place each new key before the next survivor
+            boolean ordered = resulting.equals(wanted.stream().filter(from::has).toList());
+            String next = null;
+            List<ObjectNode> adds = new ArrayList<>();
+            for (int i = wanted.size() - 1; i >= 0; i--) {
+                String key = wanted.get(i);
+                if (from.has(key)) {
+                    next = key;
+                    continue;
+                }
+                ObjectNode add = JsonNodeFactory.instance.objectNode().put("op", "add").put("path", path + "/" + escape(key));
+                add.set("value", to.get(key));
+                if (ordered && next != null) add.put("before", next);
+                adds.add(0, add);
+            }
+            ops.addAll(adds);
+            if (!ordered) {
+                ArrayNode keys = ops.addObject().put("op", "order").put("path", path).putArray("keys");
+                wanted.forEach(keys::add);
+            }
+            return;
+        }
+
+        if (source instanceof ArrayNode from && target instanceof ArrayNode to) {
+            int prefix = 0;
+            while (prefix < from.size() && prefix < to.size() && same(from.get(prefix), to.get(prefix))) prefix++;
+            int suffix = 0;
+            while (suffix < from.size() - prefix && suffix < to.size() - prefix
+                    && same(from.get(from.size() - 1 - suffix), to.get(to.size() - 1 - suffix))) suffix++;
+            int removed = from.size() - prefix - suffix;
+            int added = to.size() - prefix - suffix;
+            if (removed == added) {
+                for (int i = prefix; i < prefix + added; i++) {
+                    diff(from.get(i), to.get(i), path + "/" + i, ops);
+                }
+            } else {
+                for (int i = prefix + removed - 1; i >= prefix; i--) {
+                    ops.addObject().put("op", "remove").put("path", path + "/" + i);
+                }
+                for (int i = prefix; i < prefix + added; i++) {
+                    ops.addObject().put("op", "add").put("path", path + "/" + i).set("value", to.get(i));
+                }
+            }
+            return;
+        }
+
+        ops.addObject().put("op", "replace").put("path", path).set("value", target);
+    }
+
+    /**
+     * Like {@link JsonNode#equals} but also requires object keys in the same order.
+     */
+    private static boolean same(JsonNode a, JsonNode b) {
+        if (a instanceof ObjectNode x && b instanceof ObjectNode y) {
+            if (x.size() != y.size()) return false;
+            Iterator<Map.Entry<String, JsonNode>> i = x.fields();
+            Iterator<Map.Entry<String, JsonNode>> j = y.fields();
+            while (i.hasNext()) {
+                Map.Entry<String, JsonNode> e = i.next();
+                Map.Entry<String, JsonNode> f = j.next();
+                if (!e.getKey().equals(f.getKey()) || !same(e.getValue(), f.getValue())) return false;
+            }
+            return true;
+        }
+        if (a instanceof ArrayNode x && b instanceof ArrayNode y) {
+            if (x.size() != y.size()) return false;
+            for (int k = 0; k < x.size(); k++) {
+                if (!same(x.get(k), y.get(k))) return false;
+            }
+            return true;
+        }
+        return a.equals(b);
+    }
+
+    private static void insertBefore(ObjectNode object, String key, JsonNode value, String before) {
+        Map<String, JsonNode> fields = new LinkedHashMap<>();
+        object.fields().forEachRemaining(f -> fields.put(f.getKey(), f.getValue()));
+        object.removeAll();
+        fields.forEach((k, v) -> {
+            if (k.equals(before)) object.set(key, value);
+            object.set(k, v);
+        });
+        if (!object.has(key)) object.set(key, value);
+    }
+
+    private static void reorder(ObjectNode object, JsonNode keys) {
+        Map<String, JsonNode> fields = new LinkedHashMap<>();
+        object.fields().forEachRemaining(f -> fields.put(f.getKey(), f.getValue()));
+        object.removeAll();
+        for (JsonNode key : keys) {
+            object.set(key.asText(), fields.get(key.asText()));
+        }
+    }
+
+    private static String escape(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+}
@@ -0,0 +1,11 @@
+package com.apicollab.platform.common;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ProxyCapacityExceededException extends RuntimeException {
+    public ProxyCapacityExceededException(String message) {
+        super(message);
+    }
+}
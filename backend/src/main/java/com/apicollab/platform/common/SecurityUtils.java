@@ -1,5 +1,7 @@
 package com.apicollab.platform.common;
 
+import com.apicollab.platform.auth.domain.User;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -12,4 +14,16 @@ public class SecurityUtils {
             return principal.toString();
         }
     }
+
+    /**
+     * The authenticated user as built from the request's token: a detached
+     * entity with id and role, usable as an association without another lookup.
+     */
+    public static User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        throw new RuntimeException("Not authenticated");
+    }
 }
@@ -0,0 +1,180 @@
+package com.apicollab.platform.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A plain-text operation for operational transformation, in the ot.js wire
+ * format: a list of components where a positive number retains that many
+ * characters, a negative number deletes that many, and a string inserts it.
+ * Lengths count UTF-16 code units, matching JavaScript string indices.
+ */
+public final class TextOperation {
+
+    private final List<Object> ops = new ArrayList<>();
+    private int baseLength;
+    private int targetLength;
+
+    public static TextOperation fromJson(List<?> components) {
+        if (components == null) {
+            throw new IllegalArgumentException("Missing operation");
+        }
+        TextOperation operation = new TextOperation();
+        for (Object c : components) {
+            if (c instanceof String s) operation.insert(s);
+            else if (c instanceof Number n && n.intValue() > 0) operation.retain(n.intValue());
+            else if (c instanceof Number n && n.intValue() < 0) operation.delete(-n.intValue());
+            else throw new IllegalArgumentException("Invalid operation component: " + c);
+        }
+        return operation;
+    }
+
+    public List<Object> toJson() {
+        return List.copyOf(ops);
+    }
+
+    public int getBaseLength() {
+        return baseLength;
+    }
+
+    public int getTargetLength() {
+        return targetLength;
+    }
+
+    public boolean isNoop() {
+        return ops.isEmpty() || ops.size() == 1 && ops.get(0) instanceof Integer n && n > 0;
+    }
+
+    public TextOperation retain(int n) {
+        if (n <= 0) return this;
+        baseLength += n;
+        targetLength += n;
+        int last = ops.size() - 1;
+        if (last >= 0 && ops.get(last) instanceof Integer r && r > 0) ops.set(last, r + n);
+        else ops.add(n);
+        return this;
+    }
+
+    public TextOperation insert(String s) {
+        if (s.isEmpty()) return this;
+        targetLength += s.length();
+        int last = ops.size() - 1;
+        if (last >= 0 && ops.get(last) instanceof String prev) {
+            ops.set(last, prev + s);
+        } else if (last >= 0 && ops.get(last) instanceof Integer d && d < 0) {
+            // Keep inserts before deletes so equal operations have one canonical form
+            if (last >= 1 && ops.get(last - 1) instanceof String prev) ops.set(last - 1, prev + s);
+            else ops.add(last, s);
+        } else {
+            ops.add(s);
+        }
+        return this;
+    }
+
+    public TextOperation delete(int n) {
+        if (n <= 0) return this;
+        baseLength += n;
+        int last = ops.size() - 1;
+        if (last >= 0 && ops.get(last) instanceof Integer d && d < 0) ops.set(last, d - n);
+        else ops.add(-n);
+        return this;
+    }
+
+    public String apply(String text) {
+        if (text.length() != baseLength) {
+            throw new IllegalArgumentException("Operation expects length " + baseLength + " but document has " + text.length());
+        }
+        StringBuilder out = new StringBuilder(targetLength);
+        int index = 0;
+        for (Object op : ops) {
+            if (op instanceof String s) {
+                out.append(s);
+            } else if ((Integer) op > 0) {
+                out.append(text, index, index + (Integer) op);
+                index += (Integer) op;
+            } else {
+                index -= (Integer) op;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Transforms two concurrent operations on the same document so that
+     * {@code a.then(b')} and {@code b.then(a')} converge; returns
+     * {@code [a', b']}. Inserts of {@code a} win ties.
+     */
+    public static TextOperation[] transform(TextOperation a, TextOperation b) {
+        if (a.baseLength != b.baseLength) {
+            throw new IllegalArgumentException("Concurrent operations must share a base length");
+        }
+        TextOperation aPrime = new TextOperation();
+        TextOperation bPrime = new TextOperation();
+        int i = 0, j = 0;
+        Object x = next(a, i++);
+        Object y = next(b, j++);
+        while (x != null || y != null) {
+            if (x instanceof String s) {
+                aPrime.insert(s);
+                bPrime.retain(s.length());
+                x = next(a, i++);
+                continue;
+            }
+            if (y instanceof String s) {
+                aPrime.retain(s.length());
+                bPrime.insert(s);
+                y = next(b, j++);
+                continue;
+            }
+            if (x == null || y == null) {
+                throw new IllegalArgumentException("Operations do not cover the same document");
+            }
+            int p = (Integer) x;
+            int q = (Integer) y;
+            if (p > 0 && q > 0) {
+                int n = Math.min(p, q);
+                aPrime.retain(n);
+                bPrime.retain(n);
+                x = p > n ? Integer.valueOf(p - n) : next(a, i++);
+                y = q > n ? Integer.valueOf(q - n) : next(b, j++);
+            } else if (p < 0 && q < 0) {
+                // Both delete the same characters: nothing left to do on either side
+                int n = Math.min(-p, -q);
+                x = -p > n ? Integer.valueOf(p + n) : next(a, i++);
+                y = -q > n ? Integer.valueOf(q + n) : next(b, j++);
+            } else if (p < 0) {
+                int n = Math.min(-p, q);
+                aPrime.delete(n);
+                x = -p > n ? Integer.valueOf(p + n) : next(a, i++);
+                y = q > n ? Integer.valueOf(q - n) : next(b, j++);
+            } else {
+                int n = Math.min(p, -q);
+                bPrime.delete(n);
+                x = p > n ? Integer.valueOf(p - n) : next(a, i++);
+                y = -q > n ? Integer.valueOf(q + n) : next(b, j++);
+            }
+        }
+        return new TextOperation[] {aPrime, bPrime};
+    }
+
+    /**
+     * A single operation replacing all of {@code from} with {@code to},
+     * keeping their common prefix and suffix.
+     */
+    public static TextOperation replace(String from, String to) {
+        int prefix = 0;
+        int max = Math.min(from.length(), to.length());
+        while (prefix < max && from.charAt(prefix) == to.charAt(prefix)) prefix++;
+        int suffix = 0;
+        while (suffix < max - prefix && from.charAt(from.length() - 1 - suffix) == to.charAt(to.length() - 1 - suffix)) suffix++;
+        return new TextOperation()
+                .retain(prefix)
+                .delete(from.length() - prefix - suffix)
+                .insert(to.substring(prefix, to.length() - suffix))
+                .retain(suffix);
+    }
+
+    private static Object next(TextOperation op, int index) {
+        return index < op.ops.size() ? op.ops.get(index) : null;
+    }
+}
@@ -0,0 +1,309 @@
+package com.apicollab.platform.core.config;
+
+import com.apicollab.platform.core.service.ApiDefinitionService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded relay that turns the per-JVM simple broker into a cluster when
+ * {@code application.websocket.broker.mode} is {@code CLUSTER}. Every message
+ * the application publishes to a {@code /topic} destination is also queued
+ * for each peer in {@code cluster.nodes} and posted to its
+ * {@code /api/v1/internal/broker/publish}, where it is handed to that node's
+ * broker as if it had been published there.
+ * <p>
+ * One sender per peer drains its queue in order, so each destination keeps
+ * its publish order on every node. Queues are bounded ({@code max-queued});
+ * when a peer falls behind or is down the oldest frames are dropped, which
+ * clients already recover from (workspace events trigger a re-fetch,
+ * collaboration revision gaps a re-join). Idle senders post an empty batch
+ * every {@code heartbeat-ms}; a peer counts as down only once nothing has
+ * been exchanged with it, in either direction, for {@code down-after-ms}
+ * (several heartbeats), so a single failed post does not change anything.
+ * <p>
+ * The node list plus that liveness signal decide which node owns state that
+ * must exist once per cluster, such as a definition's live collaboration
+ * document ({@link #ownerOf}).
+ */
+@Component
+@Slf4j
+public class ClusterBrokerRelay implements ChannelInterceptor {
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    // Marks frames received from a peer so they are not forwarded again
+    private static final String ORIGIN_HEADER = "clusterOrigin";
+
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MessageChannel brokerChannel;
+    private final boolean enabled;
+    private final String selfUrl;
+    private final List<String> nodes;
+    private final byte[] secret;
+    private final int batchSize;
+    private final long heartbeatMs;
+    private final long downAfterMs;
+    private final HttpClient httpClient;
+    private final List<Peer> peers = new ArrayList<>();
+
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder received = new LongAdder();
+
+    private volatile boolean running;
+
+    public ClusterBrokerRelay(
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher,
+            @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel,
+            @Value("${application.websocket.broker.mode:SIMPLE}") WebSocketConfig.BrokerMode mode,
+            @Value("${application.websocket.broker.cluster.self-url:}") String selfUrl,
+            @Value("${application.websocket.broker.cluster.nodes:}") String[] nodes,
+            @Value("${application.websocket.broker.cluster.secret:}") String secret,
+            @Value("${application.websocket.broker.cluster.max-queued:10000}") int maxQueued,
+            @Value("${application.websocket.broker.cluster.batch-size:200}") int batchSize,
+            @Value("${application.websocket.broker.cluster.heartbeat-ms:5000}") long heartbeatMs,
+            @Value("${application.websocket.broker.cluster.down-after-ms:15000}") long downAfterMs,
+            @Value("${application.websocket.broker.cluster.connect-timeout-ms:2000}") long connectTimeoutMs
+    ) {
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.brokerChannel = brokerChannel;
+        this.enabled = mode == WebSocketConfig.BrokerMode.CLUSTER;
+        this.selfUrl = normalize(selfUrl);
+        this.nodes = Arrays.stream(nodes).map(ClusterBrokerRelay::normalize).filter(n -> !n.isEmpty()).distinct().sorted().toList();
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.batchSize = batchSize;
+        this.heartbeatMs = heartbeatMs;
+        this.downAfterMs = Math.max(downAfterMs, 2 * heartbeatMs);
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(connectTimeoutMs)).build();
+
+        if (enabled) {
+            if (this.selfUrl.isEmpty() || !this.nodes.contains(this.selfUrl)) {
+                throw new IllegalStateException("Cluster broker mode needs cluster.self-url to be one of cluster.nodes");
+            }
+            if (secret.isBlank()) {
+                throw new IllegalStateException("Cluster broker mode needs cluster.secret");
+            }
+            this.nodes.stream().filter(n -> !n.equals(this.selfUrl)).forEach(n -> peers.add(new Peer(n, maxQueued)));
+        }
+    }
+
+    private static final class Peer {
+        final String url;
+        final BlockingQueue<Frame> queue;
+        final LongAdder sent = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        // Presumed up at startup until it has had down-after-ms to show itself
+        volatile long lastContact = System.currentTimeMillis();
+        // Only touched by the peer's sender thread; drives logging, not ownership
+        boolean failing;
+
+        Peer(String url, int maxQueued) {
+            this.url = url;
+            this.queue = new ArrayBlockingQueue<>(maxQueued);
+        }
+    }
+
+    public record Frame(String destination, String contentType, byte[] payload) {}
+
+    public record Batch(String origin, List<Frame> frames) {}
+
+    /**
+     * Published locally for workspace events that arrived from another node,
+     * so node-local caches can drop what the other node changed.
+     */
+    public record RemoteSync(List<ApiDefinitionService.SyncMessage> events) {}
+
+    public record PeerStats(String url, boolean up, long sent, long dropped, int queued, long lastContactMs) {}
+
+    public record Stats(boolean clustered, String self, long forwarded, long received, List<PeerStats> peers) {}
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        for (Peer peer : peers) {
+            Thread.ofVirtual().name("broker-relay-" + peer.url).start(() -> send(peer));
+        }
+        log.info("Cluster broker relay started as {} with peers {}", selfUrl, peers.stream().map(p -> p.url).toList());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        if (!enabled || peers.isEmpty()) return message;
+        MessageHeaders headers = message.getHeaders();
+        if (headers.containsKey(ORIGIN_HEADER) || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (destination == null || !destination.startsWith("/topic/") || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        Object contentType = headers.get(MessageHeaders.CONTENT_TYPE);
+        Frame frame = new Frame(destination, contentType != null ? contentType.toString() : null, payload);
+        for (Peer peer : peers) {
+            while (!peer.queue.offer(frame)) {
+                if (peer.queue.poll() != null) peer.dropped.increment();
+            }
+        }
+        forwarded.increment();
+        return message;
+    }
+
+    private void send(Peer peer) {
+        while (running) {
+            List<Frame> batch = new ArrayList<>();
+            try {
+                Frame first = peer.queue.poll(heartbeatMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    peer.queue.drainTo(batch, batchSize - 1);
+                }
+                post(peer.url, "/publish", new Batch(selfUrl, batch), Void.class);
+                peer.sent.add(batch.size());
+                peer.lastContact = System.currentTimeMillis();
+                if (peer.failing) log.info("Broker peer {} is reachable again", peer.url);
+                peer.failing = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                peer.dropped.add(batch.size());
+                if (!peer.failing) log.warn("Broker peer {} is unreachable: {}", peer.url, e.getMessage());
+                peer.failing = true;
+                try {
+                    Thread.sleep(Math.min(heartbeatMs, 1000));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands frames from a peer to the local broker, in the order they were sent.
+     */
+    public void receive(Batch batch) {
+        peers.stream().filter(p -> p.url.equals(batch.origin())).findFirst()
+                .ifPresent(p -> p.lastContact = System.currentTimeMillis());
+        for (Frame frame : batch.frames()) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(frame.destination());
+            if (frame.contentType() != null) accessor.setContentType(MimeType.valueOf(frame.contentType()));
+            accessor.setHeader(ORIGIN_HEADER, batch.origin());
+            brokerChannel.send(MessageBuilder.createMessage(frame.payload(), accessor.getMessageHeaders()));
+            received.increment();
+
+            if (frame.destination().startsWith("/topic/workspaces/")) {
+                try {
+                    eventPublisher.publishEvent(new RemoteSync(objectMapper.readValue(frame.payload(),
+                            new TypeReference<List<ApiDefinitionService.SyncMessage>>() {})));
+                } catch (Exception e) {
+                    log.debug("Ignoring unreadable workspace event from {}: {}", batch.origin(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Node that owns {@code key}, or null when it is this node (or clustering
+     * is off). Keys are spread over the configured nodes; a peer that has been
+     * silent for {@code down-after-ms} hands its keys to the next node in the
+     * ring, and gets them back once it is heard from again. Callers holding
+     * owned state re-check this and hand it over when it changes.
+     */
+    public String ownerOf(long key) {
+        if (!enabled || peers.isEmpty()) return null;
+        long now = System.currentTimeMillis();
+        int start = Math.floorMod(Long.hashCode(key * 0x9E3779B97F4A7C15L), nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            String node = nodes.get((start + i) % nodes.size());
+            if (node.equals(selfUrl)) return null;
+            if (peers.stream().anyMatch(p -> p.url.equals(node) && isAlive(p, now))) return node;
+        }
+        return null;
+    }
+
+    /**
+     * Calls an internal endpoint ({@code /api/v1/internal/broker/...}) on another node.
+     */
+    public <T> T post(String node, String path, Object body, Class<T> responseType) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + "/api/v1/internal/broker" + path))
+                .timeout(Duration.ofMillis(Math.max(heartbeatMs, 5000)))
+                .header("Content-Type", "application/json")
+                .header(SECRET_HEADER, new String(secret, StandardCharsets.UTF_8))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new RuntimeException("Peer " + node + " answered " + response.statusCode() + " for " + path);
+        }
+        if (responseType == Void.class || response.body().length == 0) return null;
+        return objectMapper.readValue(response.body(), responseType);
+    }
+
+    public boolean isTrusted(String presentedSecret) {
+        return enabled && presentedSecret != null
+                && MessageDigest.isEqual(secret, presentedSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Stats getStats() {
+        long now = System.currentTimeMillis();
+        return new Stats(enabled, selfUrl, forwarded.sum(), received.sum(), peers.stream()
+                .map(p -> new PeerStats(p.url, isAlive(p, now), p.sent.sum(), p.dropped.sum(), p.queue.size(), p.lastContact))
+                .toList());
+    }
+
+    private boolean isAlive(Peer peer, long now) {
+        return now - peer.lastContact < downAfterMs;
+    }
+
+    private static String normalize(String url) {
+        String trimmed = url == null ? "" : url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
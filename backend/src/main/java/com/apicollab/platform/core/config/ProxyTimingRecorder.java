@@ -0,0 +1,71 @@
+package com.apicollab.platform.core.config;
+
+/**
+ * Per-thread timestamps for one proxied exchange. The classic HttpClient runs
+ * DNS, connect, TLS and the request itself on the calling thread, so the
+ * transport hooks in {@link ProxyTransportConfig} can mark phases here without
+ * threading a context through RestTemplate. Hooks are no-ops when no exchange
+ * is being recorded (e.g. OAuth2 token fetches). When redirects are followed
+ * every hop resets the connection phases, so they describe the final hop.
+ */
+public final class ProxyTimingRecorder {
+
+    private static final ThreadLocal<Marks> CURRENT = new ThreadLocal<>();
+
+    private ProxyTimingRecorder() {
+    }
+
+    public static final class Marks {
+        public final long startedAt = System.nanoTime();
+        public long connectStartedAt;
+        public long dnsStartedAt;
+        public long dnsNanos;
+        public long tlsStartedAt;
+        public long connectedAt;
+        public long headersAt;
+        public boolean newConnection;
+    }
+
+    public static Marks start() {
+        Marks marks = new Marks();
+        CURRENT.set(marks);
+        return marks;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    static void beforeConnect() {
+        Marks m = CURRENT.get();
+        if (m == null) return;
+        m.connectStartedAt = System.nanoTime();
+        m.dnsStartedAt = 0;
+        m.dnsNanos = 0;
+        m.tlsStartedAt = 0;
+        m.newConnection = false;
+    }
+
+    static void dnsResolved(long startedAt, long nanos) {
+        Marks m = CURRENT.get();
+        if (m == null) return;
+        if (m.dnsStartedAt == 0) m.dnsStartedAt = startedAt;
+        m.dnsNanos += nanos;
+        m.newConnection = true;
+    }
+
+    static void tlsStarting() {
+        Marks m = CURRENT.get();
+        if (m != null) m.tlsStartedAt = System.nanoTime();
+    }
+
+    static void connected() {
+        Marks m = CURRENT.get();
+        if (m != null) m.connectedAt = System.nanoTime();
+    }
+
+    static void headersReceived() {
+        Marks m = CURRENT.get();
+        if (m != null) m.headersAt = System.nanoTime();
+    }
+}
@@ -0,0 +1,165 @@
+package com.apicollab.platform.core.config;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Pooled HTTP transport used for outbound calls made on behalf of users
+ * (the debugger proxy and OAuth2 token fetches). DNS resolution, TLS setup,
+ * connection establishment and response headers are marked through
+ * {@link ProxyTimingRecorder} for the timing breakdown on proxy responses.
+ */
+@Configuration
+public class ProxyTransportConfig {
+
+    @Value("${application.proxy.pool.max-total:200}")
+    private int maxTotal;
+
+    @Value("${application.proxy.pool.max-per-route:20}")
+    private int maxPerRoute;
+
+    @Value("${application.proxy.pool.idle-eviction-seconds:30}")
+    private long idleEvictionSeconds;
+
+    @Value("${application.proxy.pool.time-to-live-seconds:300}")
+    private long timeToLiveSeconds;
+
+    @Value("${application.proxy.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${application.proxy.read-timeout-ms:30000}")
+    private long readTimeoutMs;
+
+    @Value("${application.proxy.pool.acquire-timeout-ms:5000}")
+    private long acquireTimeoutMs;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager proxyConnectionManager() {
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register(URIScheme.HTTP.id, PlainConnectionSocketFactory.getSocketFactory())
+                        .register(URIScheme.HTTPS.id, new TimedSslSocketFactory())
+                        .build(),
+                PoolConcurrencyPolicy.STRICT,
+                PoolReusePolicy.LIFO,
+                null,
+                DefaultSchemePortResolver.INSTANCE,
+                new TimedDnsResolver(),
+                ManagedHttpClientConnectionFactory.INSTANCE);
+        manager.setMaxTotal(maxTotal);
+        manager.setDefaultMaxPerRoute(maxPerRoute);
+        manager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .setTimeToLive(TimeValue.ofSeconds(timeToLiveSeconds))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build());
+        return manager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient proxyHttpClient(PoolingHttpClientConnectionManager proxyConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(proxyConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(acquireTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                // The client is shared by every user, so cookies must never leak between requests
+                .disableCookieManagement()
+                .addExecInterceptorBefore(ChainElement.CONNECT.name(), "timing-connect", connectTiming())
+                .addExecInterceptorBefore(ChainElement.MAIN_TRANSPORT.name(), "timing-exchange", exchangeTiming())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate proxyRestTemplate(CloseableHttpClient proxyHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(proxyHttpClient));
+    }
+
+    private static ExecChainHandler connectTiming() {
+        return (request, scope, chain) -> {
+            ProxyTimingRecorder.beforeConnect();
+            return chain.proceed(request, scope);
+        };
+    }
+
+    /**
+     * Sits between connection setup and the transport: entry means the
+     * connection is ready, return means the response head has arrived
+     * (the entity is still streaming).
+     */
+    private static ExecChainHandler exchangeTiming() {
+        return (request, scope, chain) -> {
+            ProxyTimingRecorder.connected();
+            ClassicHttpResponse response = chain.proceed(request, scope);
+            ProxyTimingRecorder.headersReceived();
+            return response;
+        };
+    }
+
+    private static class TimedDnsResolver implements DnsResolver {
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            long start = System.nanoTime();
+            try {
+                return SystemDefaultDnsResolver.INSTANCE.resolve(host);
+            } finally {
+                ProxyTimingRecorder.dnsResolved(start, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public String resolveCanonicalHostname(String host) throws UnknownHostException {
+            return SystemDefaultDnsResolver.INSTANCE.resolveCanonicalHostname(host);
+        }
+    }
+
+    /**
+     * Marks the point where TCP is up and the TLS handshake is about to start.
+     */
+    private static class TimedSslSocketFactory extends SSLConnectionSocketFactory {
+        TimedSslSocketFactory() {
+            super(SSLContexts.createSystemDefault());
+        }
+
+        @Override
+        protected void prepareSocket(SSLSocket socket, HttpContext context) throws IOException {
+            ProxyTimingRecorder.tlsStarting();
+            super.prepareSocket(socket, context);
+        }
+    }
+}
@@ -1,19 +1,84 @@
 package com.apicollab.platform.core.config;
 
+import com.apicollab.platform.auth.config.JwtChannelInterceptor;
+import com.apicollab.platform.auth.service.JwtService;
+import com.apicollab.platform.auth.service.UserPrincipalCache;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    /**
+     * SIMPLE keeps the in-memory broker of this JVM (single node, tests);
+     * CLUSTER additionally relays every published frame to the other nodes
+     * (see {@link ClusterBrokerRelay}).
+     */
+    public enum BrokerMode { SIMPLE, CLUSTER }
+
+    private final JwtService jwtService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final WorkspaceChannelInterceptor workspaceChannelInterceptor;
+    private final ClusterBrokerRelay clusterBrokerRelay;
+    private final TaskScheduler brokerTaskScheduler;
+    private final long heartbeatMs;
+    private final int sendTimeLimitMs;
+    private final int sendBufferSizeLimit;
+
+    public WebSocketConfig(
+            JwtService jwtService,
+            UserPrincipalCache userPrincipalCache,
+            WorkspaceChannelInterceptor workspaceChannelInterceptor,
+            ClusterBrokerRelay clusterBrokerRelay,
+            @Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler messageBrokerTaskScheduler,
+            @Value("${application.websocket.heartbeat-ms:10000}") long heartbeatMs,
+            @Value("${application.websocket.send-time-limit-ms:15000}") int sendTimeLimitMs,
+            @Value("${application.websocket.send-buffer-size-limit:1048576}") int sendBufferSizeLimit
+    ) {
+        this.jwtService = jwtService;
+        this.userPrincipalCache = userPrincipalCache;
+        this.workspaceChannelInterceptor = workspaceChannelInterceptor;
+        this.clusterBrokerRelay = clusterBrokerRelay;
+        this.brokerTaskScheduler = messageBrokerTaskScheduler;
+        this.heartbeatMs = heartbeatMs;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        config.enableSimpleBroker("/topic")
+                .setHeartbeatValue(new long[] {heartbeatMs, heartbeatMs})
+                .setTaskScheduler(brokerTaskScheduler);
         config.setApplicationDestinationPrefixes("/app");
+        // Collaborative edits must reach each client in revision order
+        config.setPreservePublishOrder(true);
+        if (clusterBrokerRelay.isEnabled()) {
+            // Every frame published to the local broker is also relayed to the other nodes
+            config.configureBrokerChannel().interceptors(clusterBrokerRelay);
+        }
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Authenticate on CONNECT first, then authorize workspace-scoped SUBSCRIBE/SEND
+        registration.interceptors(new JwtChannelInterceptor(jwtService, userPrincipalCache), workspaceChannelInterceptor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Back-pressure for slow clients: a session that cannot take its frames in time is closed
+        registration.setSendTimeLimit(sendTimeLimitMs).setSendBufferSizeLimit(sendBufferSizeLimit);
     }
 
     @Override
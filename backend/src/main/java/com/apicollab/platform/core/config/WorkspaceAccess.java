@@ -0,0 +1,34 @@
+package com.apicollab.platform.core.config;
+
+import com.apicollab.platform.core.service.WorkspaceAccessIndex;
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Requires the caller to have {@link #role} in the workspace that the id in
+ * path variable or request parameter {@link #param} belongs to, checked by
+ * {@link WorkspaceAccessInterceptor} before the handler runs. Repeat it for
+ * handlers taking several ids.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(WorkspaceAccess.List.class)
+public @interface WorkspaceAccess {
+
+    WorkspaceAuthorizer.Kind value();
+
+    String param() default "id";
+
+    WorkspaceAccessIndex.Role role() default WorkspaceAccessIndex.Role.MEMBER;
+
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface List {
+        WorkspaceAccess[] value();
+    }
+}
@@ -0,0 +1,66 @@
+package com.apicollab.platform.core.config;
+
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Enforces {@link WorkspaceAccess} on controller methods. The annotations of
+ * each handler are read once; a request then costs one id lookup per
+ * annotation in {@link WorkspaceAuthorizer}.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkspaceAccessInterceptor implements HandlerInterceptor {
+
+    private final WorkspaceAuthorizer authorizer;
+    private final Map<Method, List<WorkspaceAccess>> rules = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        // Async re-dispatches were checked on the original request
+        if (!(handler instanceof HandlerMethod method) || request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        List<WorkspaceAccess> required = rules.computeIfAbsent(method.getMethod(),
+                m -> List.copyOf(AnnotatedElementUtils.findMergedRepeatableAnnotations(m, WorkspaceAccess.class)));
+        if (required.isEmpty()) {
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        for (WorkspaceAccess access : required) {
+            String raw = pathVariables != null && pathVariables.containsKey(access.param())
+                    ? pathVariables.get(access.param())
+                    : request.getParameter(access.param());
+            Long id = parse(raw);
+            if (id != null) {
+                authorizer.require(access.value(), id, access.role());
+            }
+        }
+        return true;
+    }
+
+    // Absent or malformed ids are left to the handler's own binding errors
+    private static Long parse(String raw) {
+        if (raw == null || raw.isBlank()) return null;
+        try {
+            return Long.valueOf(raw.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.apicollab.platform.core.config;
+
+import com.apicollab.platform.core.service.CollectionRunService;
+import com.apicollab.platform.core.service.WorkspaceAccessIndex;
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Only lets members of a workspace subscribe to its scoped destinations
+ * ({@code /topic/workspaces/{id}}, {@code /topic/api-definitions/{id}},
+ * {@code /topic/collab/{id}}, {@code /topic/runs/{id}},
+ * {@code /topic/load-tests/{id}}) or send to its collaboration endpoints.
+ * Membership comes from the {@link WorkspaceAccessIndex} and definition ids
+ * are mapped to their workspace by {@link WorkspaceAuthorizer}, so
+ * collaborative edits are checked per operation without a query.
+ * <p>
+ * Sessions without an authenticated user may not subscribe or send at all,
+ * and clients never publish to {@code /topic/**} directly: those frames come
+ * from the server only.
+ * <p>
+ * Everything else is denied. The simple broker matches subscriptions as Ant
+ * patterns, so a destination with {@code *}, {@code ?} or <code>{</code> could
+ * span every workspace and is refused outright.
+ */
+@Component
+public class WorkspaceChannelInterceptor implements ChannelInterceptor {
+
+    private static final Pattern WORKSPACE_DESTINATION = Pattern.compile("^/(?:topic/workspaces/(\\d+)|app/workspaces/(\\d+)/sync)$");
+    private static final Pattern DEFINITION_DESTINATION = Pattern.compile("^/(?:topic/api-definitions|topic/collab|app/collab)/(\\d+)$");
+    private static final Pattern RUN_DESTINATION = Pattern.compile("^/topic/runs/([0-9a-fA-F-]+)$");
+    private static final Pattern LOAD_TEST_DESTINATION = Pattern.compile("^/topic/load-tests/(\\d+)$");
+
+    private final WorkspaceAccessIndex accessIndex;
+    private final WorkspaceAuthorizer authorizer;
+    private final CollectionRunService runService;
+
+    public WorkspaceChannelInterceptor(
+            WorkspaceAccessIndex accessIndex,
+            WorkspaceAuthorizer authorizer,
+            @Lazy CollectionRunService runService // publishes through the broker this interceptor guards
+    ) {
+        this.accessIndex = accessIndex;
+        this.authorizer = authorizer;
+        this.runService = runService;
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getDestination() == null) {
+            return message;
+        }
+        if (!StompCommand.SUBSCRIBE.equals(accessor.getCommand()) && !StompCommand.SEND.equals(accessor.getCommand())) {
+            return message;
+        }
+        Principal user = accessor.getUser();
+        if (user == null) {
+            throw new AccessDeniedException("Authentication required");
+        }
+        String destination = accessor.getDestination();
+        if (destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0) {
+            throw new AccessDeniedException("Pattern destinations are not allowed: " + destination);
+        }
+        if (StompCommand.SEND.equals(accessor.getCommand()) && destination.startsWith("/topic/")) {
+            throw new AccessDeniedException("Clients may not publish to " + destination);
+        }
+        Long workspaceId = resolveWorkspace(destination);
+        if (!accessIndex.canAccess(user.getName(), workspaceId)) {
+            throw new AccessDeniedException("Not a member of workspace " + workspaceId);
+        }
+        return message;
+    }
+
+    /**
+     * Workspace a scoped destination belongs to; any other destination is denied.
+     */
+    private Long resolveWorkspace(String destination) {
+        Matcher workspace = WORKSPACE_DESTINATION.matcher(destination);
+        if (workspace.matches()) {
+            return Long.valueOf(workspace.group(1) != null ? workspace.group(1) : workspace.group(2));
+        }
+        Matcher run = RUN_DESTINATION.matcher(destination);
+        if (run.matches()) {
+            // Runs live in memory on the node that started them
+            Long workspaceId = runService.workspaceOf(run.group(1));
+            if (workspaceId == null) {
+                throw new AccessDeniedException("Run not found");
+            }
+            return workspaceId;
+        }
+        Matcher loadTest = LOAD_TEST_DESTINATION.matcher(destination);
+        if (loadTest.matches()) {
+            Long workspaceId = authorizer.workspaceOf(WorkspaceAuthorizer.Kind.LOAD_TEST_RUN, Long.valueOf(loadTest.group(1)));
+            if (workspaceId == null) {
+                throw new AccessDeniedException("Load test not found");
+            }
+            return workspaceId;
+        }
+        Matcher definition = DEFINITION_DESTINATION.matcher(destination);
+        if (!definition.matches()) {
+            throw new AccessDeniedException("Unknown destination " + destination);
+        }
+        Long workspaceId = authorizer.workspaceOf(WorkspaceAuthorizer.Kind.API_DEFINITION, Long.valueOf(definition.group(1)));
+        if (workspaceId == null) {
+            throw new AccessDeniedException("API definition not found");
+        }
+        return workspaceId;
+    }
+}
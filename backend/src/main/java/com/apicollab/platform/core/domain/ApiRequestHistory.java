@@ -1,6 +1,7 @@
 package com.apicollab.platform.core.domain;
 
 import com.apicollab.platform.auth.domain.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -15,7 +16,11 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "api_request_history")
+@Table(name = "api_request_history", indexes = {
+        @Index(name = "idx_history_workspace_user_executed", columnList = "workspace_id, user_id, executed_at"),
+        @Index(name = "idx_history_workspace_executed", columnList = "workspace_id, executed_at"),
+        @Index(name = "idx_history_workspace_method_executed", columnList = "workspace_id, method, executed_at")
+})
 public class ApiRequestHistory {
 
     @Id
@@ -43,23 +48,59 @@ public class ApiRequestHistory {
     @Column(nullable = false, columnDefinition = "text")
     private String url;
 
-    @Lob
-    @Column(columnDefinition = "longtext")
+    // Payloads live in history_blobs, referenced by hash; resolved by HistoryBlobStore on read
+    @Transient
     private String headers; // JSON
 
-    @Lob
-    @Column(columnDefinition = "longtext")
+    @Transient
     private String queryParams; // JSON
 
     private String bodyType;
 
-    @Lob
-    @Column(columnDefinition = "longtext")
+    @Transient
     private String bodyContent;
 
+    @JsonIgnore
+    @Column(length = 64)
+    private String headersHash;
+
+    @JsonIgnore
+    @Column(length = 64)
+    private String queryParamsHash;
+
+    @JsonIgnore
+    @Column(length = 64)
+    private String bodyHash;
+
+    // Inline columns used before blob storage; emptied by HistoryBlobMigration
+    @JsonIgnore
+    @Lob
+    @Column(name = "headers", columnDefinition = "longtext")
+    private String legacyHeaders;
+
+    @JsonIgnore
+    @Lob
+    @Column(name = "query_params", columnDefinition = "longtext")
+    private String legacyQueryParams;
+
+    @JsonIgnore
+    @Lob
+    @Column(name = "body_content", columnDefinition = "longtext")
+    private String legacyBodyContent;
+
     @Column(name = "executed_at")
     private LocalDateTime executedAt;
 
+    // Timing breakdown reported by the proxy (ProxyService.Timing), in ms; null for legacy rows
+    private Integer responseStatus;
+    private Double totalMs;
+    private Double dnsMs;
+    private Double connectMs;
+    private Double tlsMs;
+    private Double ttfbMs;
+    private Double downloadMs;
+    private Long responseBytes;
+
     @PrePersist
     protected void onCreate() {
         executedAt = LocalDateTime.now();
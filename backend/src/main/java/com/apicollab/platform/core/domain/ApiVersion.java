@@ -1,6 +1,7 @@
 package com.apicollab.platform.core.domain;
 
 import com.apicollab.platform.auth.domain.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -15,7 +16,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "api_versions")
+@Table(name = "api_versions", indexes = {
+        @Index(name = "idx_versions_definition_created", columnList = "api_definition_id, created_at"),
+        @Index(name = "idx_versions_keyframe", columnList = "keyframe_id")
+})
 public class ApiVersion {
 
     @Id
@@ -32,9 +36,43 @@ public class ApiVersion {
     @JsonIgnoreProperties({"password", "email", "role", "enabled", "authorities", "accountNonExpired", "accountNonLocked", "credentialsNonExpired"})
     private User createdBy;
 
+    /**
+     * FULL rows keep the whole content; DELTA rows keep a {@link com.apicollab.platform.common.JsonPatch}
+     * against {@code baseVersionId}, and the chain back to {@code keyframeId} rebuilds them.
+     * Rows written before delta storage have no encoding and are FULL.
+     */
+    public enum Encoding { FULL, DELTA }
+
+    /** How a DELTA row's patched tree is serialized back to the exact original text. */
+    public enum Format { COMPACT, INDENTED }
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    @JsonIgnore
+    private Encoding encoding;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    @JsonIgnore
+    private Format format;
+
+    @Column(name = "base_version_id")
+    @JsonIgnore
+    private Long baseVersionId;
+
+    @Column(name = "keyframe_id")
+    @JsonIgnore
+    private Long keyframeId;
+
+    @Lob
+    @Column(columnDefinition = "longtext")
+    @JsonIgnore
+    private String content; // The snapshot of the API definition content (FULL rows only)
+
     @Lob
     @Column(columnDefinition = "longtext")
-    private String content; // The snapshot of the API definition content
+    @JsonIgnore
+    private String delta;
 
     private String description; // e.g. "Initial Commit", "Fixed Params"
 
@@ -0,0 +1,48 @@
+package com.apicollab.platform.core.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Content-addressed payload shared by history rows: keyed by the SHA-256 of
+ * the original text and reference-counted by the rows pointing at it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "history_blobs", indexes = {
+        // Garbage collection deletes by ref_count <= 0
+        @Index(name = "idx_history_blobs_ref_count", columnList = "ref_count")
+})
+public class HistoryBlob {
+
+    public enum Compression { NONE, DEFLATE }
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Compression compression;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "longblob")
+    private byte[] data;
+
+    private int originalSize;
+
+    private int storedSize;
+
+    private long refCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,44 @@
+package com.apicollab.platform.core.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-workspace override of the request history retention defaults. A null
+ * limit means "keep"; workspaces without a row use the configured defaults.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "history_retention_policies")
+public class HistoryRetentionPolicy {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "workspace_id", nullable = false, unique = true)
+    private Long workspaceId;
+
+    private Integer maxAgeDays;
+
+    private Integer maxRowsPerUser;
+
+    private boolean archiveBeforeDelete;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
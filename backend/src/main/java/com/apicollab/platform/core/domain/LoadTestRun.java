@@ -0,0 +1,91 @@
+package com.apicollab.platform.core.domain;
+
+import com.apicollab.platform.auth.domain.User;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "load_test_runs")
+public class LoadTestRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "test_case_id", nullable = false)
+    @JsonIgnoreProperties({"apiDefinition", "content"})
+    private ApiTestCase testCase;
+
+    @ManyToOne
+    @JoinColumn(name = "started_by_user_id")
+    @JsonIgnoreProperties({"password", "email", "role", "enabled", "authorities", "accountNonExpired", "accountNonLocked", "credentialsNonExpired"})
+    private User startedBy;
+
+    private Long environmentId;
+
+    @Enumerated(EnumType.STRING)
+    private Mode mode;
+
+    private Double targetRate; // requests per second, RATE mode
+
+    private Integer concurrency; // workers, CONCURRENCY mode
+
+    private int durationSeconds;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private long totalRequests;
+    private long errorCount;
+    private double throughput; // completed requests per second
+
+    // Latencies in microseconds, measured from the intended send time
+    private long p50Micros;
+    private long p90Micros;
+    private long p99Micros;
+    private long p999Micros;
+    private long maxMicros;
+    private double meanMicros;
+
+    @Lob
+    @Column(columnDefinition = "longtext")
+    private String errorBreakdown; // JSON: {"HTTP 503": 12, "TRANSPORT_ERROR": 3}
+
+    @Lob
+    @Column(columnDefinition = "longtext")
+    private String histogram; // JSON: {bucketUpperBoundMicros: count}
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public enum Mode {
+        RATE,
+        CONCURRENCY
+    }
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        startedAt = LocalDateTime.now();
+    }
+}
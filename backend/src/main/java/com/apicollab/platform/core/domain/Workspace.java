@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.util.Set;
@@ -44,7 +45,9 @@ public class Workspace {
         TEAM
     }
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Access checks use WorkspaceAccessIndex; the list is only loaded when a workspace itself is returned
+    @ManyToMany(fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @JoinTable(
         name = "workspace_shares",
         joinColumns = @JoinColumn(name = "workspace_id"),
@@ -1,9 +1,22 @@
 package com.apicollab.platform.core.repository;
 
 import com.apicollab.platform.core.domain.ApiDefinition;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
 import java.util.List;
+import java.util.Optional;
 
 public interface ApiDefinitionRepository extends JpaRepository<ApiDefinition, Long> {
     List<ApiDefinition> findByWorkspaceId(Long workspaceId);
+
+    @Query("SELECT d.workspace.id FROM ApiDefinition d WHERE d.id = :id")
+    Optional<Long> findWorkspaceIdById(Long id);
+
+    // Row lock for compare-and-set writes; concurrent saves wait for the transaction
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM ApiDefinition d WHERE d.id = :id")
+    Optional<ApiDefinition> findForUpdateById(Long id);
 }
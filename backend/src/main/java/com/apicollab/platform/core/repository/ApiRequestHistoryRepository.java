@@ -3,11 +3,35 @@ package com.apicollab.platform.core.repository;
 import com.apicollab.platform.core.domain.ApiRequestHistory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ApiRequestHistoryRepository extends JpaRepository<ApiRequestHistory, Long> {
     List<ApiRequestHistory> findByWorkspaceIdAndUserUsernameOrderByExecutedAtDesc(Long workspaceId, String username, Pageable pageable);
-    
-    // For overwrite check
-    ApiRequestHistory findFirstByWorkspaceIdAndUserUsernameOrderByExecutedAtDesc(Long workspaceId, String username);
+
+    interface LatencyTrendPoint {
+        LocalDate getDay();
+        long getSamples();
+        Double getAvgTotalMs();
+        Double getMaxTotalMs();
+        Double getAvgDnsMs();
+        Double getAvgConnectMs();
+        Double getAvgTlsMs();
+        Double getAvgTtfbMs();
+        Double getAvgDownloadMs();
+        Double getAvgResponseBytes();
+    }
+
+    // Daily latency per endpoint, across everyone in the workspace
+    @Query("SELECT cast(h.executedAt as LocalDate) AS day, count(h) AS samples, " +
+           "avg(h.totalMs) AS avgTotalMs, max(h.totalMs) AS maxTotalMs, avg(h.dnsMs) AS avgDnsMs, " +
+           "avg(h.connectMs) AS avgConnectMs, avg(h.tlsMs) AS avgTlsMs, avg(h.ttfbMs) AS avgTtfbMs, " +
+           "avg(h.downloadMs) AS avgDownloadMs, avg(h.responseBytes) AS avgResponseBytes " +
+           "FROM ApiRequestHistory h WHERE h.workspace.id = :workspaceId AND h.method = :method AND h.url = :url " +
+           "AND h.totalMs IS NOT NULL AND h.executedAt >= :since " +
+           "GROUP BY cast(h.executedAt as LocalDate) ORDER BY cast(h.executedAt as LocalDate)")
+    List<LatencyTrendPoint> findLatencyTrend(Long workspaceId, String method, String url, LocalDateTime since);
 }
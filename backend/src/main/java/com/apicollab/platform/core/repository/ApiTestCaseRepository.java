@@ -6,4 +6,5 @@ import java.util.List;
 
 public interface ApiTestCaseRepository extends JpaRepository<ApiTestCase, Long> {
     List<ApiTestCase> findByApiDefinitionId(Long apiDefinitionId);
+    List<ApiTestCase> findByApiDefinitionWorkspaceId(Long workspaceId);
 }
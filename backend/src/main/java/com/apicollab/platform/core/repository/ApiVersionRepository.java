@@ -2,8 +2,25 @@ package com.apicollab.platform.core.repository;
 
 import com.apicollab.platform.core.domain.ApiVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ApiVersionRepository extends JpaRepository<ApiVersion, Long> {
-    List<ApiVersion> findByApiDefinitionIdOrderByCreatedAtDesc(Long apiDefinitionId);
+
+    interface VersionSummary {
+        Long getId();
+        String getDescription();
+        LocalDateTime getCreatedAt();
+        Long getCreatedById();
+        String getCreatedByUsername();
+    }
+
+    // Deliberately selects no content/delta columns so listing never touches the LOBs
+    @Query("select v.id as id, v.description as description, v.createdAt as createdAt, " +
+           "u.id as createdById, u.username as createdByUsername " +
+           "from ApiVersion v left join v.createdBy u " +
+           "where v.apiDefinition.id = :apiDefinitionId order by v.createdAt desc, v.id desc")
+    List<VersionSummary> findSummariesByApiDefinitionId(Long apiDefinitionId);
 }
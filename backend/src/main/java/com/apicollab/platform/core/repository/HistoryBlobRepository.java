@@ -0,0 +1,14 @@
+package com.apicollab.platform.core.repository;
+
+import com.apicollab.platform.core.domain.HistoryBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface HistoryBlobRepository extends JpaRepository<HistoryBlob, String> {
+
+    @Query("SELECT coalesce(sum(b.originalSize), 0) FROM HistoryBlob b")
+    long sumOriginalSize();
+
+    @Query("SELECT coalesce(sum(b.storedSize), 0) FROM HistoryBlob b")
+    long sumStoredSize();
+}
@@ -0,0 +1,9 @@
+package com.apicollab.platform.core.repository;
+
+import com.apicollab.platform.core.domain.HistoryRetentionPolicy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Optional;
+
+public interface HistoryRetentionPolicyRepository extends JpaRepository<HistoryRetentionPolicy, Long> {
+    Optional<HistoryRetentionPolicy> findByWorkspaceId(Long workspaceId);
+}
@@ -0,0 +1,9 @@
+package com.apicollab.platform.core.repository;
+
+import com.apicollab.platform.core.domain.LoadTestRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+
+public interface LoadTestRunRepository extends JpaRepository<LoadTestRun, Long> {
+    List<LoadTestRun> findByTestCaseIdOrderByStartedAtDesc(Long testCaseId);
+}
@@ -0,0 +1,257 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.auth.domain.User;
+import com.apicollab.platform.core.domain.ApiDefinition;
+import com.apicollab.platform.core.repository.ApiDefinitionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Debounces editor saves of API definitions. Each save is acknowledged
+ * straight away and parked per definition and user; once the user has been
+ * quiet for {@code debounce-ms}, or the window has been open for
+ * {@code max-window-ms}, the latest title/content is written through
+ * {@link ApiDefinitionService#applyAutosave} as one update, one snapshot and
+ * one sync broadcast.
+ * <p>
+ * All pending saves of a definition are flushed together, oldest first, and
+ * flushes of one definition take turns (the scheduler and request threads
+ * such as snapshot or restore may both flush it), so a forced flush for one
+ * user can never land after a newer edit from another.
+ * A write that fails puts that save and the newer ones behind it back in the
+ * queue (merged with anything submitted meanwhile) and retries them with
+ * exponential backoff; acknowledged edits are only dropped once the
+ * definition is gone.
+ */
+@Component
+@Slf4j
+public class ApiDefinitionAutosaver {
+
+    private final ApiDefinitionService apiDefinitionService;
+    private final ApiDefinitionRepository apiDefinitionRepository;
+    private final long debounceNanos;
+    private final long maxWindowNanos;
+    private final long maxRetryBackoffNanos;
+
+    private final Map<Key, Pending> pending = new HashMap<>();
+    // Striped by definition id; held from taking a definition's saves until they are written
+    private final ReentrantLock[] flushLocks = new ReentrantLock[64];
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public ApiDefinitionAutosaver(
+            ApiDefinitionService apiDefinitionService,
+            ApiDefinitionRepository apiDefinitionRepository,
+            @Value("${application.autosave.debounce-ms:2000}") long debounceMs,
+            @Value("${application.autosave.max-window-ms:10000}") long maxWindowMs,
+            @Value("${application.autosave.max-retry-backoff-ms:60000}") long maxRetryBackoffMs
+    ) {
+        this.apiDefinitionService = apiDefinitionService;
+        this.apiDefinitionRepository = apiDefinitionRepository;
+        this.debounceNanos = debounceMs * 1_000_000;
+        this.maxWindowNanos = maxWindowMs * 1_000_000;
+        this.maxRetryBackoffNanos = maxRetryBackoffMs * 1_000_000;
+        for (int i = 0; i < flushLocks.length; i++) {
+            flushLocks[i] = new ReentrantLock();
+        }
+    }
+
+    private record Key(Long apiId, String username) {}
+
+    private static final class Pending {
+        final User user;
+        long openedAt;
+        String title;
+        String content;
+        long updatedAt;
+        int saves;
+        // Failed writes so far; the next attempt is not before retryAt
+        int attempts;
+        long retryAt;
+
+        Pending(User user, long now) {
+            this.user = user;
+            this.openedAt = now;
+        }
+    }
+
+    public record Stats(long submitted, long flushed, long failed, long dropped, int pending) {}
+
+    /**
+     * Parks a save and returns the definition as it will look once flushed.
+     */
+    public ApiDefinition submit(ApiDefinition current, String title, String content, User user) {
+        long now = System.nanoTime();
+        synchronized (pending) {
+            Pending p = pending.computeIfAbsent(new Key(current.getId(), user.getUsername()), k -> new Pending(user, now));
+            p.title = title;
+            p.content = content;
+            p.updatedAt = now;
+            p.saves++;
+        }
+        submitted.increment();
+        return copy(current, title, content);
+    }
+
+    /**
+     * The definition with the newest pending edit applied, so reads during a
+     * window see what the editor already acknowledged.
+     */
+    public ApiDefinition overlay(ApiDefinition definition) {
+        Pending latest = null;
+        synchronized (pending) {
+            for (Map.Entry<Key, Pending> e : pending.entrySet()) {
+                if (e.getKey().apiId().equals(definition.getId()) && (latest == null || e.getValue().updatedAt > latest.updatedAt)) {
+                    latest = e.getValue();
+                }
+            }
+            if (latest == null) return definition;
+            return copy(definition, latest.title, latest.content);
+        }
+    }
+
+    public List<ApiDefinition> overlay(List<ApiDefinition> definitions) {
+        synchronized (pending) {
+            if (pending.isEmpty()) return definitions;
+        }
+        return definitions.stream().map(this::overlay).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${application.autosave.tick-ms:250}")
+    public void flushDue() {
+        long now = System.nanoTime();
+        Set<Long> due = new HashSet<>();
+        synchronized (pending) {
+            pending.forEach((key, p) -> {
+                if (p.attempts > 0 && now - p.retryAt < 0) return;
+                if (now - p.updatedAt >= debounceNanos || now - p.openedAt >= maxWindowNanos) due.add(key.apiId());
+            });
+        }
+        due.forEach(this::flush);
+    }
+
+    /**
+     * Writes every pending save of {@code apiId} now.
+     */
+    public void flush(Long apiId) {
+        ReentrantLock lock = flushLocks[Math.floorMod(apiId.hashCode(), flushLocks.length)];
+        lock.lock();
+        try {
+            write(apiId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(Long apiId) {
+        List<Map.Entry<Key, Pending>> batch = new ArrayList<>();
+        synchronized (pending) {
+            for (Iterator<Map.Entry<Key, Pending>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Key, Pending> e = it.next();
+                if (e.getKey().apiId().equals(apiId)) {
+                    batch.add(Map.entry(e.getKey(), e.getValue()));
+                    it.remove();
+                }
+            }
+        }
+        batch.sort(Comparator.comparingLong(e -> e.getValue().updatedAt));
+        for (int i = 0; i < batch.size(); i++) {
+            Pending p = batch.get(i).getValue();
+            try {
+                apiDefinitionService.applyAutosave(apiId, p.title, p.content, p.user, p.saves);
+                flushed.increment();
+            } catch (Exception ex) {
+                failed.increment();
+                if (isDeleted(apiId)) {
+                    dropped.add(batch.size() - i);
+                    log.debug("Dropping autosaved edits of deleted api {}", apiId);
+                    return;
+                }
+                log.warn("Failed to write {} autosaved edits of api {} by {}, retrying: {}",
+                        p.saves, apiId, batch.get(i).getKey().username(), ex.getMessage());
+                // Newer saves stay behind the failed one so they cannot be overwritten by its retry
+                requeue(batch.subList(i, batch.size()));
+                return;
+            }
+        }
+    }
+
+    private void requeue(List<Map.Entry<Key, Pending>> failedSaves) {
+        long now = System.nanoTime();
+        synchronized (pending) {
+            for (Map.Entry<Key, Pending> e : failedSaves) {
+                Pending old = e.getValue();
+                old.attempts++;
+                old.retryAt = now + Math.min(debounceNanos << Math.min(old.attempts, 20), maxRetryBackoffNanos);
+                pending.merge(e.getKey(), old, (newer, failedSave) -> {
+                    // Submitted while the write was failing: its text wins, the counts carry over
+                    newer.openedAt = Math.min(newer.openedAt, failedSave.openedAt);
+                    newer.saves += failedSave.saves;
+                    newer.attempts = failedSave.attempts;
+                    newer.retryAt = failedSave.retryAt;
+                    return newer;
+                });
+            }
+        }
+    }
+
+    private boolean isDeleted(Long apiId) {
+        try {
+            return !apiDefinitionRepository.existsById(apiId);
+        } catch (Exception e) {
+            return false; // database still unavailable; keep the edits
+        }
+    }
+
+    /**
+     * Forgets pending saves of a definition that is being deleted.
+     */
+    public void discard(Long apiId) {
+        synchronized (pending) {
+            pending.keySet().removeIf(key -> key.apiId().equals(apiId));
+        }
+    }
+
+    public Stats getStats() {
+        synchronized (pending) {
+            return new Stats(submitted.sum(), flushed.sum(), failed.sum(), dropped.sum(), pending.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Set<Long> ids = new HashSet<>();
+        synchronized (pending) {
+            pending.keySet().forEach(key -> ids.add(key.apiId()));
+        }
+        ids.forEach(this::flush);
+    }
+
+    private static ApiDefinition copy(ApiDefinition definition, String title, String content) {
+        return ApiDefinition.builder()
+                .id(definition.getId())
+                .title(title)
+                .version(definition.getVersion())
+                .workspace(definition.getWorkspace())
+                .content(content)
+                .updatedAt(definition.getUpdatedAt())
+                .build();
+    }
+}
@@ -5,7 +5,7 @@ import com.apicollab.platform.core.domain.ApiDefinition;
 import com.apicollab.platform.core.repository.ApiDefinitionRepository;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -19,9 +19,23 @@ import java.util.Objects;
 public class ApiDefinitionService {
 
     private final ApiDefinitionRepository apiDefinitionRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final SyncEventBroadcaster syncEventBroadcaster;
     private final ApiVersionService apiVersionService;
     private final EntityManager entityManager;
+    private final SearchService searchService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Published after a definition's content is written ({@code content} is
+     * null when it was deleted), for the live collaboration documents.
+     * {@code collabRevision} is set when the write came from the live
+     * document itself, so it can recognise its own write-back.
+     */
+    public record DefinitionChanged(Long id, String content, Integer collabRevision) {
+        public DefinitionChanged(Long id, String content) {
+            this(id, content, null);
+        }
+    }
 
     public List<ApiDefinition> getByWorkspace(Long workspaceId) {
         return apiDefinitionRepository.findByWorkspaceId(workspaceId);
@@ -34,29 +48,77 @@ public class ApiDefinitionService {
             // Detach the incoming entity so we can fetch the pristine one from the DB
             entityManager.detach(apiDefinition);
             apiDefinitionRepository.findById(apiDefinition.getId()).ifPresent(existing -> {
-                
-                String oldContent = existing.getContent();
-                String newContent = apiDefinition.getContent();
-                
-                String oldTitle = existing.getTitle();
-                String newTitle = apiDefinition.getTitle();
-
-                boolean contentChanged = !Objects.equals(oldContent, newContent);
-                boolean titleChanged = !Objects.equals(oldTitle, newTitle);
-                
-                if (contentChanged || titleChanged) {
-                    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-                    User currentUser = (authentication != null) ? (User) authentication.getPrincipal() : null;
-
-                    String desc = "Auto-save: " + (titleChanged ? "Title updated" : "Content updated");
-                    apiVersionService.createSnapshot(existing, desc, currentUser);
-                }
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                User currentUser = (authentication != null) ? (User) authentication.getPrincipal() : null;
+                snapshotIfChanged(existing, apiDefinition.getTitle(), apiDefinition.getContent(), currentUser, "");
             });
         }
 
+        return persist(apiDefinition);
+    }
+
+    /**
+     * Writes a debounced editor save from {@link ApiDefinitionAutosaver}:
+     * {@code saves} coalesced edits by {@code user} become one update and at most one snapshot.
+     * A null {@code title} keeps the current one.
+     */
+    @Transactional
+    public ApiDefinition applyAutosave(Long id, String title, String content, User user, int saves) {
+        ApiDefinition existing = apiDefinitionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("API definition not found"));
+        if (title == null) {
+            title = existing.getTitle();
+        }
+        if (!snapshotIfChanged(existing, title, content, user, saves > 1 ? " (" + saves + " edits)" : "")) {
+            return existing;
+        }
+        existing.setTitle(title);
+        existing.setContent(content);
+        return persist(existing);
+    }
+
+    /**
+     * Writes revision {@code revision} of a live collaboration document,
+     * unless the stored content is no longer {@code expectedContent}: then a
+     * save outside the channel got there first, the document folds it in
+     * (see {@link DefinitionChanged}) and writes the merged text next time.
+     * The row lock keeps such a save from landing between check and write.
+     * Returns whether the stored content now matches {@code content}.
+     */
+    @Transactional
+    public boolean applyCollaborativeSave(Long id, String expectedContent, String content, User user, int edits, int revision) {
+        ApiDefinition existing = apiDefinitionRepository.findForUpdateById(id)
+                .orElseThrow(() -> new RuntimeException("API definition not found"));
+        if (!Objects.equals(existing.getContent(), expectedContent)) {
+            return Objects.equals(existing.getContent(), content);
+        }
+        if (snapshotIfChanged(existing, existing.getTitle(), content, user, edits > 1 ? " (" + edits + " edits)" : "")) {
+            existing.setContent(content);
+            persist(existing, revision);
+        }
+        return true;
+    }
+
+    private boolean snapshotIfChanged(ApiDefinition existing, String newTitle, String newContent, User user, String suffix) {
+        boolean contentChanged = !Objects.equals(existing.getContent(), newContent);
+        boolean titleChanged = !Objects.equals(existing.getTitle(), newTitle);
+
+        if (contentChanged || titleChanged) {
+            String desc = "Auto-save: " + (titleChanged ? "Title updated" : "Content updated") + suffix;
+            apiVersionService.createSnapshot(existing, desc, user);
+        }
+        return contentChanged || titleChanged;
+    }
+
+    private ApiDefinition persist(ApiDefinition apiDefinition) {
+        return persist(apiDefinition, null);
+    }
+
+    private ApiDefinition persist(ApiDefinition apiDefinition, Integer collabRevision) {
         ApiDefinition saved = apiDefinitionRepository.save(apiDefinition);
-        messagingTemplate.convertAndSend("/topic/updates", 
-            new SyncMessage("API_DEFINITION", saved.getId(), "UPDATE"));
+        searchService.indexDefinition(saved);
+        eventPublisher.publishEvent(new DefinitionChanged(saved.getId(), saved.getContent(), collabRevision));
+        syncEventBroadcaster.toWorkspace(saved.getWorkspace().getId(), "API_DEFINITION", saved.getId(), "UPDATE");
         return saved;
     }
 
@@ -65,15 +127,19 @@ public class ApiDefinitionService {
     }
 
     public void delete(Long id) {
+        Long workspaceId = apiDefinitionRepository.findWorkspaceIdById(id).orElse(null);
         apiDefinitionRepository.deleteById(id);
-        // Optional: Broadcast delete event
-        messagingTemplate.convertAndSend("/topic/updates", 
-            new SyncMessage("API_DEFINITION", id, "DELETE"));
+        searchService.removeDefinition(id);
+        eventPublisher.publishEvent(new DefinitionChanged(id, null));
+        if (workspaceId != null) {
+            syncEventBroadcaster.toWorkspace(workspaceId, "API_DEFINITION", id, "DELETE");
+        }
     }
 
     // Inner class for simple sync message
     @lombok.Data
     @lombok.AllArgsConstructor
+    @lombok.NoArgsConstructor
     public static class SyncMessage {
         private String type;
         private Long id;
@@ -1,62 +1,254 @@
 package com.apicollab.platform.core.service;
 
 import com.apicollab.platform.auth.domain.User;
-import com.apicollab.platform.auth.repository.UserRepository;
 import com.apicollab.platform.common.SecurityUtils;
 import com.apicollab.platform.core.domain.ApiRequestHistory;
-import com.apicollab.platform.core.domain.Workspace;
 import com.apicollab.platform.core.repository.ApiRequestHistoryRepository;
-import com.apicollab.platform.core.repository.WorkspaceRepository;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class ApiRequestHistoryService {
 
     private final ApiRequestHistoryRepository historyRepository;
-    private final WorkspaceRepository workspaceRepository;
-    private final UserRepository userRepository;
+    private final ApiRequestHistoryWriter historyWriter;
+    private final HistoryBlobStore blobStore;
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    @Data
+    public static class HistoryFilter {
+        private String method;
+        private String urlPrefix;
+        private String status; // exact ("404") or class ("4xx")
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        private LocalDateTime from;
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        private LocalDateTime to;
+        private Long apiDefinitionId;
+        private boolean includeBody;
+        private String cursor;
+        private int limit = 50;
+    }
+
+    /**
+     * History row without workspace/user joins; payload fields are only
+     * filled when the caller asked for the body.
+     */
+    @Data
+    public static class HistorySummary {
+        private Long id;
+        private Long apiDefinitionId;
+        private String method;
+        private String url;
+        private String bodyType;
+        private LocalDateTime executedAt;
+        private Integer responseStatus;
+        private Double totalMs;
+        private Double ttfbMs;
+        private Long responseBytes;
+        private String headers;
+        private String queryParams;
+        private String bodyContent;
+    }
+
+    @Data
+    public static class HistoryPage {
+        private List<HistorySummary> items;
+        private String nextCursor; // null on the last page
+    }
 
     public List<ApiRequestHistory> getHistory(Long workspaceId) {
         String username = SecurityUtils.getCurrentUsername();
-        return historyRepository.findByWorkspaceIdAndUserUsernameOrderByExecutedAtDesc(workspaceId, username, PageRequest.of(0, 50));
+        List<ApiRequestHistory> rows = historyRepository.findByWorkspaceIdAndUserUsernameOrderByExecutedAtDesc(workspaceId, username, PageRequest.of(0, 50));
+        blobStore.resolve(rows);
+        return rows;
     }
 
+    /**
+     * Keyset-paginated history of the current user in a workspace, newest
+     * first. Pages are addressed by an opaque cursor over (executed_at, id),
+     * so every page is an index range scan on (workspace_id, user_id,
+     * executed_at) regardless of how deep the caller has scrolled.
+     */
+    public HistoryPage queryHistory(Long workspaceId, HistoryFilter filter) {
+        int limit = Math.max(1, Math.min(filter.getLimit(), MAX_PAGE_SIZE));
+        StringBuilder sql = new StringBuilder("SELECT h.id, h.api_definition_id, h.method, h.url, h.body_type, h.executed_at, ")
+                .append("h.response_status, h.total_ms, h.ttfb_ms, h.response_bytes");
+        if (filter.isIncludeBody()) {
+            sql.append(", h.headers_hash, h.query_params_hash, h.body_hash, h.headers, h.query_params, h.body_content");
+        }
+        sql.append(" FROM api_request_history h WHERE h.workspace_id = ? AND h.user_id = (SELECT u.id FROM users u WHERE u.username = ?)");
+        List<Object> args = new ArrayList<>(List.of(workspaceId, SecurityUtils.getCurrentUsername()));
+
+        if (filter.getMethod() != null && !filter.getMethod().isBlank()) {
+            sql.append(" AND h.method = ?");
+            args.add(filter.getMethod().toUpperCase());
+        }
+        if (filter.getUrlPrefix() != null && !filter.getUrlPrefix().isEmpty()) {
+            sql.append(" AND h.url LIKE ? ESCAPE '!'");
+            args.add(filter.getUrlPrefix().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%");
+        }
+        if (filter.getStatus() != null && !filter.getStatus().isBlank()) {
+            int[] range = statusRange(filter.getStatus().trim());
+            sql.append(" AND h.response_status BETWEEN ? AND ?");
+            args.add(range[0]);
+            args.add(range[1]);
+        }
+        if (filter.getFrom() != null) {
+            sql.append(" AND h.executed_at >= ?");
+            args.add(Timestamp.valueOf(filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND h.executed_at < ?");
+            args.add(Timestamp.valueOf(filter.getTo()));
+        }
+        if (filter.getApiDefinitionId() != null) {
+            sql.append(" AND h.api_definition_id = ?");
+            args.add(filter.getApiDefinitionId());
+        }
+        if (filter.getCursor() != null && !filter.getCursor().isEmpty()) {
+            Cursor cursor = Cursor.decode(filter.getCursor());
+            sql.append(" AND (h.executed_at < ? OR (h.executed_at = ? AND h.id < ?))");
+            Timestamp at = Timestamp.valueOf(cursor.executedAt());
+            args.add(at);
+            args.add(at);
+            args.add(cursor.id());
+        }
+        sql.append(" ORDER BY h.executed_at DESC, h.id DESC LIMIT ?");
+        args.add(limit + 1);
+
+        List<RowWithHashes> rows = jdbcTemplate.query(sql.toString(), (rs, i) -> mapSummary(rs, filter.isIncludeBody()), args.toArray());
+
+        HistoryPage page = new HistoryPage();
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            HistorySummary last = rows.get(limit - 1).summary();
+            page.setNextCursor(new Cursor(last.getExecutedAt(), last.getId()).encode());
+        }
+        if (filter.isIncludeBody()) {
+            resolvePayloads(rows);
+        }
+        page.setItems(rows.stream().map(RowWithHashes::summary).toList());
+        return page;
+    }
+
+    /**
+     * Hands the entry to the write-behind pipeline; it is persisted within the
+     * writer's flush interval. Repeats of the user's previous request are
+     * coalesced there instead of being compared against the last row here.
+     */
     public void logRequest(ApiRequestHistory req) {
-        String username = SecurityUtils.getCurrentUsername();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        Workspace ws = workspaceRepository.findById(req.getWorkspace().getId())
-                .orElseThrow(() -> new RuntimeException("Workspace not found"));
-
-        req.setUser(user);
-        req.setWorkspace(ws);
-
-        // Check last entry
-        ApiRequestHistory last = historyRepository.findFirstByWorkspaceIdAndUserUsernameOrderByExecutedAtDesc(ws.getId(), username);
-        
-        if (last != null && isSame(last, req)) {
-            last.setExecutedAt(LocalDateTime.now());
-            historyRepository.save(last);
-        } else {
-            req.setExecutedAt(LocalDateTime.now());
-            historyRepository.save(req);
-        }
-    }
-
-    private boolean isSame(ApiRequestHistory a, ApiRequestHistory b) {
-        return Objects.equals(a.getMethod(), b.getMethod()) &&
-               Objects.equals(a.getUrl(), b.getUrl()) &&
-               Objects.equals(a.getHeaders(), b.getHeaders()) &&
-               Objects.equals(a.getQueryParams(), b.getQueryParams()) &&
-               Objects.equals(a.getBodyType(), b.getBodyType()) &&
-               Objects.equals(a.getBodyContent(), b.getBodyContent());
+        if (req.getWorkspace() == null || req.getWorkspace().getId() == null) {
+            throw new RuntimeException("Workspace not found");
+        }
+        req.setId(null);
+        req.setUser(null);
+        req.setExecutedAt(LocalDateTime.now());
+        User user = SecurityUtils.getCurrentUser();
+        historyWriter.enqueue(user.getUsername(), user.getId(), req);
+    }
+
+    public ApiRequestHistoryWriter.Stats getWriterStats() {
+        return historyWriter.getStats();
+    }
+
+    public HistoryBlobStore.Stats getBlobStats() {
+        return blobStore.getStats();
+    }
+
+    public List<ApiRequestHistoryRepository.LatencyTrendPoint> getLatencyTrend(Long workspaceId, String method, String url, int days) {
+        LocalDateTime since = LocalDate.now().minusDays(Math.max(1, days) - 1L).atStartOfDay();
+        return historyRepository.findLatencyTrend(workspaceId, method.toUpperCase(), url, since);
+    }
+
+    private record RowWithHashes(HistorySummary summary, String headersHash, String queryParamsHash, String bodyHash) {}
+
+    private record Cursor(LocalDateTime executedAt, long id) {
+        String encode() {
+            String raw = executedAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int sep = raw.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid history cursor");
+            }
+        }
+    }
+
+    private static RowWithHashes mapSummary(ResultSet rs, boolean includeBody) throws SQLException {
+        HistorySummary s = new HistorySummary();
+        s.setId(rs.getLong("id"));
+        s.setApiDefinitionId(rs.getObject("api_definition_id", Long.class));
+        s.setMethod(rs.getString("method"));
+        s.setUrl(rs.getString("url"));
+        s.setBodyType(rs.getString("body_type"));
+        Timestamp executedAt = rs.getTimestamp("executed_at");
+        s.setExecutedAt(executedAt != null ? executedAt.toLocalDateTime() : null);
+        s.setResponseStatus(rs.getObject("response_status", Integer.class));
+        s.setTotalMs(rs.getObject("total_ms", Double.class));
+        s.setTtfbMs(rs.getObject("ttfb_ms", Double.class));
+        s.setResponseBytes(rs.getObject("response_bytes", Long.class));
+        if (!includeBody) {
+            return new RowWithHashes(s, null, null, null);
+        }
+        // Rows not yet moved to blob storage still carry their payload inline
+        s.setHeaders(rs.getString("headers"));
+        s.setQueryParams(rs.getString("query_params"));
+        s.setBodyContent(rs.getString("body_content"));
+        return new RowWithHashes(s, rs.getString("headers_hash"), rs.getString("query_params_hash"), rs.getString("body_hash"));
+    }
+
+    private void resolvePayloads(List<RowWithHashes> rows) {
+        Set<String> hashes = new HashSet<>();
+        for (RowWithHashes row : rows) {
+            if (row.headersHash() != null) hashes.add(row.headersHash());
+            if (row.queryParamsHash() != null) hashes.add(row.queryParamsHash());
+            if (row.bodyHash() != null) hashes.add(row.bodyHash());
+        }
+        Map<String, String> contents = blobStore.load(hashes);
+        for (RowWithHashes row : rows) {
+            HistorySummary s = row.summary();
+            if (row.headersHash() != null) s.setHeaders(contents.get(row.headersHash()));
+            if (row.queryParamsHash() != null) s.setQueryParams(contents.get(row.queryParamsHash()));
+            if (row.bodyHash() != null) s.setBodyContent(contents.get(row.bodyHash()));
+        }
+    }
+
+    private static int[] statusRange(String status) {
+        try {
+            if (status.length() == 3 && status.toLowerCase().endsWith("xx")) {
+                int hundreds = Integer.parseInt(status.substring(0, 1)) * 100;
+                return new int[] {hundreds, hundreds + 99};
+            }
+            int exact = Integer.parseInt(status);
+            return new int[] {exact, exact};
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid status filter: " + status);
+        }
     }
 }
@@ -0,0 +1,443 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.auth.domain.User;
+import com.apicollab.platform.auth.repository.UserRepository;
+import com.apicollab.platform.core.domain.ApiRequestHistory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind pipeline for request history. Callers enqueue and return; a
+ * single writer thread flushes in JDBC batches, retaining payload blobs in
+ * {@link HistoryBlobStore} in the same transaction.
+ * <p>
+ * Re-sending the same request only bumps the timestamp of the previous entry
+ * (what the old last-row check did): duplicates still waiting in the queue are
+ * folded into the pending event, and duplicates of the last flushed row become
+ * an UPDATE by id. Only the row id and a hash of the request are kept for
+ * that, in an LRU of {@code max-tracked-users} entries, like the user id
+ * cache. Under overload events are sampled once the queue passes the sampling
+ * threshold and dropped when it is full.
+ */
+@Component
+@Slf4j
+public class ApiRequestHistoryWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO api_request_history " +
+            "(workspace_id, user_id, api_definition_id, method, url, headers_hash, query_params_hash, body_type, body_hash, " +
+            "executed_at, response_status, total_ms, dns_ms, connect_ms, tls_ms, ttfb_ms, download_ms, response_bytes) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String TOUCH_SQL = "UPDATE api_request_history SET executed_at = ?, response_status = ?, " +
+            "total_ms = ?, dns_ms = ?, connect_ms = ?, tls_ms = ?, ttfb_ms = ?, download_ms = ?, response_bytes = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final HistoryBlobStore blobStore;
+    private final SearchService searchService;
+
+    private final BlockingQueue<Event> queue;
+    private final Map<Key, Event> pendingTail = new ConcurrentHashMap<>();
+    private final Map<Key, Written> lastWritten;
+    private final Map<String, Long> userIds;
+
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int samplingThreshold;
+    private final int sampleEvery;
+    private final long shutdownTimeoutMs;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder touched = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicLong overloadCounter = new AtomicLong();
+
+    private volatile boolean accepting = true;
+    private Thread writer;
+
+    public ApiRequestHistoryWriter(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            UserRepository userRepository,
+            HistoryBlobStore blobStore,
+            SearchService searchService,
+            @Value("${application.history.write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${application.history.write-behind.batch-size:200}") int batchSize,
+            @Value("${application.history.write-behind.flush-interval-ms:500}") long flushIntervalMs,
+            @Value("${application.history.write-behind.sampling-threshold:0.8}") double samplingThreshold,
+            @Value("${application.history.write-behind.sample-every:10}") int sampleEvery,
+            @Value("${application.history.write-behind.max-tracked-users:10000}") int maxTrackedUsers,
+            @Value("${application.history.write-behind.shutdown-timeout-ms:10000}") long shutdownTimeoutMs
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.userRepository = userRepository;
+        this.blobStore = blobStore;
+        this.searchService = searchService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.samplingThreshold = (int) (queueCapacity * samplingThreshold);
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.lastWritten = lru(maxTrackedUsers);
+        this.userIds = lru(maxTrackedUsers);
+    }
+
+    private static <K, V> Map<K, V> lru(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    private record Key(Long workspaceId, String username) {}
+
+    // Newest row of a user: its id and the signature of the request it recorded
+    private record Written(long id, String signature) {}
+
+    public record Stats(long enqueued, long coalesced, long sampledOut, long dropped,
+                        long inserted, long touched, long failed, int queued) {}
+
+    private static final class Event {
+        final Key key;
+        final ApiRequestHistory data;
+        Long userId;
+        boolean taken;
+        // Merged into an earlier event of the same batch, which carries its data
+        boolean folded;
+        private String signature;
+
+        Event(Key key, Long userId, ApiRequestHistory data) {
+            this.key = key;
+            this.userId = userId;
+            this.data = data;
+        }
+
+        String signature() {
+            if (signature == null) {
+                signature = HistoryBlobStore.hashOf(String.join(":",
+                        String.valueOf(data.getApiDefinition() != null ? data.getApiDefinition().getId() : null),
+                        String.valueOf(HistoryBlobStore.hashOf(data.getMethod())),
+                        String.valueOf(HistoryBlobStore.hashOf(data.getUrl())),
+                        String.valueOf(HistoryBlobStore.hashOf(data.getHeaders())),
+                        String.valueOf(HistoryBlobStore.hashOf(data.getQueryParams())),
+                        String.valueOf(HistoryBlobStore.hashOf(data.getBodyType())),
+                        String.valueOf(HistoryBlobStore.hashOf(data.getBodyContent()))));
+            }
+            return signature;
+        }
+
+        boolean sameRequest(ApiRequestHistory other) {
+            return Objects.equals(data.getApiDefinition() != null ? data.getApiDefinition().getId() : null,
+                            other.getApiDefinition() != null ? other.getApiDefinition().getId() : null) &&
+                   Objects.equals(data.getMethod(), other.getMethod()) &&
+                   Objects.equals(data.getUrl(), other.getUrl()) &&
+                   Objects.equals(data.getHeaders(), other.getHeaders()) &&
+                   Objects.equals(data.getQueryParams(), other.getQueryParams()) &&
+                   Objects.equals(data.getBodyType(), other.getBodyType()) &&
+                   Objects.equals(data.getBodyContent(), other.getBodyContent());
+        }
+
+        void touch(ApiRequestHistory newer) {
+            data.setExecutedAt(newer.getExecutedAt());
+            data.setResponseStatus(newer.getResponseStatus());
+            data.setTotalMs(newer.getTotalMs());
+            data.setDnsMs(newer.getDnsMs());
+            data.setConnectMs(newer.getConnectMs());
+            data.setTlsMs(newer.getTlsMs());
+            data.setTtfbMs(newer.getTtfbMs());
+            data.setDownloadMs(newer.getDownloadMs());
+            data.setResponseBytes(newer.getResponseBytes());
+        }
+    }
+
+    @PostConstruct
+    void startWriter() {
+        writer = Thread.ofPlatform().name("history-writer").daemon(true).start(this::runWriter);
+    }
+
+    /**
+     * Accepts a history entry for {@code username}. The entry must carry its
+     * workspace id and executedAt; the user is resolved on the writer thread.
+     */
+    public void enqueue(String username, ApiRequestHistory history) {
+        enqueue(username, null, history);
+    }
+
+    /**
+     * As {@link #enqueue(String, ApiRequestHistory)}, for callers that already
+     * know the user's id (the request principal), so the writer need not look it up.
+     */
+    public void enqueue(String username, Long userId, ApiRequestHistory history) {
+        if (userId != null) {
+            userIds.put(username, userId);
+        }
+        if (!accepting) {
+            dropped.increment();
+            return;
+        }
+        Key key = new Key(history.getWorkspace().getId(), username);
+        Event candidate = new Event(key, userId, history);
+        boolean[] folded = {false};
+
+        pendingTail.compute(key, (k, tail) -> {
+            if (tail != null) {
+                synchronized (tail) {
+                    if (!tail.taken && tail.sameRequest(history)) {
+                        tail.touch(history);
+                        folded[0] = true;
+                        return tail;
+                    }
+                }
+            }
+            return offer(candidate) ? candidate : tail;
+        });
+        if (folded[0]) coalesced.increment();
+    }
+
+    public Stats getStats() {
+        return new Stats(enqueued.sum(), coalesced.sum(), sampledOut.sum(), dropped.sum(),
+                inserted.sum(), touched.sum(), failed.sum(), queue.size());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        accepting = false;
+        writer.interrupt();
+        writer.join(shutdownTimeoutMs);
+        if (writer.isAlive()) {
+            log.warn("History writer did not drain within {} ms, {} entries lost", shutdownTimeoutMs, queue.size());
+        }
+    }
+
+    private boolean offer(Event event) {
+        if (queue.size() >= samplingThreshold && overloadCounter.incrementAndGet() % sampleEvery != 0) {
+            sampledOut.increment();
+            return false;
+        }
+        if (!queue.offer(event)) {
+            dropped.increment();
+            return false;
+        }
+        enqueued.increment();
+        return true;
+    }
+
+    private void runWriter() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        boolean running = true;
+        while (running || !queue.isEmpty()) {
+            try {
+                Event first = running ? queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                running = false; // shutdown: drain what is left without waiting
+                continue;
+            }
+            try {
+                flush(batch);
+            } catch (Exception e) {
+                // One bad row (e.g. a deleted workspace) must not cost the whole batch
+                log.warn("History batch of {} failed, retrying row by row: {}", batch.size(), e.getMessage());
+                for (Event event : batch) {
+                    if (event.folded) continue; // written with the event it was merged into
+                    try {
+                        flush(List.of(event));
+                    } catch (Exception rowFailure) {
+                        log.error("Failed to write history entry for {}", event.key, rowFailure);
+                        failed.increment();
+                    }
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Event> batch) {
+        List<Event> inserts = new ArrayList<>(batch.size());
+        // Row id -> newest re-send of it; a row re-sent twice in one batch is updated once
+        Map<Long, Event> touches = new LinkedHashMap<>();
+        // Latest entry per user as of this point in the batch: a Written row or an Event about to be inserted
+        Map<Key, Object> latest = new HashMap<>();
+
+        for (Event event : batch) {
+            synchronized (event) {
+                event.taken = true;
+            }
+            pendingTail.remove(event.key, event);
+
+            Object previous = latest.containsKey(event.key) ? latest.get(event.key) : lastWritten.get(event.key);
+            if (previous instanceof Written w && w.signature().equals(event.signature())) {
+                touches.put(w.id(), event);
+                coalesced.increment();
+            } else if (previous instanceof Event e && e.sameRequest(event.data)) {
+                e.touch(event.data);
+                event.folded = true;
+                coalesced.increment();
+            } else {
+                if (event.userId == null) {
+                    event.userId = resolveUserId(event.key.username());
+                }
+                if (event.userId != null) {
+                    inserts.add(event);
+                    latest.put(event.key, event);
+                }
+            }
+        }
+
+        // Re-sends whose row is gone (e.g. removed by retention) go first: later inserts of the same user are newer
+        List<Event> rows = new ArrayList<>(inserts.size());
+        List<Written> written = transactionTemplate.execute(status -> {
+            rows.clear();
+            if (!touches.isEmpty()) {
+                List<Map.Entry<Long, Event>> updates = new ArrayList<>(touches.entrySet());
+                int[][] counts = jdbcTemplate.batchUpdate(TOUCH_SQL, updates, updates.size(), (ps, row) -> {
+                    ApiRequestHistory h = row.getValue().data;
+                    ps.setTimestamp(1, Timestamp.valueOf(h.getExecutedAt()));
+                    setTiming(ps, 2, h);
+                    ps.setLong(10, row.getKey());
+                });
+                int i = 0;
+                for (int[] chunk : counts) {
+                    for (int count : chunk) {
+                        Event event = updates.get(i++).getValue();
+                        if (count != 0) continue; // SUCCESS_NO_INFO counts as updated
+                        coalesced.decrement();
+                        if (event.userId == null) {
+                            event.userId = resolveUserId(event.key.username());
+                        }
+                        if (event.userId != null) rows.add(event);
+                    }
+                }
+                touched.add(updates.size() - rows.size());
+            }
+            rows.addAll(inserts);
+            return rows.isEmpty() ? List.<Written>of() : insert(rows);
+        });
+
+        // Remember the newest row per user so a re-send becomes an UPDATE; forgotten if the driver returns no keys
+        for (int i = 0; i < rows.size(); i++) {
+            Event event = rows.get(i);
+            Written w = written != null && written.size() == rows.size() ? written.get(i) : null;
+            if (w != null) {
+                lastWritten.put(event.key, w);
+                searchService.indexHistory(w.id(), event.key.username(), event.data);
+            } else {
+                lastWritten.remove(event.key);
+            }
+        }
+    }
+
+    private List<Written> insert(List<Event> inserts) {
+        Map<String, String> contentByHash = new HashMap<>();
+        Map<String, Integer> references = new HashMap<>();
+        for (Event e : inserts) {
+            ApiRequestHistory h = e.data;
+            h.setHeadersHash(HistoryBlobStore.reference(h.getHeaders(), contentByHash, references));
+            h.setQueryParamsHash(HistoryBlobStore.reference(h.getQueryParams(), contentByHash, references));
+            h.setBodyHash(HistoryBlobStore.reference(h.getBodyContent(), contentByHash, references));
+        }
+        blobStore.retain(contentByHash, references);
+
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Event e = inserts.get(i);
+                        ApiRequestHistory h = e.data;
+                        ps.setLong(1, e.key.workspaceId());
+                        ps.setLong(2, e.userId);
+                        if (h.getApiDefinition() != null && h.getApiDefinition().getId() != null) {
+                            ps.setLong(3, h.getApiDefinition().getId());
+                        } else {
+                            ps.setNull(3, Types.BIGINT);
+                        }
+                        ps.setString(4, h.getMethod());
+                        ps.setString(5, h.getUrl());
+                        ps.setString(6, h.getHeadersHash());
+                        ps.setString(7, h.getQueryParamsHash());
+                        ps.setString(8, h.getBodyType());
+                        ps.setString(9, h.getBodyHash());
+                        ps.setTimestamp(10, Timestamp.valueOf(e.data.getExecutedAt()));
+                        setTiming(ps, 11, h);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return inserts.size();
+                    }
+                },
+                keys);
+        inserted.add(inserts.size());
+
+        List<Map<String, Object>> keyList = keys.getKeyList();
+        List<Written> written = new ArrayList<>(inserts.size());
+        for (int i = 0; i < inserts.size(); i++) {
+            Object id = keyList.size() == inserts.size() ? keyList.get(i).values().stream().findFirst().orElse(null) : null;
+            written.add(id instanceof Number n ? new Written(n.longValue(), inserts.get(i).signature()) : null);
+        }
+        return written;
+    }
+
+    private static void setTiming(PreparedStatement ps, int from, ApiRequestHistory h) throws SQLException {
+        ps.setObject(from, h.getResponseStatus(), Types.INTEGER);
+        ps.setObject(from + 1, h.getTotalMs(), Types.DOUBLE);
+        ps.setObject(from + 2, h.getDnsMs(), Types.DOUBLE);
+        ps.setObject(from + 3, h.getConnectMs(), Types.DOUBLE);
+        ps.setObject(from + 4, h.getTlsMs(), Types.DOUBLE);
+        ps.setObject(from + 5, h.getTtfbMs(), Types.DOUBLE);
+        ps.setObject(from + 6, h.getDownloadMs(), Types.DOUBLE);
+        ps.setObject(from + 7, h.getResponseBytes(), Types.BIGINT);
+    }
+
+    private Long resolveUserId(String username) {
+        Long id = userIds.get(username);
+        if (id != null) return id;
+        id = userRepository.findByUsername(username).map(User::getId).orElse(null);
+        if (id == null) {
+            log.warn("Dropping history entry for unknown user {}", username);
+            failed.increment();
+            return null;
+        }
+        userIds.put(username, id);
+        return id;
+    }
+}
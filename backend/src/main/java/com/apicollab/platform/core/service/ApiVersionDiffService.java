@@ -0,0 +1,374 @@
+package com.apicollab.platform.core.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * OpenAPI-aware diff between two stored versions: paths and operations
+ * added/removed/changed, parameter, request body and response changes per
+ * operation, schema changes under {@code components.schemas}, and generic
+ * JSON changes for everything else. The result is written straight to the
+ * response as it is computed; versions never change, so rendered diffs are
+ * kept in a byte-bounded LRU keyed by version pair.
+ */
+@Service
+public class ApiVersionDiffService {
+
+    private static final List<String> METHODS = List.of("get", "put", "post", "delete", "options", "head", "patch", "trace");
+    private static final Set<String> OPERATION_PARTS = Set.of("parameters", "requestBody", "responses");
+
+    private final ApiVersionService apiVersionService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int maxChanges;
+    private final long maxCacheBytes;
+    private final int maxEntryBytes;
+
+    private final Map<Pair, byte[]> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    public ApiVersionDiffService(
+            ApiVersionService apiVersionService,
+            @Value("${application.versions.diff.max-changes-per-item:200}") int maxChanges,
+            @Value("${application.versions.diff.cache-bytes:33554432}") long maxCacheBytes,
+            @Value("${application.versions.diff.max-cached-diff-bytes:2097152}") int maxEntryBytes
+    ) {
+        this.apiVersionService = apiVersionService;
+        this.maxChanges = maxChanges;
+        this.maxCacheBytes = maxCacheBytes;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    private record Pair(long from, long to) {}
+
+    private static final class Counts {
+        int pathsAdded, pathsRemoved, pathsChanged;
+        int operationsAdded, operationsRemoved, operationsChanged;
+        int schemasAdded, schemasRemoved, schemasChanged;
+    }
+
+    @FunctionalInterface
+    private interface EntryWriter {
+        void write(String key, JsonNode from, JsonNode to) throws IOException;
+    }
+
+    /**
+     * Loads both versions up front (so a missing version fails the request
+     * normally) and returns a body that renders or replays the diff.
+     */
+    public StreamingResponseBody diff(Long fromId, Long toId) {
+        Pair pair = new Pair(fromId, toId);
+        byte[] cached;
+        synchronized (cache) {
+            cached = cache.get(pair);
+        }
+        if (cached != null) {
+            return out -> out.write(cached);
+        }
+
+        JsonNode from = parse(apiVersionService.getContent(fromId));
+        JsonNode to = parse(apiVersionService.getContent(toId));
+        return out -> {
+            CapturingOutputStream capture = new CapturingOutputStream(out, maxEntryBytes);
+            try (JsonGenerator g = objectMapper.getFactory().createGenerator(capture, JsonEncoding.UTF8)) {
+                write(fromId, toId, from, to, g);
+            }
+            byte[] rendered = capture.captured();
+            if (rendered != null) {
+                remember(pair, rendered);
+            }
+        };
+    }
+
+    private void write(long fromId, long toId, JsonNode from, JsonNode to, JsonGenerator g) throws IOException {
+        Counts counts = new Counts();
+        g.writeStartObject();
+        g.writeNumberField("from", fromId);
+        g.writeNumberField("to", toId);
+
+        g.writeArrayFieldStart("paths");
+        forEachDifference(from.path("paths"), to.path("paths"), (path, a, b) -> {
+            g.writeStartObject();
+            g.writeStringField("path", path);
+            g.writeStringField("change", change(a, b));
+            if (a == null) counts.pathsAdded++;
+            else if (b == null) counts.pathsRemoved++;
+            else {
+                counts.pathsChanged++;
+                writePathItem(a, b, g, counts);
+            }
+            g.writeEndObject();
+        });
+        g.writeEndArray();
+
+        g.writeArrayFieldStart("schemas");
+        forEachDifference(from.path("components").path("schemas"), to.path("components").path("schemas"), (name, a, b) -> {
+            g.writeStartObject();
+            g.writeStringField("name", name);
+            g.writeStringField("change", change(a, b));
+            if (a == null) counts.schemasAdded++;
+            else if (b == null) counts.schemasRemoved++;
+            else {
+                counts.schemasChanged++;
+                writeChanges("changes", a, b, Set.of(), g);
+            }
+            g.writeEndObject();
+        });
+        g.writeEndArray();
+
+        // Everything outside paths and component schemas: info, servers, security, other components...
+        writeChanges("other", withoutPathsAndSchemas(from), withoutPathsAndSchemas(to), Set.of(), g);
+
+        g.writeObjectFieldStart("summary");
+        g.writeNumberField("pathsAdded", counts.pathsAdded);
+        g.writeNumberField("pathsRemoved", counts.pathsRemoved);
+        g.writeNumberField("pathsChanged", counts.pathsChanged);
+        g.writeNumberField("operationsAdded", counts.operationsAdded);
+        g.writeNumberField("operationsRemoved", counts.operationsRemoved);
+        g.writeNumberField("operationsChanged", counts.operationsChanged);
+        g.writeNumberField("schemasAdded", counts.schemasAdded);
+        g.writeNumberField("schemasRemoved", counts.schemasRemoved);
+        g.writeNumberField("schemasChanged", counts.schemasChanged);
+        g.writeEndObject();
+        g.writeEndObject();
+    }
+
+    private void writePathItem(JsonNode from, JsonNode to, JsonGenerator g, Counts counts) throws IOException {
+        g.writeArrayFieldStart("operations");
+        for (String method : METHODS) {
+            JsonNode a = from.get(method);
+            JsonNode b = to.get(method);
+            if (a == null && b == null || a != null && a.equals(b)) continue;
+            g.writeStartObject();
+            g.writeStringField("method", method.toUpperCase());
+            g.writeStringField("change", change(a, b));
+            if (a == null) counts.operationsAdded++;
+            else if (b == null) counts.operationsRemoved++;
+            else {
+                counts.operationsChanged++;
+                writeOperation(a, b, g);
+            }
+            g.writeEndObject();
+        }
+        g.writeEndArray();
+        writeChanges("changes", from, to, Set.copyOf(METHODS), g);
+    }
+
+    private void writeOperation(JsonNode from, JsonNode to, JsonGenerator g) throws IOException {
+        g.writeArrayFieldStart("parameters");
+        forEachDifference(byParameterKey(from.path("parameters")), byParameterKey(to.path("parameters")), (key, a, b) -> {
+            JsonNode either = b != null ? b : a;
+            g.writeStartObject();
+            if (either.has("$ref")) {
+                g.writeStringField("ref", either.get("$ref").asText());
+            } else {
+                g.writeStringField("name", either.path("name").asText());
+                g.writeStringField("in", either.path("in").asText());
+            }
+            g.writeStringField("change", change(a, b));
+            if (a != null && b != null) writeChanges("changes", a, b, Set.of(), g);
+            g.writeEndObject();
+        });
+        g.writeEndArray();
+
+        JsonNode fromBody = from.get("requestBody");
+        JsonNode toBody = to.get("requestBody");
+        if (!(fromBody == null ? toBody == null : fromBody.equals(toBody))) {
+            g.writeObjectFieldStart("requestBody");
+            g.writeStringField("change", change(fromBody, toBody));
+            if (fromBody != null && toBody != null) writeChanges("changes", fromBody, toBody, Set.of(), g);
+            g.writeEndObject();
+        }
+
+        g.writeArrayFieldStart("responses");
+        forEachDifference(from.path("responses"), to.path("responses"), (status, a, b) -> {
+            g.writeStartObject();
+            g.writeStringField("status", status);
+            g.writeStringField("change", change(a, b));
+            if (a != null && b != null) writeChanges("changes", a, b, Set.of(), g);
+            g.writeEndObject();
+        });
+        g.writeEndArray();
+
+        writeChanges("changes", from, to, OPERATION_PARTS, g);
+    }
+
+    /**
+     * Writes {@code field} as a list of leaf-level changes between two nodes,
+     * as JSON Pointers relative to them; scalar values are included, larger
+     * values only by path. Stops after {@code max-changes-per-item}.
+     */
+    private void writeChanges(String field, JsonNode from, JsonNode to, Set<String> skipKeys, JsonGenerator g) throws IOException {
+        g.writeArrayFieldStart(field);
+        int[] budget = {maxChanges};
+        if (from instanceof ObjectNode a && to instanceof ObjectNode b) {
+            forEachDifference(a, b, (key, x, y) -> {
+                if (!skipKeys.contains(key)) changes(x, y, "/" + escape(key), g, budget);
+            });
+        } else {
+            changes(from, to, "", g, budget);
+        }
+        if (budget[0] < 0) {
+            g.writeStartObject();
+            g.writeStringField("op", "truncated");
+            g.writeEndObject();
+        }
+        g.writeEndArray();
+    }
+
+    private void changes(JsonNode from, JsonNode to, String pointer, JsonGenerator g, int[] budget) throws IOException {
+        if (budget[0] < 0) return;
+        if (from instanceof ObjectNode a && to instanceof ObjectNode b) {
+            forEachDifference(a, b, (key, x, y) -> changes(x, y, pointer + "/" + escape(key), g, budget));
+            return;
+        }
+        if (from != null && to != null && from.isArray() && to.isArray() && from.size() == to.size()) {
+            for (int i = 0; i < from.size(); i++) {
+                if (!from.get(i).equals(to.get(i))) changes(from.get(i), to.get(i), pointer + "/" + i, g, budget);
+            }
+            return;
+        }
+        if (--budget[0] < 0) return;
+        g.writeStartObject();
+        g.writeStringField("op", from == null ? "add" : to == null ? "remove" : "replace");
+        g.writeStringField("path", pointer);
+        if (from != null && from.isValueNode()) g.writeObjectField("from", from);
+        if (to != null && to.isValueNode()) g.writeObjectField("to", to);
+        g.writeEndObject();
+    }
+
+    /**
+     * Calls {@code writer} for every key whose value differs between two
+     * objects: keys of {@code to} in order (added or changed), then keys only
+     * in {@code from} (removed). Non-objects count as empty.
+     */
+    private static void forEachDifference(JsonNode from, JsonNode to, EntryWriter writer) throws IOException {
+        for (Iterator<Map.Entry<String, JsonNode>> it = to.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> e = it.next();
+            JsonNode previous = from.isObject() ? from.get(e.getKey()) : null;
+            if (previous == null || !previous.equals(e.getValue())) {
+                writer.write(e.getKey(), previous, e.getValue());
+            }
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = from.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> e = it.next();
+            if (!to.isObject() || !to.has(e.getKey())) {
+                writer.write(e.getKey(), e.getValue(), null);
+            }
+        }
+    }
+
+    /**
+     * Parameters are identified by location and name (or by $ref), not by position.
+     */
+    private ObjectNode byParameterKey(JsonNode parameters) {
+        ObjectNode keyed = objectMapper.createObjectNode();
+        for (JsonNode parameter : parameters) {
+            String key = parameter.has("$ref")
+                    ? parameter.get("$ref").asText()
+                    : parameter.path("in").asText() + ":" + parameter.path("name").asText();
+            keyed.set(key, parameter);
+        }
+        return keyed;
+    }
+
+    private JsonNode withoutPathsAndSchemas(JsonNode spec) {
+        if (!(spec instanceof ObjectNode object)) return spec;
+        ObjectNode rest = objectMapper.createObjectNode();
+        rest.setAll(object);
+        rest.remove("paths");
+        if (object.get("components") instanceof ObjectNode components) {
+            ObjectNode otherComponents = objectMapper.createObjectNode();
+            otherComponents.setAll(components);
+            otherComponents.remove("schemas");
+            rest.set("components", otherComponents);
+        }
+        return rest;
+    }
+
+    private JsonNode parse(String content) {
+        if (content == null || content.isBlank()) return MissingNode.getInstance();
+        try {
+            return objectMapper.readTree(content);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Version content is not valid JSON");
+        }
+    }
+
+    private void remember(Pair pair, byte[] rendered) {
+        synchronized (cache) {
+            byte[] previous = cache.put(pair, rendered);
+            cachedBytes += rendered.length - (previous != null ? previous.length : 0);
+            for (Iterator<byte[]> it = cache.values().iterator(); cachedBytes > maxCacheBytes && it.hasNext(); ) {
+                cachedBytes -= it.next().length;
+                it.remove();
+            }
+        }
+    }
+
+    private static String change(JsonNode from, JsonNode to) {
+        return from == null ? "ADDED" : to == null ? "REMOVED" : "CHANGED";
+    }
+
+    private static String escape(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+
+    /**
+     * Passes bytes through to the response while keeping a copy for the
+     * cache, until the copy would exceed {@code limit}.
+     */
+    private static final class CapturingOutputStream extends OutputStream {
+        private final OutputStream target;
+        private final int limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CapturingOutputStream(OutputStream target, int limit) {
+            this.target = target;
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+            if (copy != null) {
+                copy.write(b);
+                if (copy.size() > limit) copy = null;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+            if (copy != null) {
+                copy.write(b, off, len);
+                if (copy.size() > limit) copy = null;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        byte[] captured() {
+            return copy != null ? copy.toByteArray() : null;
+        }
+    }
+}
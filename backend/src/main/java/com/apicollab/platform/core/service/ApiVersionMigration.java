@@ -0,0 +1,97 @@
+package com.apicollab.platform.core.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Re-encodes version rows written before delta storage (no encoding set) into
+ * keyframe/delta chains, one definition at a time on a background thread
+ * after startup. A row is only turned into a delta if it is not the newest
+ * version of its definition and nothing already builds on it, so new
+ * snapshots taken meanwhile never lose their base.
+ */
+@Component
+@Slf4j
+public class ApiVersionMigration {
+
+    private static final String DEFINITIONS_SQL = "SELECT DISTINCT api_definition_id FROM api_versions WHERE encoding IS NULL";
+
+    private static final String LEGACY_SQL = "SELECT id FROM api_versions WHERE api_definition_id = ? AND encoding IS NULL ORDER BY id";
+
+    private static final String REFERENCED_SQL = "SELECT DISTINCT base_version_id FROM api_versions WHERE api_definition_id = ? " +
+            "AND base_version_id IS NOT NULL UNION SELECT DISTINCT keyframe_id FROM api_versions WHERE api_definition_id = ? " +
+            "AND keyframe_id IS NOT NULL";
+
+    private static final String KEYFRAME_SQL = "UPDATE api_versions SET encoding = 'FULL' WHERE id = ? AND encoding IS NULL";
+
+    private static final String DELTA_SQL = "UPDATE api_versions SET encoding = 'DELTA', format = ?, base_version_id = ?, " +
+            "keyframe_id = ?, delta = ?, content = NULL WHERE id = ? AND encoding IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApiVersionService apiVersionService;
+    private final boolean enabled;
+
+    public ApiVersionMigration(
+            JdbcTemplate jdbcTemplate,
+            ApiVersionService apiVersionService,
+            @Value("${application.versions.migration.enabled:true}") boolean enabled
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.apiVersionService = apiVersionService;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            Thread.ofVirtual().name("api-version-migration").start(this::migrate);
+        }
+    }
+
+    void migrate() {
+        long converted = 0;
+        try {
+            for (Long apiId : jdbcTemplate.queryForList(DEFINITIONS_SQL, Long.class)) {
+                converted += migrate(apiId);
+            }
+            if (converted > 0) {
+                log.info("Re-encoded {} API versions as deltas", converted);
+            }
+        } catch (Exception e) {
+            log.error("API version migration stopped after {} rows; it resumes on next startup", converted, e);
+        }
+    }
+
+    private int migrate(long apiId) {
+        List<Long> ids = jdbcTemplate.queryForList(LEGACY_SQL, Long.class, apiId);
+        Long latest = jdbcTemplate.queryForObject("SELECT MAX(id) FROM api_versions WHERE api_definition_id = ?", Long.class, apiId);
+        Set<Long> referenced = new HashSet<>(jdbcTemplate.queryForList(REFERENCED_SQL, Long.class, apiId, apiId));
+
+        int converted = 0;
+        ApiVersionService.Head head = null;
+        for (Long id : ids) {
+            String content = jdbcTemplate.queryForObject("SELECT content FROM api_versions WHERE id = ?", String.class, id);
+            boolean pinned = id.equals(latest) || referenced.contains(id);
+            ApiVersionService.Delta delta = !pinned && head != null && content != null ? apiVersionService.encode(head, content) : null;
+
+            if (delta != null) {
+                jdbcTemplate.update(DELTA_SQL, delta.format().name(), head.versionId(), head.keyframeId(), delta.patch(), id);
+                head = new ApiVersionService.Head(id, head.keyframeId(), head.chainLength() + 1,
+                        head.chainBytes() + delta.patch().length(), content);
+                converted++;
+            } else {
+                jdbcTemplate.update(KEYFRAME_SQL, id);
+                head = new ApiVersionService.Head(id, id, 0, 0, content);
+            }
+        }
+        return converted;
+    }
+}
@@ -1,47 +1,297 @@
 package com.apicollab.platform.core.service;
 
 import com.apicollab.platform.auth.domain.User;
+import com.apicollab.platform.common.JsonPatch;
 import com.apicollab.platform.core.domain.ApiDefinition;
 import com.apicollab.platform.core.domain.ApiVersion;
 import com.apicollab.platform.core.repository.ApiDefinitionRepository;
 import com.apicollab.platform.core.repository.ApiVersionRepository;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Version snapshots of API definitions, stored as chains: a FULL keyframe
+ * followed by DELTA rows that each hold a {@link JsonPatch} against the
+ * previous version. A new keyframe starts after {@code keyframe-interval}
+ * deltas, once the chain's deltas outweigh a full copy, or whenever the
+ * content is not JSON that the patch reproduces byte for byte.
+ * <p>
+ * Reading a version loads its keyframe and at most one chain of deltas; the
+ * newest version of recently edited definitions is kept in memory so the next
+ * snapshot can be diffed without touching the database.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class ApiVersionService {
 
+    private static final String LATEST_SQL = "SELECT id FROM api_versions WHERE api_definition_id = ? ORDER BY id DESC LIMIT 1";
+    private static final String CHAIN_SQL = "SELECT id, base_version_id, delta FROM api_versions WHERE keyframe_id = ? AND id <= ?";
+
     private final ApiVersionRepository apiVersionRepository;
     private final ApiDefinitionRepository apiDefinitionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectWriter indentedWriter = objectMapper.writer(new IndentedPrinter());
+
+    private final int keyframeInterval;
+    private final double maxChainRatio;
+
+    // Newest version per definition, so consecutive snapshots diff in memory
+    private final Map<Long, Head> heads;
+
+    public ApiVersionService(
+            ApiVersionRepository apiVersionRepository,
+            ApiDefinitionRepository apiDefinitionRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${application.versions.keyframe-interval:20}") int keyframeInterval,
+            @Value("${application.versions.max-chain-ratio:0.5}") double maxChainRatio,
+            @Value("${application.versions.head-cache-size:64}") int headCacheSize
+    ) {
+        this.apiVersionRepository = apiVersionRepository;
+        this.apiDefinitionRepository = apiDefinitionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.maxChainRatio = maxChainRatio;
+        this.heads = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Head> eldest) {
+                return size() > headCacheSize;
+            }
+        });
+    }
+
+    @Data
+    public static class VersionInfo {
+        private Long id;
+        private String description;
+        private LocalDateTime createdAt;
+        private Author createdBy;
+    }
+
+    @Data
+    public static class Author {
+        private Long id;
+        private String username;
+    }
+
+    /**
+     * A materialized version and where it sits in its chain.
+     */
+    record Head(long versionId, long keyframeId, int chainLength, long chainBytes, String content) {}
 
-    public List<ApiVersion> getHistory(Long apiId) {
-        return apiVersionRepository.findByApiDefinitionIdOrderByCreatedAtDesc(apiId);
+    record Delta(String patch, ApiVersion.Format format) {}
+
+    public List<VersionInfo> getHistory(Long apiId) {
+        return apiVersionRepository.findSummariesByApiDefinitionId(apiId).stream().map(s -> {
+            VersionInfo info = new VersionInfo();
+            info.setId(s.getId());
+            info.setDescription(s.getDescription());
+            info.setCreatedAt(s.getCreatedAt());
+            if (s.getCreatedById() != null) {
+                Author author = new Author();
+                author.setId(s.getCreatedById());
+                author.setUsername(s.getCreatedByUsername());
+                info.setCreatedBy(author);
+            }
+            return info;
+        }).toList();
+    }
+
+    public String getContent(Long versionId) {
+        ApiVersion version = apiVersionRepository.findById(versionId)
+                .orElseThrow(() -> new RuntimeException("Version not found"));
+        return materialize(version).content();
+    }
+
+    public Long getApiDefinitionId(Long versionId) {
+        return jdbcTemplate.queryForList("SELECT api_definition_id FROM api_versions WHERE id = ?", Long.class, versionId)
+                .stream().findFirst().orElseThrow(() -> new RuntimeException("Version not found"));
     }
 
     public ApiVersion createSnapshot(ApiDefinition api, String description, User user) {
+        String content = api.getContent();
+        Head head = head(api.getId());
+        Delta delta = head != null && content != null ? encode(head, content) : null;
+
         ApiVersion version = ApiVersion.builder()
                 .apiDefinition(api)
-                .content(api.getContent())
                 .description(description != null ? description : "Snapshot")
                 .createdBy(user)
                 .build();
-        
-        return apiVersionRepository.save(version);
+        if (delta != null) {
+            version.setEncoding(ApiVersion.Encoding.DELTA);
+            version.setFormat(delta.format());
+            version.setBaseVersionId(head.versionId());
+            version.setKeyframeId(head.keyframeId());
+            version.setDelta(delta.patch());
+        } else {
+            version.setEncoding(ApiVersion.Encoding.FULL);
+            version.setContent(content);
+        }
+        ApiVersion saved = apiVersionRepository.save(version);
+
+        Head next = delta != null
+                ? new Head(saved.getId(), head.keyframeId(), head.chainLength() + 1, head.chainBytes() + delta.patch().length(), content)
+                : new Head(saved.getId(), saved.getId(), 0, 0, content);
+        // Only remember the row once it is committed, so a rollback cannot leave a dangling base
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    heads.put(api.getId(), next);
+                }
+            });
+        } else {
+            heads.put(api.getId(), next);
+        }
+        return saved;
     }
 
     public ApiDefinition restore(Long versionId) {
         ApiVersion version = apiVersionRepository.findById(versionId)
                 .orElseThrow(() -> new RuntimeException("Version not found"));
-        
+
         ApiDefinition api = version.getApiDefinition();
-        api.setContent(version.getContent());
-        
+        api.setContent(materialize(version).content());
+
         // Note: Restoring does not change the original creator of the snapshot.
         // If we wanted to track who restored it, we'd need another field.
-        
+
         return apiDefinitionRepository.save(api);
     }
+
+    /**
+     * Diffs {@code content} against {@code head}; null when it should be
+     * stored as a new keyframe instead.
+     */
+    Delta encode(Head head, String content) {
+        if (head.chainLength() + 1 >= keyframeInterval || head.content() == null) return null;
+        try {
+            JsonNode base = objectMapper.readTree(head.content());
+            JsonNode target = objectMapper.readTree(content);
+            if (base == null || target == null) return null;
+
+            ArrayNode ops = JsonPatch.diff(base, target);
+            String patch = objectMapper.writeValueAsString(ops);
+            if (head.chainBytes() + patch.length() > content.length() * maxChainRatio) return null;
+
+            // Only keep the delta if replaying it reproduces the exact text, formatting included
+            JsonNode replayed = JsonPatch.apply(base, ops);
+            if (objectMapper.writeValueAsString(replayed).equals(content)) return new Delta(patch, ApiVersion.Format.COMPACT);
+            if (indentedWriter.writeValueAsString(replayed).equals(content)) return new Delta(patch, ApiVersion.Format.INDENTED);
+            return null;
+        } catch (JsonProcessingException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    Head materialize(ApiVersion version) {
+        if (version.getEncoding() != ApiVersion.Encoding.DELTA) {
+            return new Head(version.getId(), version.getId(), 0, 0, version.getContent());
+        }
+
+        long keyframeId = version.getKeyframeId();
+        String keyframe = jdbcTemplate.queryForObject("SELECT content FROM api_versions WHERE id = ?", String.class, keyframeId);
+        Map<Long, Map<String, Object>> chain = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(CHAIN_SQL, keyframeId, version.getId())) {
+            chain.put(((Number) row.get("id")).longValue(), row);
+        }
+
+        // Walk base pointers back to the keyframe, then replay forwards
+        Deque<String> patches = new ArrayDeque<>();
+        long bytes = 0;
+        for (long id = version.getId(); id != keyframeId; ) {
+            Map<String, Object> row = chain.get(id);
+            if (row == null) throw new IllegalStateException("Version chain of " + version.getId() + " is broken at " + id);
+            String patch = (String) row.get("delta");
+            patches.push(patch);
+            bytes += patch.length();
+            id = ((Number) row.get("base_version_id")).longValue();
+        }
+        int length = patches.size();
+        try {
+            JsonNode node = objectMapper.readTree(keyframe);
+            while (!patches.isEmpty()) {
+                node = JsonPatch.apply(node, (ArrayNode) objectMapper.readTree(patches.pop()));
+            }
+            String content = version.getFormat() == ApiVersion.Format.INDENTED
+                    ? indentedWriter.writeValueAsString(node)
+                    : objectMapper.writeValueAsString(node);
+            return new Head(version.getId(), keyframeId, length, bytes, content);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Version " + version.getId() + " cannot be rebuilt", e);
+        }
+    }
+
+    private Head head(Long apiId) {
+        Head head = heads.get(apiId);
+        if (head != null) return head;
+        List<Long> latest = jdbcTemplate.queryForList(LATEST_SQL, Long.class, apiId);
+        if (latest.isEmpty()) return null;
+        try {
+            return apiVersionRepository.findById(latest.get(0)).map(this::materialize).orElse(null);
+        } catch (IllegalStateException e) {
+            log.warn("Starting a new version keyframe for api {}: {}", apiId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Two-space indentation as produced by {@code JSON.stringify(value, null, 2)}.
+     */
+    static final class IndentedPrinter extends DefaultPrettyPrinter {
+
+        IndentedPrinter() {
+            DefaultIndenter indenter = new DefaultIndenter("  ", "\n");
+            indentObjectsWith(indenter);
+            indentArraysWith(indenter);
+        }
+
+        @Override
+        public DefaultPrettyPrinter createInstance() {
+            return new IndentedPrinter();
+        }
+
+        @Override
+        public void writeObjectFieldValueSeparator(JsonGenerator g) throws IOException {
+            g.writeRaw(": ");
+        }
+
+        @Override
+        public void writeEndObject(JsonGenerator g, int nrOfEntries) throws IOException {
+            if (!_objectIndenter.isInline()) --_nesting;
+            if (nrOfEntries > 0) _objectIndenter.writeIndentation(g, _nesting);
+            g.writeRaw('}');
+        }
+
+        @Override
+        public void writeEndArray(JsonGenerator g, int nrOfValues) throws IOException {
+            if (!_arrayIndenter.isInline()) --_nesting;
+            if (nrOfValues > 0) _arrayIndenter.writeIndentation(g, _nesting);
+            g.writeRaw(']');
+        }
+    }
 }
@@ -0,0 +1,444 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.auth.domain.User;
+import com.apicollab.platform.common.TextOperation;
+import com.apicollab.platform.core.config.ClusterBrokerRelay;
+import com.apicollab.platform.core.domain.ApiDefinition;
+import com.apicollab.platform.core.repository.ApiDefinitionRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Real-time collaborative editing of API definition content using
+ * operational transformation. The server holds the authoritative text and
+ * revision of every definition being edited; clients send text operations
+ * against the revision they last saw to {@code /app/collab/{apiId}}, which
+ * are transformed over anything applied since, applied, and broadcast as
+ * small deltas on {@code /topic/collab/{apiId}}.
+ * <p>
+ * Documents are written back through {@link ApiDefinitionService#applyCollaborativeSave}
+ * every {@code persist-interval-ms} (one update and one snapshot per interval),
+ * and saves made outside the channel are folded in as a server operation so
+ * every editor converges on them. The fold is the outside change (from what
+ * the database held to what it holds now) transformed over the edits not yet
+ * written back, so those edits survive it and are written next. A write-back
+ * only lands if the database still holds what the document last saw there,
+ * so it never overwrites such a save, and its own change event is recognised
+ * by revision and ignored.
+ * <p>
+ * An operation that had to be transformed over concurrent edits is refused
+ * (the client re-syncs) if it would turn parseable JSON into unparseable
+ * text; untransformed operations are what the editor typed and always apply.
+ * <p>
+ * In a cluster each document lives on exactly one node
+ * ({@link ClusterBrokerRelay#ownerOf}); other nodes forward joins and
+ * operations to it, and its broadcasts reach their clients through the relay.
+ * When ownership moves (a peer goes down or comes back) the old owner writes
+ * the document out, drops it and tells its editors to re-join, which loads
+ * it on the new owner.
+ */
+@Service
+@Slf4j
+public class CollaborationService {
+
+    private static final String SERVER_CLIENT_ID = "server";
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final ApiDefinitionRepository apiDefinitionRepository;
+    private final ApiDefinitionService apiDefinitionService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ClusterBrokerRelay clusterBrokerRelay;
+    private final int historySize;
+    private final int maxDocumentChars;
+    private final long idleTimeoutMs;
+
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+    public CollaborationService(
+            ApiDefinitionRepository apiDefinitionRepository,
+            ApiDefinitionService apiDefinitionService,
+            SimpMessagingTemplate messagingTemplate,
+            ClusterBrokerRelay clusterBrokerRelay,
+            @Value("${application.collab.history-size:1000}") int historySize,
+            @Value("${application.collab.max-document-chars:5000000}") int maxDocumentChars,
+            @Value("${application.collab.idle-timeout-ms:600000}") long idleTimeoutMs
+    ) {
+        this.apiDefinitionRepository = apiDefinitionRepository;
+        this.apiDefinitionService = apiDefinitionService;
+        this.messagingTemplate = messagingTemplate;
+        this.clusterBrokerRelay = clusterBrokerRelay;
+        this.historySize = historySize;
+        this.maxDocumentChars = maxDocumentChars;
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    private static final class Document {
+        // Changes whenever the document is loaded again, since revisions then restart at 0
+        final String epoch = UUID.randomUUID().toString();
+        String text;
+        int revision;
+        // Operations that produced revisions (revision - history.size(), revision]
+        final ArrayDeque<TextOperation> history = new ArrayDeque<>();
+        int persistedRevision;
+        // Content the database holds, as far as this document knows
+        String persistedText;
+        // Operations taking persistedText to text, in order
+        final List<TextOperation> unpersisted = new ArrayList<>();
+        User lastEditor;
+        int editsSincePersist;
+        long lastActivity = System.currentTimeMillis();
+
+        Document(String text) {
+            this.text = text;
+            this.persistedText = text;
+        }
+    }
+
+    @Data
+    public static class DocumentState {
+        private Long apiId;
+        private String epoch;
+        private int revision;
+        private String content;
+    }
+
+    @Data
+    public static class OperationMessage {
+        private String clientId;
+        private String epoch; // document load the revision belongs to
+        private int revision; // server revision the operation was made against
+        private List<Object> ops;
+    }
+
+    // An operation received by another node, submitted on behalf of its user
+    public record ForwardedOperation(String username, OperationMessage message) {}
+
+    @Data
+    public static class OperationEvent {
+        private String type; // OP, RESYNC (client must re-join; all clients when clientId is null) or CLOSED (definition deleted)
+        private Long apiId;
+        private String epoch; // OP only: the document load the revision belongs to
+        private int revision;
+        private String clientId;
+        private String username;
+        private List<Object> ops;
+    }
+
+    /**
+     * Current text and revision; the client then applies every OP event with
+     * a higher revision from {@code /topic/collab/{apiId}}.
+     */
+    public DocumentState join(Long apiId) {
+        String owner = clusterBrokerRelay.ownerOf(apiId);
+        if (owner != null) {
+            try {
+                return clusterBrokerRelay.post(owner, "/collab/" + apiId + "/join", null, DocumentState.class);
+            } catch (Exception e) {
+                throw new RuntimeException("Collaboration node unavailable: " + e.getMessage());
+            }
+        }
+        return joinLocal(apiId);
+    }
+
+    public DocumentState joinLocal(Long apiId) {
+        Document doc = documents.computeIfAbsent(apiId, id -> new Document(apiDefinitionRepository.findById(id)
+                .map(d -> d.getContent() != null ? d.getContent() : "")
+                .orElseThrow(() -> new RuntimeException("API definition not found"))));
+        synchronized (doc) {
+            doc.lastActivity = System.currentTimeMillis();
+            DocumentState state = new DocumentState();
+            state.setApiId(apiId);
+            state.setEpoch(doc.epoch);
+            state.setRevision(doc.revision);
+            state.setContent(doc.text);
+            return state;
+        }
+    }
+
+    /**
+     * The definition with the live document's text, so REST reads between
+     * persists do not hand editors an older copy.
+     */
+    public ApiDefinition overlay(ApiDefinition definition) {
+        Document doc = documents.get(definition.getId());
+        if (doc == null) return definition;
+        synchronized (doc) {
+            if (doc.text.equals(definition.getContent())) return definition;
+            return ApiDefinition.builder()
+                    .id(definition.getId())
+                    .title(definition.getTitle())
+                    .version(definition.getVersion())
+                    .workspace(definition.getWorkspace())
+                    .content(doc.text)
+                    .updatedAt(definition.getUpdatedAt())
+                    .build();
+        }
+    }
+
+    public List<ApiDefinition> overlay(List<ApiDefinition> definitions) {
+        if (documents.isEmpty()) return definitions;
+        return definitions.stream().map(this::overlay).toList();
+    }
+
+    public void submit(Long apiId, OperationMessage message, User user) {
+        String owner = clusterBrokerRelay.ownerOf(apiId);
+        if (owner != null) {
+            try {
+                clusterBrokerRelay.post(owner, "/collab/" + apiId + "/submit", new ForwardedOperation(user.getUsername(), message), Void.class);
+            } catch (Exception e) {
+                log.warn("Could not forward edit on api {} to {}: {}", apiId, owner, e.getMessage());
+                publish(apiId, event("RESYNC", apiId, 0, message.getClientId(), null, null));
+            }
+            return;
+        }
+        submitLocal(apiId, message, user);
+    }
+
+    public void submitLocal(Long apiId, OperationMessage message, User user) {
+        Document doc = documents.get(apiId);
+        if (doc == null) {
+            publish(apiId, event("RESYNC", apiId, 0, message.getClientId(), null, null));
+            return;
+        }
+        synchronized (doc) {
+            int behind = doc.revision - message.getRevision();
+            // A revision of an earlier load of the document says nothing about this one
+            if (!doc.epoch.equals(message.getEpoch()) || behind < 0 || behind > doc.history.size()) {
+                publish(apiId, event("RESYNC", apiId, doc.revision, message.getClientId(), null, null));
+                return;
+            }
+            TextOperation op;
+            try {
+                op = TextOperation.fromJson(message.getOps());
+                // Transform over everything the client had not seen yet
+                int skip = doc.history.size() - behind;
+                for (TextOperation concurrent : doc.history) {
+                    if (skip-- > 0) continue;
+                    op = TextOperation.transform(op, concurrent)[0];
+                }
+                if (op.getTargetLength() > maxDocumentChars) {
+                    throw new IllegalArgumentException("Document too large");
+                }
+                String merged = op.apply(doc.text);
+                if (behind > 0 && !parses(merged) && parses(doc.text)) {
+                    throw new IllegalArgumentException("Merging with concurrent edits would break the JSON");
+                }
+                doc.text = merged;
+            } catch (IllegalArgumentException e) {
+                log.debug("Rejected collaborative edit on api {} from {}: {}", apiId, user.getUsername(), e.getMessage());
+                publish(apiId, event("RESYNC", apiId, doc.revision, message.getClientId(), null, null));
+                return;
+            }
+            append(doc, op);
+            addUnpersisted(doc, op);
+            doc.lastEditor = user;
+            doc.editsSincePersist++;
+            doc.lastActivity = System.currentTimeMillis();
+            // Published under the document lock so the broker sees revisions in order
+            publish(apiId, opEvent(apiId, doc, message.getClientId(), user.getUsername(), op));
+        }
+    }
+
+    /**
+     * Folds saves made outside the channel (editor PUTs, restores, imports)
+     * into the live document as a server operation, merged with the edits not
+     * yet written back.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDefinitionChanged(ApiDefinitionService.DefinitionChanged change) {
+        Document doc = documents.get(change.id());
+        if (doc == null) return;
+        // This document's own write-back (flush) is already in it
+        if (change.collabRevision() != null) return;
+        if (change.content() == null) {
+            documents.remove(change.id());
+            publish(change.id(), event("CLOSED", change.id(), 0, null, null, null));
+            return;
+        }
+        synchronized (doc) {
+            if (change.content().equals(doc.persistedText)) return;
+            // The outside change, transformed over each edit the database does not have yet
+            TextOperation op = TextOperation.replace(doc.persistedText, change.content());
+            List<TextOperation> rebased = new ArrayList<>(doc.unpersisted.size());
+            for (TextOperation pending : doc.unpersisted) {
+                TextOperation[] pair = TextOperation.transform(op, pending);
+                op = pair[0];
+                rebased.add(pair[1]);
+            }
+            // The database holds this text now, and the rebased edits lead from it to the merged text
+            doc.persistedText = change.content();
+            doc.unpersisted.clear();
+            doc.unpersisted.addAll(rebased);
+            if (!op.isNoop()) {
+                doc.text = op.apply(doc.text);
+                append(doc, op);
+                publish(change.id(), opEvent(change.id(), doc, SERVER_CLIENT_ID, null, op));
+            }
+            if (doc.text.equals(doc.persistedText)) {
+                doc.unpersisted.clear();
+                doc.persistedRevision = doc.revision;
+            }
+        }
+    }
+
+    /**
+     * Definition changes made on another node: reload what it wrote and fold
+     * it in like a local save.
+     */
+    @EventListener
+    public void onRemoteSync(ClusterBrokerRelay.RemoteSync sync) {
+        if (documents.isEmpty()) return;
+        for (ApiDefinitionService.SyncMessage event : sync.events()) {
+            if (!"API_DEFINITION".equals(event.getType()) || !documents.containsKey(event.getId())) continue;
+            String content = "DELETE".equals(event.getAction()) ? null : apiDefinitionRepository.findById(event.getId())
+                    .map(d -> d.getContent() != null ? d.getContent() : "")
+                    .orElse(null);
+            onDefinitionChanged(new ApiDefinitionService.DefinitionChanged(event.getId(), content));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.collab.persist-interval-ms:5000}")
+    public void persist() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, Document> entry : new ArrayList<>(documents.entrySet())) {
+            Document doc = entry.getValue();
+            synchronized (doc) {
+                if (doc.revision == doc.persistedRevision && now - doc.lastActivity > idleTimeoutMs) {
+                    documents.remove(entry.getKey(), doc);
+                    continue;
+                }
+            }
+            if (flush(entry.getKey(), doc) && clusterBrokerRelay.ownerOf(entry.getKey()) != null) {
+                handOver(entry.getKey(), doc);
+            }
+        }
+    }
+
+    // Another node owns the document now; only drop it once everything applied here is written
+    private void handOver(Long apiId, Document doc) {
+        synchronized (doc) {
+            if (doc.revision != doc.persistedRevision) return; // edited meanwhile, next tick
+            documents.remove(apiId, doc);
+            // No clientId: every editor re-joins, which loads the document on the new owner
+            publish(apiId, event("RESYNC", apiId, doc.revision, null, null, null));
+        }
+        log.info("Handed collaboration document of api {} over to {}", apiId, clusterBrokerRelay.ownerOf(apiId));
+    }
+
+    /**
+     * Writes the live document of {@code apiId} now, e.g. before a manual snapshot.
+     */
+    public void flush(Long apiId) {
+        Document doc = documents.get(apiId);
+        if (doc != null) flush(apiId, doc);
+    }
+
+    // True when everything up to the current revision is in the database
+    private boolean flush(Long apiId, Document doc) {
+        String text;
+        String expected;
+        int revision;
+        User editor;
+        int edits;
+        int written;
+        synchronized (doc) {
+            if (doc.revision == doc.persistedRevision) return true;
+            text = doc.text;
+            expected = doc.persistedText;
+            revision = doc.revision;
+            editor = doc.lastEditor;
+            edits = doc.editsSincePersist;
+            written = doc.unpersisted.size();
+        }
+        try {
+            if (!apiDefinitionService.applyCollaborativeSave(apiId, expected, text, editor, edits, revision)) {
+                // A save outside the channel got there first; it is folded in and written next time
+                log.debug("Deferred write-back of api {} revision {} behind a concurrent save", apiId, revision);
+                return false;
+            }
+            synchronized (doc) {
+                // An outside save folded in meanwhile already rebased the edits onto what it wrote
+                if (doc.persistedRevision < revision && expected.equals(doc.persistedText)) {
+                    doc.persistedRevision = revision;
+                    doc.persistedText = text;
+                    doc.unpersisted.subList(0, written).clear();
+                    doc.editsSincePersist -= edits;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to persist collaborative edits of api {}: {}", apiId, e.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persist();
+    }
+
+    private static boolean parses(String text) {
+        try (JsonParser parser = JSON.createParser(text)) {
+            while (parser.nextToken() != null) {
+                // only checking the syntax
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Past the history size the pending edits collapse into one, so a write-back outage cannot grow them without bound
+    private void addUnpersisted(Document doc, TextOperation op) {
+        doc.unpersisted.add(op);
+        if (doc.unpersisted.size() > historySize) {
+            doc.unpersisted.clear();
+            doc.unpersisted.add(TextOperation.replace(doc.persistedText, doc.text));
+        }
+    }
+
+    private void append(Document doc, TextOperation op) {
+        doc.history.addLast(op);
+        if (doc.history.size() > historySize) doc.history.removeFirst();
+        doc.revision++;
+    }
+
+    private void publish(Long apiId, OperationEvent event) {
+        messagingTemplate.convertAndSend("/topic/collab/" + apiId, event);
+    }
+
+    private static OperationEvent opEvent(Long apiId, Document doc, String clientId, String username, TextOperation op) {
+        OperationEvent event = event("OP", apiId, doc.revision, clientId, username, op.toJson());
+        event.setEpoch(doc.epoch);
+        return event;
+    }
+
+    private static OperationEvent event(String type, Long apiId, int revision, String clientId, String username, List<Object> ops) {
+        OperationEvent event = new OperationEvent();
+        event.setType(type);
+        event.setApiId(apiId);
+        event.setRevision(revision);
+        event.setClientId(clientId);
+        event.setUsername(username);
+        event.setOps(ops);
+        return event;
+    }
+}
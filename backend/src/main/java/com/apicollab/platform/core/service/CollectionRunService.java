@@ -0,0 +1,334 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.common.SecurityUtils;
+import com.apicollab.platform.core.domain.ApiTestCase;
+import com.apicollab.platform.core.repository.ApiTestCaseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Runs saved test cases server-side through {@link ProxyService} (behind the
+ * background bulkhead of {@link ProxyExecutor}), with bounded
+ * concurrency, optional per-host rate limits and progress pushed to
+ * {@code /topic/runs/{runId}}. A run belongs to the workspace of its test
+ * cases; members of that workspace can follow and cancel it.
+ */
+@Service
+@Slf4j
+public class CollectionRunService {
+
+    private final ApiTestCaseRepository testCaseRepository;
+    private final ProxyService proxyService;
+    private final ProxyExecutor proxyExecutor;
+    private final TestCaseRequestMapper requestMapper;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final WorkspaceAuthorizer authorizer;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, RunState> runs = new ConcurrentHashMap<>();
+
+    private final int maxConcurrency;
+    private final long retentionMinutes;
+
+    public CollectionRunService(
+            ApiTestCaseRepository testCaseRepository,
+            ProxyService proxyService,
+            ProxyExecutor proxyExecutor,
+            TestCaseRequestMapper requestMapper,
+            SimpMessagingTemplate messagingTemplate,
+            WorkspaceAuthorizer authorizer,
+            @Value("${application.runner.max-concurrency:64}") int maxConcurrency,
+            @Value("${application.runner.retention-minutes:60}") long retentionMinutes
+    ) {
+        this.testCaseRepository = testCaseRepository;
+        this.proxyService = proxyService;
+        this.proxyExecutor = proxyExecutor;
+        this.requestMapper = requestMapper;
+        this.messagingTemplate = messagingTemplate;
+        this.authorizer = authorizer;
+        this.maxConcurrency = maxConcurrency;
+        this.retentionMinutes = retentionMinutes;
+    }
+
+    @Data
+    public static class RunRequest {
+        private Long apiDefinitionId;
+        private Long workspaceId;
+        private List<Long> testCaseIds;
+        private Long environmentId;
+        private int concurrency = 8;
+        private double perHostRatePerSecond; // 0 = unlimited
+        private boolean ordered; // run strictly one after another, in the given order
+        private boolean stopOnFailure;
+    }
+
+    @Data
+    public static class CaseResult {
+        private Long testCaseId;
+        private String name;
+        private String method;
+        private String url;
+        private int status;
+        private long durationMs;
+        private boolean passed;
+        private String error;
+    }
+
+    @Data
+    public static class RunStatus {
+        private String runId;
+        private Long workspaceId;
+        private String state; // RUNNING, COMPLETED, CANCELLED
+        private String startedBy;
+        private int total;
+        private int completed;
+        private int passed;
+        private int failed;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private List<CaseResult> results;
+    }
+
+    private static class RunState {
+        final RunStatus status = new RunStatus();
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger passed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final List<CaseResult> results = new ArrayList<>();
+        volatile boolean cancelled;
+    }
+
+    public RunStatus start(RunRequest request) {
+        List<ApiTestCase> cases = resolveCases(request);
+
+        RunState run = new RunState();
+        run.status.setRunId(UUID.randomUUID().toString());
+        run.status.setWorkspaceId(workspaceOf(request, cases));
+        run.status.setState("RUNNING");
+        run.status.setStartedBy(SecurityUtils.getCurrentUsername());
+        run.status.setTotal(cases.size());
+        run.status.setStartedAt(LocalDateTime.now());
+        runs.put(run.status.getRunId(), run);
+
+        executor.execute(() -> execute(run, cases, request));
+        return snapshot(run, false);
+    }
+
+    public RunStatus getStatus(String runId) {
+        return snapshot(getRun(runId), true);
+    }
+
+    public void cancel(String runId) {
+        getRun(runId).cancelled = true;
+    }
+
+    /**
+     * Workspace the run belongs to, or null if there is no such run (any more).
+     */
+    public Long workspaceOf(String runId) {
+        RunState run = runs.get(runId);
+        return run != null ? run.status.getWorkspaceId() : null;
+    }
+
+    @Scheduled(fixedDelay = 300000)
+    public void evictFinishedRuns() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        runs.values().removeIf(r -> r.status.getFinishedAt() != null && r.status.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runs.values().forEach(r -> r.cancelled = true);
+        executor.shutdownNow();
+    }
+
+    private List<ApiTestCase> resolveCases(RunRequest request) {
+        if (request.getTestCaseIds() != null && !request.getTestCaseIds().isEmpty()) {
+            Map<Long, ApiTestCase> byId = new HashMap<>();
+            testCaseRepository.findAllById(request.getTestCaseIds()).forEach(tc -> byId.put(tc.getId(), tc));
+            List<ApiTestCase> ordered = new ArrayList<>();
+            for (Long id : request.getTestCaseIds()) {
+                ApiTestCase tc = byId.get(id);
+                if (tc == null) throw new RuntimeException("Test case not found: " + id);
+                ordered.add(tc);
+            }
+            return ordered;
+        }
+        List<ApiTestCase> cases;
+        if (request.getApiDefinitionId() != null) {
+            cases = new ArrayList<>(testCaseRepository.findByApiDefinitionId(request.getApiDefinitionId()));
+        } else if (request.getWorkspaceId() != null) {
+            cases = new ArrayList<>(testCaseRepository.findByApiDefinitionWorkspaceId(request.getWorkspaceId()));
+        } else {
+            throw new RuntimeException("Specify testCaseIds, apiDefinitionId or workspaceId");
+        }
+        cases.sort(Comparator.comparing(ApiTestCase::getId));
+        return cases;
+    }
+
+    private void execute(RunState run, List<ApiTestCase> cases, RunRequest request) {
+        int concurrency = request.isOrdered() ? 1 : Math.max(1, Math.min(request.getConcurrency(), maxConcurrency));
+        Semaphore permits = new Semaphore(concurrency);
+        HostRateLimiter limiter = new HostRateLimiter(request.getPerHostRatePerSecond());
+        String topic = "/topic/runs/" + run.status.getRunId();
+
+        try {
+            for (ApiTestCase testCase : cases) {
+                if (run.cancelled) break;
+                permits.acquire();
+                executor.execute(() -> {
+                    try {
+                        if (run.cancelled) return;
+                        CaseResult result = runCase(testCase, request.getEnvironmentId(), limiter);
+                        record(run, result, request.isStopOnFailure());
+                        messagingTemplate.convertAndSend(topic, Map.of("type", "CASE_RESULT", "result", result, "progress", snapshot(run, false)));
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            permits.acquire(concurrency); // wait for in-flight cases
+        } catch (InterruptedException e) {
+            run.cancelled = true;
+            Thread.currentThread().interrupt();
+        }
+
+        run.status.setState(run.cancelled ? "CANCELLED" : "COMPLETED");
+        run.status.setFinishedAt(LocalDateTime.now());
+        messagingTemplate.convertAndSend(topic, Map.of("type", "RUN_FINISHED", "progress", snapshot(run, false)));
+        log.info("Run {} finished: {}/{} passed", run.status.getRunId(), run.passed.get(), run.status.getTotal());
+    }
+
+    private CaseResult runCase(ApiTestCase testCase, Long environmentId, HostRateLimiter limiter) {
+        CaseResult result = new CaseResult();
+        result.setTestCaseId(testCase.getId());
+        result.setName(testCase.getName());
+        try {
+            ProxyService.ProxyRequest request = requestMapper.toProxyRequest(testCase, environmentId);
+            result.setMethod(request.getMethod());
+            result.setUrl(request.getUrl());
+
+            limiter.acquire(hostOf(request.getUrl()));
+            long start = System.nanoTime();
+            ProxyService.ProxyResponse response = proxyExecutor.runBackground(() -> proxyService.execute(request));
+            result.setDurationMs((System.nanoTime() - start) / 1_000_000);
+            result.setStatus(response.getStatus());
+            result.setPassed(response.getStatus() < 400);
+            if (!result.isPassed() && response.getStatus() == 500 && response.getHeaders() == null) {
+                result.setError(response.getBody()); // transport failure reported by the proxy
+            }
+        } catch (Exception e) {
+            result.setPassed(false);
+            result.setError(e.getMessage());
+        }
+        return result;
+    }
+
+    private void record(RunState run, CaseResult result, boolean stopOnFailure) {
+        run.completed.incrementAndGet();
+        if (result.isPassed()) {
+            run.passed.incrementAndGet();
+        } else {
+            run.failed.incrementAndGet();
+            if (stopOnFailure) run.cancelled = true;
+        }
+        synchronized (run.results) {
+            run.results.add(result);
+        }
+    }
+
+    private RunStatus snapshot(RunState run, boolean withResults) {
+        RunStatus s = new RunStatus();
+        s.setRunId(run.status.getRunId());
+        s.setWorkspaceId(run.status.getWorkspaceId());
+        s.setState(run.status.getState());
+        s.setStartedBy(run.status.getStartedBy());
+        s.setTotal(run.status.getTotal());
+        s.setCompleted(run.completed.get());
+        s.setPassed(run.passed.get());
+        s.setFailed(run.failed.get());
+        s.setStartedAt(run.status.getStartedAt());
+        s.setFinishedAt(run.status.getFinishedAt());
+        if (withResults) {
+            synchronized (run.results) {
+                s.setResults(new ArrayList<>(run.results));
+            }
+        }
+        return s;
+    }
+
+    private RunState getRun(String runId) {
+        RunState run = runs.get(runId);
+        if (run == null) {
+            throw new RuntimeException("Run not found");
+        }
+        return run;
+    }
+
+    // Progress and control of a run are scoped to one workspace, like the cases it runs
+    private Long workspaceOf(RunRequest request, List<ApiTestCase> cases) {
+        Set<Long> workspaceIds = cases.stream()
+                .map(tc -> tc.getApiDefinition().getWorkspace().getId())
+                .collect(Collectors.toSet());
+        if (workspaceIds.size() > 1) {
+            throw new RuntimeException("All test cases of a run must belong to one workspace");
+        }
+        if (!workspaceIds.isEmpty()) return workspaceIds.iterator().next();
+        if (request.getWorkspaceId() != null) return request.getWorkspaceId();
+        return authorizer.workspaceOf(WorkspaceAuthorizer.Kind.API_DEFINITION, request.getApiDefinitionId());
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (Exception e) {
+            return url;
+        }
+    }
+
+    /**
+     * Spaces out request starts per host at a fixed interval. Reservations are
+     * handed out atomically, so waiting callers never pile onto the same slot.
+     */
+    private static class HostRateLimiter {
+        private final long intervalNanos;
+        private final Map<String, AtomicLong> nextSlot = new ConcurrentHashMap<>();
+
+        HostRateLimiter(double perSecond) {
+            this.intervalNanos = perSecond > 0 ? (long) (1_000_000_000L / perSecond) : 0;
+        }
+
+        void acquire(String host) {
+            if (intervalNanos == 0) return;
+            AtomicLong next = nextSlot.computeIfAbsent(host, h -> new AtomicLong(System.nanoTime()));
+            long slot = next.getAndUpdate(n -> Math.max(n, System.nanoTime()) + intervalNanos);
+            long wait;
+            while ((wait = slot - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+}
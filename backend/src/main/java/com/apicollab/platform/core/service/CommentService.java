@@ -1,14 +1,12 @@
 package com.apicollab.platform.core.service;
 
 import com.apicollab.platform.auth.domain.User;
-import com.apicollab.platform.auth.repository.UserRepository;
 import com.apicollab.platform.common.SecurityUtils;
 import com.apicollab.platform.core.domain.ApiDefinition;
 import com.apicollab.platform.core.domain.Comment;
 import com.apicollab.platform.core.repository.ApiDefinitionRepository;
 import com.apicollab.platform.core.repository.CommentRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,8 +18,7 @@ public class CommentService {
 
     private final CommentRepository commentRepository;
     private final ApiDefinitionRepository apiDefinitionRepository;
-    private final UserRepository userRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final SyncEventBroadcaster syncEventBroadcaster;
 
     public List<Comment> getComments(Long apiId) {
         return commentRepository.findByApiDefinitionIdOrderByCreatedAtDesc(apiId);
@@ -32,9 +29,7 @@ public class CommentService {
         ApiDefinition api = apiDefinitionRepository.findById(apiId)
                 .orElseThrow(() -> new RuntimeException("API not found"));
         
-        String username = SecurityUtils.getCurrentUsername();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = SecurityUtils.getCurrentUser();
 
         Comment comment = Comment.builder()
                 .apiDefinition(api)
@@ -45,9 +40,8 @@ public class CommentService {
 
         Comment saved = commentRepository.save(comment);
         
-        // Notify via WebSocket
-        messagingTemplate.convertAndSend("/topic/updates", 
-            new UpdateMessage("COMMENT_ADDED", apiId));
+        // Notify whoever has this definition open
+        syncEventBroadcaster.toApiDefinition(apiId, "COMMENT", apiId, "ADDED");
 
         return saved;
     }
@@ -59,10 +53,7 @@ public class CommentService {
         comment.setResolved(true);
         commentRepository.save(comment);
         
-        messagingTemplate.convertAndSend("/topic/updates", 
-            new UpdateMessage("COMMENT_RESOLVED", comment.getApiDefinition().getId()));
+        Long apiId = comment.getApiDefinition().getId();
+        syncEventBroadcaster.toApiDefinition(apiId, "COMMENT", apiId, "RESOLVED");
     }
-
-    // Reuse UpdateMessage or create local record
-    private record UpdateMessage(String type, Long id) {}
 }
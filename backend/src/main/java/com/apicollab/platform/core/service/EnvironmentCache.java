@@ -0,0 +1,147 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.core.config.ClusterBrokerRelay;
+import com.apicollab.platform.core.domain.Environment;
+import com.apicollab.platform.core.repository.EnvironmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of environments for the proxy hot path. Entries are
+ * evicted by {@link EnvironmentService} on update/delete and otherwise live
+ * for a bounded TTL, which also caps staleness when another node changed the
+ * row and invalidation broadcasts are disabled. In a cluster, invalidations
+ * from other nodes arrive through {@link ClusterBrokerRelay}.
+ * <p>
+ * A load that overlaps an eviction of the same id is returned but not
+ * cached: evictions bump a generation (striped by id) that the loader
+ * re-checks atomically with the insert, so a row read before an update can
+ * never be put back after the update's eviction.
+ */
+@Component
+@Slf4j
+public class EnvironmentCache {
+
+    private final EnvironmentRepository environmentRepository;
+    private final EnvironmentTemplateEngine templateEngine;
+    private final SyncEventBroadcaster syncEventBroadcaster;
+    private final Map<Long, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(1024);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final boolean broadcastInvalidation;
+
+    public EnvironmentCache(
+            EnvironmentRepository environmentRepository,
+            EnvironmentTemplateEngine templateEngine,
+            SyncEventBroadcaster syncEventBroadcaster,
+            @Value("${application.environment-cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${application.environment-cache.max-entries:2000}") int maxEntries,
+            @Value("${application.environment-cache.broadcast-invalidation:true}") boolean broadcastInvalidation
+    ) {
+        this.environmentRepository = environmentRepository;
+        this.templateEngine = templateEngine;
+        this.syncEventBroadcaster = syncEventBroadcaster;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.maxEntries = maxEntries;
+        this.broadcastInvalidation = broadcastInvalidation;
+    }
+
+    private record Entry(Environment environment, long loadedAt) {}
+
+    public record Stats(long hits, long misses, long evictions, int size) {}
+
+    public Optional<Environment> get(Long id) {
+        long now = System.nanoTime();
+        Entry entry = cache.get(id);
+        if (entry != null && now - entry.loadedAt() < ttlNanos) {
+            hits.increment();
+            return Optional.of(entry.environment());
+        }
+
+        misses.increment();
+        int stripe = stripe(id);
+        long generation = generations.get(stripe);
+        Optional<Environment> loaded = environmentRepository.findById(id);
+        if (loaded.isPresent()) {
+            Entry fresh = new Entry(loaded.get(), now);
+            cache.compute(id, (key, old) -> {
+                // Evicted while loading: what we read may predate the change
+                if (generations.get(stripe) != generation) return old;
+                // Never replace a newer version loaded concurrently with an older one
+                return old != null && isNewer(old.environment(), fresh.environment()) ? old : fresh;
+            });
+            trim();
+        } else {
+            cache.remove(id);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the local entry and, when enabled, tells other nodes (and clients)
+     * that the environment changed.
+     */
+    public void invalidate(Long id, Long workspaceId, String action) {
+        evictLocal(id);
+        if (broadcastInvalidation) {
+            syncEventBroadcaster.toWorkspace(workspaceId, "ENVIRONMENT", id, action);
+        }
+    }
+
+    // Another node changed an environment: drop our copy instead of waiting for the TTL
+    @EventListener
+    public void onRemoteSync(ClusterBrokerRelay.RemoteSync sync) {
+        sync.events().stream()
+                .filter(event -> "ENVIRONMENT".equals(event.getType()))
+                .forEach(event -> evictLocal(event.getId()));
+    }
+
+    public void evictLocal(Long id) {
+        // Before the remove, so a load racing with it cannot re-insert afterwards
+        generations.incrementAndGet(stripe(id));
+        if (cache.remove(id) != null) {
+            evictions.increment();
+        }
+        templateEngine.evict(id);
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), cache.size());
+    }
+
+    private void trim() {
+        int overflow = cache.size() - maxEntries;
+        if (overflow <= 0) return;
+        cache.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().loadedAt()))
+                .limit(overflow)
+                .forEach(e -> {
+                    if (cache.remove(e.getKey(), e.getValue())) {
+                        evictions.increment();
+                    }
+                });
+    }
+
+    private int stripe(Long id) {
+        return Math.floorMod(Long.hashCode(id), generations.length());
+    }
+
+    private static boolean isNewer(Environment a, Environment b) {
+        return a.getUpdatedAt() != null && b.getUpdatedAt() != null && a.getUpdatedAt().isAfter(b.getUpdatedAt());
+    }
+}
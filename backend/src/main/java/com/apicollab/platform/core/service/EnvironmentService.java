@@ -15,6 +15,7 @@ public class EnvironmentService {
 
     private final EnvironmentRepository environmentRepository;
     private final WorkspaceRepository workspaceRepository;
+    private final EnvironmentCache environmentCache;
 
     public List<Environment> getByWorkspace(Long workspaceId) {
         return environmentRepository.findByWorkspaceId(workspaceId);
@@ -37,10 +38,19 @@ public class EnvironmentService {
         existing.setVariables(updated.getVariables());
         existing.setAuthConfigs(updated.getAuthConfigs());
         
-        return environmentRepository.save(existing);
+        Environment saved = environmentRepository.save(existing);
+        environmentCache.invalidate(id, existing.getWorkspace().getId(), "UPDATE");
+        return saved;
+    }
+
+    public EnvironmentCache.Stats getCacheStats() {
+        return environmentCache.getStats();
     }
 
     public void delete(Long id) {
-        environmentRepository.deleteById(id);
+        Environment existing = environmentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Environment not found"));
+        environmentRepository.delete(existing);
+        environmentCache.invalidate(id, existing.getWorkspace().getId(), "DELETE");
     }
 }
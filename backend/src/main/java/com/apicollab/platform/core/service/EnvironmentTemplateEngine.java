@@ -0,0 +1,154 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.core.domain.Environment;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-side {{variable}} substitution. Each environment's variables and
+ * auth configs are parsed once per version (updatedAt) into a
+ * {@link CompiledEnvironment}; rendering is then a single indexOf scan per
+ * string, with no regex and no JSON work on the request path.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class EnvironmentTemplateEngine {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final OAuth2TokenService oAuth2TokenService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Long, CompiledEnvironment> compiled = new ConcurrentHashMap<>();
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private static class VariableEntry {
+        private String key;
+        private String value;
+        private Boolean enabled;
+    }
+
+    @Getter
+    public static class CompiledEnvironment {
+        private final Long id;
+        private final LocalDateTime version;
+        private final Map<String, String> variables;
+        private final Map<String, OAuth2TokenService.OAuth2Config> authConfigs;
+
+        CompiledEnvironment(Long id, LocalDateTime version, Map<String, String> variables,
+                            Map<String, OAuth2TokenService.OAuth2Config> authConfigs) {
+            this.id = id;
+            this.version = version;
+            this.variables = variables;
+            this.authConfigs = authConfigs;
+        }
+    }
+
+    public CompiledEnvironment compile(Environment env) {
+        CompiledEnvironment current = compiled.get(env.getId());
+        if (current != null && Objects.equals(current.getVersion(), env.getUpdatedAt())) {
+            return current;
+        }
+        CompiledEnvironment fresh = new CompiledEnvironment(
+                env.getId(), env.getUpdatedAt(), parseVariables(env), parseAuthConfigs(env));
+        compiled.put(env.getId(), fresh);
+        return fresh;
+    }
+
+    public void evict(Long environmentId) {
+        compiled.remove(environmentId);
+    }
+
+    /**
+     * Replaces every {{name}} in {@code input}. Plain variables win over auth
+     * placeholders; unknown names and failed token fetches are left untouched.
+     */
+    public String render(String input, CompiledEnvironment env) {
+        if (input == null) return null;
+        int open = input.indexOf(OPEN);
+        if (open < 0) return input;
+
+        StringBuilder sb = new StringBuilder(input.length() + 64);
+        int pos = 0;
+        while (open >= 0) {
+            int close = input.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) break;
+            sb.append(input, pos, open);
+            String value = lookup(input.substring(open + OPEN.length(), close), env);
+            if (value != null) {
+                sb.append(value);
+            } else {
+                sb.append(input, open, close + CLOSE.length());
+            }
+            pos = close + CLOSE.length();
+            open = input.indexOf(OPEN, pos);
+        }
+        sb.append(input, pos, input.length());
+        return sb.toString();
+    }
+
+    private String lookup(String name, CompiledEnvironment env) {
+        if (name.isEmpty()) return null;
+        String value = env.getVariables().get(name);
+        if (value != null) return value;
+
+        String key = name.trim();
+        value = env.getVariables().get(key);
+        if (value != null) return value;
+
+        OAuth2TokenService.OAuth2Config config = env.getAuthConfigs().get(key);
+        if (config == null) return null;
+        try {
+            return "Bearer " + oAuth2TokenService.getToken(config);
+        } catch (Exception e) {
+            log.warn("Token fetch failed for placeholder {} in environment {}: {}", key, env.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<String, String> parseVariables(Environment env) {
+        if (env.getVariables() == null || env.getVariables().isBlank()) return Collections.emptyMap();
+        try {
+            List<VariableEntry> entries = objectMapper.readValue(env.getVariables(), new TypeReference<>() {});
+            Map<String, String> variables = new HashMap<>();
+            for (VariableEntry entry : entries) {
+                if (entry.getKey() == null || entry.getKey().isEmpty() || Boolean.FALSE.equals(entry.getEnabled())) {
+                    continue;
+                }
+                variables.put(entry.getKey(), entry.getValue() != null ? entry.getValue() : "");
+            }
+            return Map.copyOf(variables);
+        } catch (Exception e) {
+            log.warn("Ignoring unparseable variables of environment {}: {}", env.getId(), e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    private Map<String, OAuth2TokenService.OAuth2Config> parseAuthConfigs(Environment env) {
+        if (env.getAuthConfigs() == null || env.getAuthConfigs().isBlank()) return Collections.emptyMap();
+        try {
+            Map<String, OAuth2TokenService.OAuth2Config> configs =
+                    objectMapper.readValue(env.getAuthConfigs(), new TypeReference<>() {});
+            return configs != null ? Map.copyOf(configs) : Collections.emptyMap();
+        } catch (Exception e) {
+            log.warn("Ignoring unparseable auth configs of environment {}: {}", env.getId(), e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+}
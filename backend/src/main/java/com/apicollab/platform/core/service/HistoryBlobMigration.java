@@ -0,0 +1,105 @@
+package com.apicollab.platform.core.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Moves inline headers/query params/bodies of history rows written before
+ * blob storage into {@link HistoryBlobStore}, in small keyset batches on a
+ * background thread after startup. Rows read in the meantime fall back to
+ * their inline columns, so the migration can run while the app serves traffic.
+ */
+@Component
+@Slf4j
+public class HistoryBlobMigration {
+
+    private static final String SELECT_SQL = "SELECT id, headers, query_params, body_content FROM api_request_history " +
+            "WHERE id > ? AND headers_hash IS NULL AND query_params_hash IS NULL AND body_hash IS NULL " +
+            "AND (headers IS NOT NULL OR query_params IS NOT NULL OR body_content IS NOT NULL) ORDER BY id LIMIT ?";
+
+    private static final String UPDATE_SQL = "UPDATE api_request_history SET headers_hash = ?, query_params_hash = ?, body_hash = ?, " +
+            "headers = NULL, query_params = NULL, body_content = NULL WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final HistoryBlobStore blobStore;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public HistoryBlobMigration(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            HistoryBlobStore blobStore,
+            @Value("${application.history.blobs.migration.enabled:true}") boolean enabled,
+            @Value("${application.history.blobs.migration.batch-size:500}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.blobStore = blobStore;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    private record LegacyRow(long id, String headers, String queryParams, String bodyContent) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            Thread.ofVirtual().name("history-blob-migration").start(this::migrate);
+        }
+    }
+
+    void migrate() {
+        long lastId = 0;
+        long migrated = 0;
+        try {
+            while (true) {
+                List<LegacyRow> rows = jdbcTemplate.query(SELECT_SQL,
+                        (rs, i) -> new LegacyRow(rs.getLong("id"), rs.getString("headers"), rs.getString("query_params"), rs.getString("body_content")),
+                        lastId, batchSize);
+                if (rows.isEmpty()) break;
+
+                transactionTemplate.executeWithoutResult(status -> migrateBatch(rows));
+                migrated += rows.size();
+                lastId = rows.get(rows.size() - 1).id();
+            }
+            if (migrated > 0) {
+                log.info("Moved payloads of {} history rows into blob storage", migrated);
+            }
+        } catch (Exception e) {
+            log.error("History blob migration stopped after {} rows (last id {}); it resumes on next startup", migrated, lastId, e);
+        }
+    }
+
+    private void migrateBatch(List<LegacyRow> rows) {
+        Map<String, String> contentByHash = new HashMap<>();
+        Map<String, Integer> references = new HashMap<>();
+        String[][] hashes = new String[rows.size()][];
+        for (int i = 0; i < rows.size(); i++) {
+            LegacyRow row = rows.get(i);
+            hashes[i] = new String[] {
+                    HistoryBlobStore.reference(row.headers(), contentByHash, references),
+                    HistoryBlobStore.reference(row.queryParams(), contentByHash, references),
+                    HistoryBlobStore.reference(row.bodyContent(), contentByHash, references)
+            };
+        }
+        blobStore.retain(contentByHash, references);
+
+        jdbcTemplate.batchUpdate(UPDATE_SQL, IntStream.range(0, rows.size()).boxed().toList(), rows.size(), (ps, i) -> {
+            ps.setString(1, hashes[i][0]);
+            ps.setString(2, hashes[i][1]);
+            ps.setString(3, hashes[i][2]);
+            ps.setLong(4, rows.get(i).id());
+        });
+    }
+}
@@ -0,0 +1,275 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.core.domain.ApiRequestHistory;
+import com.apicollab.platform.core.domain.HistoryBlob;
+import com.apicollab.platform.core.repository.HistoryBlobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deduplicated storage for history headers, query params and bodies. Each
+ * distinct payload is stored once under its SHA-256, deflated when that pays
+ * off, and reference-counted by the rows that point at it; unreferenced blobs
+ * are garbage-collected in the background.
+ * <p>
+ * Writes go through plain JDBC so the write-behind writer can retain blobs in
+ * the same transaction as its batch insert.
+ */
+@Component
+@Slf4j
+public class HistoryBlobStore {
+
+    private static final String ADD_REFS_SQL = "UPDATE history_blobs SET ref_count = ref_count + ? WHERE hash = ?";
+
+    private static final String UPSERT_SQL = "INSERT INTO history_blobs " +
+            "(hash, compression, data, original_size, stored_size, ref_count, created_at) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + VALUES(ref_count)";
+
+    private static final String GC_SQL = "DELETE FROM history_blobs WHERE ref_count <= 0 LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HistoryBlobRepository blobRepository;
+    private final int compressionThreshold;
+    private final int gcBatchSize;
+
+    // Hashes recently seen in the table; lets repeats skip compression and go straight to a ref-count bump
+    private final Set<String> knownHashes;
+
+    public HistoryBlobStore(
+            JdbcTemplate jdbcTemplate,
+            HistoryBlobRepository blobRepository,
+            @Value("${application.history.blobs.compression-threshold-bytes:256}") int compressionThreshold,
+            @Value("${application.history.blobs.known-hash-cache-size:20000}") int knownHashCacheSize,
+            @Value("${application.history.blobs.gc-batch-size:1000}") int gcBatchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blobRepository = blobRepository;
+        this.compressionThreshold = compressionThreshold;
+        this.gcBatchSize = gcBatchSize;
+        this.knownHashes = Collections.newSetFromMap(Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > knownHashCacheSize;
+            }
+        }));
+    }
+
+    public record Stats(long blobs, long originalBytes, long storedBytes) {}
+
+    public static String hashOf(String content) {
+        if (content == null) return null;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Hashes {@code content} and counts one reference to it, collecting what a
+     * later {@link #retain} call needs. Returns the hash, or null for null content.
+     */
+    public static String reference(String content, Map<String, String> contentByHash, Map<String, Integer> references) {
+        String hash = hashOf(content);
+        if (hash != null) {
+            contentByHash.putIfAbsent(hash, content);
+            references.merge(hash, 1, Integer::sum);
+        }
+        return hash;
+    }
+
+    /**
+     * Adds {@code references.get(hash)} references to each blob, creating the
+     * ones that do not exist yet from {@code contentByHash}. Must run inside the
+     * caller's transaction so references and rows commit together.
+     */
+    public void retain(Map<String, String> contentByHash, Map<String, Integer> references) {
+        if (references.isEmpty()) return;
+
+        List<String> missing = new ArrayList<>();
+        List<String> known = new ArrayList<>();
+        for (String hash : references.keySet()) {
+            (knownHashes.contains(hash) ? known : missing).add(hash);
+        }
+
+        if (!known.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate(ADD_REFS_SQL, known, known.size(), (ps, hash) -> {
+                ps.setInt(1, references.get(hash));
+                ps.setString(2, hash);
+            })[0];
+            for (int i = 0; i < known.size(); i++) {
+                // Collected since we saw it (or the driver cannot report counts): fall back to an upsert
+                if (updated[i] == 0 || updated[i] == Statement.SUCCESS_NO_INFO && !exists(known.get(i))) {
+                    missing.add(known.get(i));
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(UPSERT_SQL, missing, missing.size(), (ps, hash) -> {
+                byte[] raw = contentByHash.get(hash).getBytes(StandardCharsets.UTF_8);
+                byte[] deflated = raw.length >= compressionThreshold ? deflate(raw) : null;
+                boolean compress = deflated != null && deflated.length < raw.length;
+                byte[] stored = compress ? deflated : raw;
+                ps.setString(1, hash);
+                ps.setString(2, (compress ? HistoryBlob.Compression.DEFLATE : HistoryBlob.Compression.NONE).name());
+                ps.setBytes(3, stored);
+                ps.setInt(4, raw.length);
+                ps.setInt(5, stored.length);
+                ps.setInt(6, references.get(hash));
+                ps.setTimestamp(7, now);
+            });
+        }
+        knownHashes.addAll(references.keySet());
+    }
+
+    /**
+     * Drops references held by deleted rows; blobs reaching zero are removed by {@link #collectGarbage()}.
+     */
+    public void release(Collection<String> hashes) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String hash : hashes) {
+            if (hash != null) counts.merge(hash, 1, Integer::sum);
+        }
+        if (counts.isEmpty()) return;
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        jdbcTemplate.batchUpdate(ADD_REFS_SQL, entries, entries.size(), (ps, e) -> {
+            ps.setInt(1, -e.getValue());
+            ps.setString(2, e.getKey());
+        });
+    }
+
+    /**
+     * Fills the transient headers/queryParams/bodyContent of the given rows
+     * with one lookup for all referenced blobs; rows not yet migrated keep
+     * their inline values.
+     */
+    public void resolve(List<ApiRequestHistory> rows) {
+        Set<String> hashes = new HashSet<>();
+        for (ApiRequestHistory row : rows) {
+            if (row.getHeadersHash() != null) hashes.add(row.getHeadersHash());
+            if (row.getQueryParamsHash() != null) hashes.add(row.getQueryParamsHash());
+            if (row.getBodyHash() != null) hashes.add(row.getBodyHash());
+        }
+        Map<String, String> contents = load(hashes);
+        for (ApiRequestHistory row : rows) {
+            row.setHeaders(pick(row.getHeadersHash(), contents, row.getLegacyHeaders()));
+            row.setQueryParams(pick(row.getQueryParamsHash(), contents, row.getLegacyQueryParams()));
+            row.setBodyContent(pick(row.getBodyHash(), contents, row.getLegacyBodyContent()));
+        }
+    }
+
+    /**
+     * Decompressed contents of the given blobs keyed by hash; missing blobs are absent.
+     */
+    public Map<String, String> load(Collection<String> hashes) {
+        Map<String, String> contents = new HashMap<>();
+        if (!hashes.isEmpty()) {
+            for (HistoryBlob blob : blobRepository.findAllById(hashes)) {
+                contents.put(blob.getHash(), read(blob));
+            }
+        }
+        return contents;
+    }
+
+    public Stats getStats() {
+        return new Stats(blobRepository.count(), blobRepository.sumOriginalSize(), blobRepository.sumStoredSize());
+    }
+
+    @Scheduled(fixedDelayString = "${application.history.blobs.gc-interval-ms:300000}")
+    public void collectGarbage() {
+        int deleted;
+        int total = 0;
+        do {
+            deleted = jdbcTemplate.update(GC_SQL, gcBatchSize);
+            total += deleted;
+        } while (deleted == gcBatchSize);
+        if (total > 0) {
+            knownHashes.clear();
+            log.info("Removed {} unreferenced history blobs", total);
+        }
+    }
+
+    private boolean exists(String hash) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM history_blobs WHERE hash = ?", Integer.class, hash);
+        return count != null && count > 0;
+    }
+
+    private static String pick(String hash, Map<String, String> contents, String legacy) {
+        if (hash == null) return legacy;
+        String content = contents.get(hash);
+        if (content == null) {
+            log.warn("History blob {} is missing", hash);
+        }
+        return content;
+    }
+
+    private static String read(HistoryBlob blob) {
+        byte[] raw = blob.getCompression() == HistoryBlob.Compression.DEFLATE
+                ? inflate(blob.getData(), blob.getOriginalSize())
+                : blob.getData();
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int originalSize) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] raw = new byte[originalSize];
+            int read = 0;
+            while (read < originalSize && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, originalSize - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                read += n;
+            }
+            if (read != originalSize) throw new IllegalStateException("Corrupt history blob");
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt history blob", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.common.SecurityUtils;
+import com.apicollab.platform.core.domain.HistoryRetentionPolicy;
+import com.apicollab.platform.core.domain.Workspace;
+import com.apicollab.platform.core.repository.HistoryRetentionPolicyRepository;
+import com.apicollab.platform.core.repository.WorkspaceRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Applies history retention per workspace: rows older than the max age, and
+ * each user's rows beyond the newest N, are removed in small batches (each its
+ * own short transaction, with a pause in between) so compaction never holds
+ * long locks on {@code api_request_history}. Removed rows can first be
+ * archived to gzip-compressed JSON lines on local disk; their blob references
+ * are released in the same transaction as the delete.
+ */
+@Service
+@Slf4j
+public class HistoryRetentionService {
+
+    private static final String COLUMNS = "id, workspace_id, user_id, api_definition_id, method, url, headers_hash, " +
+            "query_params_hash, body_type, body_hash, executed_at, response_status, total_ms, dns_ms, connect_ms, " +
+            "tls_ms, ttfb_ms, download_ms, response_bytes, headers, query_params, body_content";
+
+    // Inline payload columns of rows that HistoryBlobMigration has not converted yet
+    private static final Set<String> LEGACY_COLUMNS = Set.of("headers", "query_params", "body_content");
+
+    private static final DateTimeFormatter ARCHIVE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final HistoryRetentionPolicyRepository policyRepository;
+    private final WorkspaceRepository workspaceRepository;
+    private final HistoryBlobStore blobStore;
+    private final SearchService searchService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Integer defaultMaxAgeDays;
+    private final Integer defaultMaxRowsPerUser;
+    private final boolean defaultArchive;
+    private final Path archiveDir;
+    private final int batchSize;
+    private final long pauseMs;
+
+    public HistoryRetentionService(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            HistoryRetentionPolicyRepository policyRepository,
+            WorkspaceRepository workspaceRepository,
+            HistoryBlobStore blobStore,
+            SearchService searchService,
+            @Value("${application.history.retention.default-max-age-days:90}") int defaultMaxAgeDays,
+            @Value("${application.history.retention.default-max-rows-per-user:1000}") int defaultMaxRowsPerUser,
+            @Value("${application.history.retention.default-archive:true}") boolean defaultArchive,
+            @Value("${application.history.retention.archive-dir:data/history-archive}") String archiveDir,
+            @Value("${application.history.retention.batch-size:500}") int batchSize,
+            @Value("${application.history.retention.pause-ms:50}") long pauseMs
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.policyRepository = policyRepository;
+        this.workspaceRepository = workspaceRepository;
+        this.blobStore = blobStore;
+        this.searchService = searchService;
+        this.defaultMaxAgeDays = defaultMaxAgeDays > 0 ? defaultMaxAgeDays : null;
+        this.defaultMaxRowsPerUser = defaultMaxRowsPerUser > 0 ? defaultMaxRowsPerUser : null;
+        this.defaultArchive = defaultArchive;
+        this.archiveDir = Paths.get(archiveDir);
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+    }
+
+    @Data
+    public static class PolicyRequest {
+        private Integer maxAgeDays;
+        private Integer maxRowsPerUser;
+        private boolean archiveBeforeDelete = true;
+    }
+
+    @Data
+    public static class CompactionReport {
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private int workspaces;
+        private long deletedByAge;
+        private long deletedByRowLimit;
+        private long archived;
+        private List<String> archiveFiles = new ArrayList<>();
+    }
+
+    private volatile CompactionReport lastReport;
+
+    public HistoryRetentionPolicy getEffectivePolicy(Long workspaceId) {
+        return policyRepository.findByWorkspaceId(workspaceId).orElseGet(() -> HistoryRetentionPolicy.builder()
+                .workspaceId(workspaceId)
+                .maxAgeDays(defaultMaxAgeDays)
+                .maxRowsPerUser(defaultMaxRowsPerUser)
+                .archiveBeforeDelete(defaultArchive)
+                .build());
+    }
+
+    public HistoryRetentionPolicy updatePolicy(Long workspaceId, PolicyRequest request) {
+        Workspace workspace = workspaceRepository.findById(workspaceId)
+                .orElseThrow(() -> new RuntimeException("Workspace not found"));
+        if (!workspace.getOwner().getUsername().equals(SecurityUtils.getCurrentUsername())) {
+            throw new RuntimeException("Only the workspace owner can change history retention");
+        }
+        if (!positiveOrNull(request.getMaxAgeDays()) || !positiveOrNull(request.getMaxRowsPerUser())) {
+            throw new RuntimeException("Retention limits must be positive, or empty to keep everything");
+        }
+        HistoryRetentionPolicy policy = policyRepository.findByWorkspaceId(workspaceId)
+                .orElseGet(() -> HistoryRetentionPolicy.builder().workspaceId(workspaceId).build());
+        policy.setMaxAgeDays(request.getMaxAgeDays());
+        policy.setMaxRowsPerUser(request.getMaxRowsPerUser());
+        policy.setArchiveBeforeDelete(request.isArchiveBeforeDelete());
+        return policyRepository.save(policy);
+    }
+
+    public CompactionReport getLastReport() {
+        return lastReport;
+    }
+
+    @Scheduled(initialDelayString = "${application.history.retention.initial-delay-ms:60000}",
+               fixedDelayString = "${application.history.retention.interval-ms:3600000}")
+    public void scheduledCompaction() {
+        // The pass pauses between batches; keep it off the shared scheduler thread
+        if (!running.get()) {
+            Thread.ofVirtual().name("history-compaction").start(this::compact);
+        }
+    }
+
+    /**
+     * Runs one compaction pass over every workspace with history; returns
+     * null if a pass is already in progress.
+     */
+    public CompactionReport compact() {
+        if (!running.compareAndSet(false, true)) return null;
+        CompactionReport report = new CompactionReport();
+        report.setStartedAt(LocalDateTime.now());
+        try {
+            List<Long> workspaceIds = jdbcTemplate.queryForList("SELECT DISTINCT workspace_id FROM api_request_history", Long.class);
+            for (Long workspaceId : workspaceIds) {
+                compactWorkspace(getEffectivePolicy(workspaceId), report);
+                report.setWorkspaces(report.getWorkspaces() + 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("History compaction failed", e);
+        } finally {
+            report.setFinishedAt(LocalDateTime.now());
+            lastReport = report;
+            running.set(false);
+        }
+        if (report.getDeletedByAge() + report.getDeletedByRowLimit() > 0) {
+            log.info("History compaction removed {} rows by age and {} by row limit across {} workspaces ({} archived)",
+                    report.getDeletedByAge(), report.getDeletedByRowLimit(), report.getWorkspaces(), report.getArchived());
+        }
+        return report;
+    }
+
+    private void compactWorkspace(HistoryRetentionPolicy policy, CompactionReport report) throws InterruptedException {
+        Long workspaceId = policy.getWorkspaceId();
+        Archive archive = policy.isArchiveBeforeDelete() ? new Archive(workspaceId) : null;
+        try {
+            if (policy.getMaxAgeDays() != null) {
+                Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(policy.getMaxAgeDays()));
+                report.setDeletedByAge(report.getDeletedByAge() + deleteOlderThan(workspaceId, null, cutoff, archive));
+            }
+            if (policy.getMaxRowsPerUser() != null) {
+                List<Long> userIds = jdbcTemplate.queryForList(
+                        "SELECT user_id FROM api_request_history WHERE workspace_id = ? GROUP BY user_id HAVING COUNT(*) > ?",
+                        Long.class, workspaceId, policy.getMaxRowsPerUser());
+                for (Long userId : userIds) {
+                    // executed_at of the user's N-th newest row; everything older goes
+                    List<Timestamp> nth = jdbcTemplate.queryForList(
+                            "SELECT executed_at FROM api_request_history WHERE workspace_id = ? AND user_id = ? " +
+                            "ORDER BY executed_at DESC LIMIT 1 OFFSET ?",
+                            Timestamp.class, workspaceId, userId, policy.getMaxRowsPerUser() - 1);
+                    if (!nth.isEmpty()) {
+                        report.setDeletedByRowLimit(report.getDeletedByRowLimit() + deleteOlderThan(workspaceId, userId, nth.get(0), archive));
+                    }
+                }
+            }
+        } finally {
+            if (archive != null && archive.close()) {
+                report.setArchived(report.getArchived() + archive.rows);
+                report.getArchiveFiles().add(archive.file.toString());
+            }
+        }
+    }
+
+    private long deleteOlderThan(Long workspaceId, Long userId, Timestamp cutoff, Archive archive) throws InterruptedException {
+        String sql = "SELECT " + COLUMNS + " FROM api_request_history WHERE workspace_id = ?" +
+                (userId != null ? " AND user_id = ?" : "") + " AND executed_at < ? ORDER BY executed_at LIMIT ?";
+        Object[] args = userId != null
+                ? new Object[] {workspaceId, userId, cutoff, batchSize}
+                : new Object[] {workspaceId, cutoff, batchSize};
+
+        long deleted = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, args);
+            if (rows.isEmpty()) return deleted;
+
+            if (archive != null) archive.write(rows);
+
+            List<Object> ids = rows.stream().map(r -> r.get("id")).toList();
+            List<String> hashes = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                hashes.add((String) row.get("headers_hash"));
+                hashes.add((String) row.get("query_params_hash"));
+                hashes.add((String) row.get("body_hash"));
+            }
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM api_request_history WHERE id IN (" + placeholders + ")", ids.toArray());
+                blobStore.release(hashes);
+            });
+            searchService.removeHistory(ids.stream().map(id -> ((Number) id).longValue()).toList());
+            deleted += rows.size();
+
+            if (rows.size() < batchSize) return deleted;
+            Thread.sleep(pauseMs); // let foreground writes through between batches
+        }
+    }
+
+    private static boolean positiveOrNull(Integer value) {
+        return value == null || value > 0;
+    }
+
+    // Blob content by hash, or the legacy inline column for rows not migrated yet
+    private static String payload(Map<String, Object> row, String column, Map<String, String> contents) {
+        Object hash = row.get(column + "_hash");
+        if (hash != null) return contents.get(hash);
+        return (String) row.get(column.equals("body") ? "body_content" : column);
+    }
+
+    /**
+     * One gzip-compressed JSON-lines file per workspace and compaction pass,
+     * created lazily on the first archived row. Payloads are inlined so the
+     * archive stays readable after their blobs are collected.
+     */
+    private class Archive {
+        final Path file;
+        OutputStream out;
+        long rows;
+
+        Archive(Long workspaceId) {
+            this.file = archiveDir.resolve("workspace-" + workspaceId)
+                    .resolve("history-" + LocalDateTime.now().format(ARCHIVE_STAMP) + ".jsonl.gz");
+        }
+
+        void write(List<Map<String, Object>> batch) {
+            Set<String> hashes = new HashSet<>();
+            for (Map<String, Object> row : batch) {
+                for (String column : List.of("headers_hash", "query_params_hash", "body_hash")) {
+                    if (row.get(column) != null) hashes.add((String) row.get(column));
+                }
+            }
+            Map<String, String> contents = blobStore.load(hashes);
+            try {
+                if (out == null) {
+                    Files.createDirectories(file.getParent());
+                    out = new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024);
+                }
+                for (Map<String, Object> row : batch) {
+                    Map<String, Object> record = new LinkedHashMap<>();
+                    row.forEach((column, value) -> {
+                        if (LEGACY_COLUMNS.contains(column.toLowerCase())) return;
+                        if (column.endsWith("_hash")) {
+                            String name = column.substring(0, column.length() - "_hash".length());
+                            record.put(name, payload(row, name, contents));
+                        } else {
+                            record.put(column, value instanceof Timestamp ts ? ts.toLocalDateTime().toString() : value);
+                        }
+                    });
+                    out.write(objectMapper.writeValueAsString(record).getBytes(StandardCharsets.UTF_8));
+                    out.write('\n');
+                }
+                out.flush();
+                rows += batch.size();
+            } catch (IOException e) {
+                // Never delete what could not be archived
+                throw new UncheckedIOException("Failed to archive history to " + file, e);
+            }
+        }
+
+        boolean close() {
+            if (out == null) return false;
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.warn("Failed to close history archive {}", file, e);
+            }
+            return true;
+        }
+    }
+}
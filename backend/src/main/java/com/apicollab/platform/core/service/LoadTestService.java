@@ -0,0 +1,365 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.auth.domain.User;
+import com.apicollab.platform.common.InvalidRequestException;
+import com.apicollab.platform.common.LatencyHistogram;
+import com.apicollab.platform.common.SecurityUtils;
+import com.apicollab.platform.core.domain.ApiTestCase;
+import com.apicollab.platform.core.domain.LoadTestRun;
+import com.apicollab.platform.core.repository.ApiTestCaseRepository;
+import com.apicollab.platform.core.repository.LoadTestRunRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generation for a saved test case through {@link ProxyService}, behind
+ * the background bulkhead of {@link ProxyExecutor}: a load test cannot take the
+ * connections interactive proxy calls need, and time spent waiting for a slot
+ * counts as latency like any other client-side queueing.
+ * <p>
+ * RATE mode is an open model: request i is due at {@code start + i/rate} and
+ * its latency is measured from that intended time, so a stalled upstream
+ * shows up in the percentiles instead of silently lowering the send rate.
+ * CONCURRENCY mode is a closed loop; pass {@code expectedIntervalMs} to
+ * back-fill the samples a stall would otherwise hide.
+ */
+@Service
+@Slf4j
+public class LoadTestService {
+
+    private final LoadTestRunRepository runRepository;
+    private final ApiTestCaseRepository testCaseRepository;
+    private final ProxyService proxyService;
+    private final ProxyExecutor proxyExecutor;
+    private final TestCaseRequestMapper requestMapper;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Long, ActiveRun> active = new ConcurrentHashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final int maxDurationSeconds;
+    private final double maxRate;
+    private final int maxConcurrency;
+    private final int maxInFlight;
+    private final int maxParallelRuns;
+
+    public LoadTestService(
+            LoadTestRunRepository runRepository,
+            ApiTestCaseRepository testCaseRepository,
+            ProxyService proxyService,
+            ProxyExecutor proxyExecutor,
+            TestCaseRequestMapper requestMapper,
+            SimpMessagingTemplate messagingTemplate,
+            @Value("${application.load-test.max-duration-seconds:600}") int maxDurationSeconds,
+            @Value("${application.load-test.max-rate:5000}") double maxRate,
+            @Value("${application.load-test.max-concurrency:500}") int maxConcurrency,
+            @Value("${application.load-test.max-in-flight:2000}") int maxInFlight,
+            @Value("${application.load-test.max-parallel-runs:4}") int maxParallelRuns
+    ) {
+        this.runRepository = runRepository;
+        this.testCaseRepository = testCaseRepository;
+        this.proxyService = proxyService;
+        this.proxyExecutor = proxyExecutor;
+        this.requestMapper = requestMapper;
+        this.messagingTemplate = messagingTemplate;
+        this.maxDurationSeconds = maxDurationSeconds;
+        this.maxRate = maxRate;
+        this.maxConcurrency = maxConcurrency;
+        this.maxInFlight = maxInFlight;
+        this.maxParallelRuns = maxParallelRuns;
+    }
+
+    @Data
+    public static class LoadTestRequest {
+        private Long testCaseId;
+        private Long environmentId;
+        private LoadTestRun.Mode mode = LoadTestRun.Mode.RATE;
+        private double ratePerSecond = 10;
+        private int concurrency = 10;
+        private int durationSeconds = 30;
+        private long expectedIntervalMs; // CONCURRENCY mode only, 0 = no correction
+    }
+
+    @Data
+    public static class Comparison {
+        private LoadTestRun baseline;
+        private LoadTestRun candidate;
+        private Map<String, Double> changePercent; // per metric, positive = candidate is higher
+    }
+
+    private static class ActiveRun {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        final LongAdder completed = new LongAdder();
+        volatile boolean cancelled;
+    }
+
+    public LoadTestRun start(LoadTestRequest request) {
+        ApiTestCase testCase = testCaseRepository.findById(request.getTestCaseId())
+                .orElseThrow(() -> new RuntimeException("Test case not found"));
+        User user = SecurityUtils.getCurrentUser();
+
+        if (request.getMode() == null) {
+            throw new InvalidRequestException("mode must be RATE or CONCURRENCY");
+        }
+        if (request.getDurationSeconds() <= 0 || request.getDurationSeconds() > maxDurationSeconds) {
+            throw new InvalidRequestException("durationSeconds must be between 1 and " + maxDurationSeconds);
+        }
+        if (request.getMode() == LoadTestRun.Mode.RATE && (request.getRatePerSecond() <= 0 || request.getRatePerSecond() > maxRate)) {
+            throw new InvalidRequestException("ratePerSecond must be greater than 0 and at most " + maxRate);
+        }
+        if (request.getMode() == LoadTestRun.Mode.CONCURRENCY && (request.getConcurrency() <= 0 || request.getConcurrency() > maxConcurrency)) {
+            throw new InvalidRequestException("concurrency must be between 1 and " + maxConcurrency);
+        }
+
+        ProxyService.ProxyRequest template;
+        try {
+            template = requestMapper.toProxyRequest(testCase, request.getEnvironmentId());
+        } catch (Exception e) {
+            throw new InvalidRequestException("Test case content is not a valid request: " + e.getMessage());
+        }
+
+        if (running.incrementAndGet() > maxParallelRuns) {
+            running.decrementAndGet();
+            throw new RuntimeException("Too many load tests running, try again later");
+        }
+
+        // From here execute() owns the slot; until then, a failure must give it back
+        boolean started = false;
+        try {
+            LoadTestRun run = runRepository.save(LoadTestRun.builder()
+                    .testCase(testCase)
+                    .startedBy(user)
+                    .environmentId(request.getEnvironmentId())
+                    .mode(request.getMode())
+                    .targetRate(request.getMode() == LoadTestRun.Mode.RATE ? request.getRatePerSecond() : null)
+                    .concurrency(request.getMode() == LoadTestRun.Mode.CONCURRENCY ? request.getConcurrency() : null)
+                    .durationSeconds(request.getDurationSeconds())
+                    .status(LoadTestRun.Status.RUNNING)
+                    .build());
+
+            ActiveRun state = new ActiveRun();
+            active.put(run.getId(), state);
+            try {
+                executor.execute(() -> execute(run, state, template, request));
+            } catch (RuntimeException e) {
+                active.remove(run.getId());
+                throw e;
+            }
+            started = true;
+            return run;
+        } finally {
+            if (!started) running.decrementAndGet();
+        }
+    }
+
+    public LoadTestRun getRun(Long id) {
+        return runRepository.findById(id).orElseThrow(() -> new RuntimeException("Load test run not found"));
+    }
+
+    public List<LoadTestRun> getRunsForTestCase(Long testCaseId) {
+        return runRepository.findByTestCaseIdOrderByStartedAtDesc(testCaseId);
+    }
+
+    public void cancel(Long id) {
+        ActiveRun state = active.get(id);
+        if (state != null) state.cancelled = true;
+    }
+
+    public Comparison compare(Long baselineId, Long candidateId) {
+        LoadTestRun baseline = getRun(baselineId);
+        LoadTestRun candidate = getRun(candidateId);
+
+        Map<String, Double> change = new LinkedHashMap<>();
+        change.put("p50", percentChange(baseline.getP50Micros(), candidate.getP50Micros()));
+        change.put("p90", percentChange(baseline.getP90Micros(), candidate.getP90Micros()));
+        change.put("p99", percentChange(baseline.getP99Micros(), candidate.getP99Micros()));
+        change.put("p999", percentChange(baseline.getP999Micros(), candidate.getP999Micros()));
+        change.put("max", percentChange(baseline.getMaxMicros(), candidate.getMaxMicros()));
+        change.put("throughput", percentChange(baseline.getThroughput(), candidate.getThroughput()));
+        change.put("errorRate", percentChange(errorRate(baseline), errorRate(candidate)));
+
+        Comparison comparison = new Comparison();
+        comparison.setBaseline(baseline);
+        comparison.setCandidate(candidate);
+        comparison.setChangePercent(change);
+        return comparison;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        active.values().forEach(r -> r.cancelled = true);
+        executor.shutdownNow();
+    }
+
+    private void execute(LoadTestRun run, ActiveRun state, ProxyService.ProxyRequest template, LoadTestRequest request) {
+        String topic = "/topic/load-tests/" + run.getId();
+        long start = System.nanoTime();
+        long end = start + request.getDurationSeconds() * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(() -> reportProgress(topic, state, start, done));
+
+        LoadTestRun.Status status = LoadTestRun.Status.COMPLETED;
+        try {
+            if (request.getMode() == LoadTestRun.Mode.RATE) {
+                driveRate(state, template, request.getRatePerSecond(), start, end);
+            } else {
+                driveConcurrency(state, template, request.getConcurrency(), request.getExpectedIntervalMs() * 1000, end);
+            }
+            if (state.cancelled) status = LoadTestRun.Status.CANCELLED;
+        } catch (InterruptedException e) {
+            status = LoadTestRun.Status.CANCELLED;
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Load test {} failed: {}", run.getId(), e.getMessage());
+            status = LoadTestRun.Status.FAILED;
+        } finally {
+            done.countDown();
+            active.remove(run.getId());
+            running.decrementAndGet();
+        }
+
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        finish(run, state, status, elapsedSeconds);
+        messagingTemplate.convertAndSend(topic, Map.of("type", "LOAD_TEST_FINISHED", "run", run));
+    }
+
+    private void driveRate(ActiveRun state, ProxyService.ProxyRequest template, double rate,
+                           long start, long end) throws InterruptedException {
+        double intervalNanos = 1_000_000_000L / rate;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        for (long i = 0; !state.cancelled; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) break;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // If we fall behind, sends go out back-to-back; their latency still counts from 'intended'
+            inFlight.acquire();
+            executor.execute(() -> {
+                try {
+                    send(state, template, intended, 0);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        inFlight.acquire(maxInFlight);
+    }
+
+    private void driveConcurrency(ActiveRun state, ProxyService.ProxyRequest template, int workers,
+                                  long expectedIntervalMicros, long end) throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(workers);
+        for (int w = 0; w < workers; w++) {
+            executor.execute(() -> {
+                try {
+                    while (!state.cancelled && System.nanoTime() < end) {
+                        send(state, template, System.nanoTime(), expectedIntervalMicros);
+                    }
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        finished.await();
+    }
+
+    private void send(ActiveRun state, ProxyService.ProxyRequest template, long intendedStart, long expectedIntervalMicros) {
+        String error = null;
+        try {
+            ProxyService.ProxyResponse response = proxyExecutor.runBackground(() -> proxyService.execute(TestCaseRequestMapper.copyOf(template)));
+            if (response.getStatus() >= 400) {
+                error = response.getStatus() == 500 && response.getHeaders() == null
+                        ? "TRANSPORT_ERROR" : "HTTP " + response.getStatus();
+            }
+        } catch (Exception e) {
+            error = e.getClass().getSimpleName();
+        }
+        long latencyMicros = (System.nanoTime() - intendedStart) / 1000;
+        state.histogram.recordWithExpectedInterval(latencyMicros, expectedIntervalMicros);
+        state.completed.increment();
+        if (error != null) {
+            state.errors.computeIfAbsent(error, k -> new LongAdder()).increment();
+        }
+    }
+
+    private void reportProgress(String topic, ActiveRun state, long start, CountDownLatch done) {
+        try {
+            while (!done.await(1, TimeUnit.SECONDS)) {
+                double elapsed = (System.nanoTime() - start) / 1e9;
+                long completed = state.completed.sum();
+                Map<String, Object> progress = new LinkedHashMap<>();
+                progress.put("type", "LOAD_TEST_PROGRESS");
+                progress.put("elapsedSeconds", elapsed);
+                progress.put("completed", completed);
+                progress.put("throughput", elapsed > 0 ? completed / elapsed : 0);
+                progress.put("p50Micros", state.histogram.getValueAtPercentile(50));
+                progress.put("p99Micros", state.histogram.getValueAtPercentile(99));
+                progress.put("errors", errorCounts(state));
+                messagingTemplate.convertAndSend(topic, progress);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void finish(LoadTestRun run, ActiveRun state, LoadTestRun.Status status, double elapsedSeconds) {
+        LatencyHistogram h = state.histogram;
+        Map<String, Long> errors = errorCounts(state);
+        run.setStatus(status);
+        run.setFinishedAt(LocalDateTime.now());
+        run.setTotalRequests(state.completed.sum());
+        run.setErrorCount(errors.values().stream().mapToLong(Long::longValue).sum());
+        run.setThroughput(elapsedSeconds > 0 ? state.completed.sum() / elapsedSeconds : 0);
+        run.setP50Micros(h.getValueAtPercentile(50));
+        run.setP90Micros(h.getValueAtPercentile(90));
+        run.setP99Micros(h.getValueAtPercentile(99));
+        run.setP999Micros(h.getValueAtPercentile(99.9));
+        run.setMaxMicros(h.getMax());
+        run.setMeanMicros(h.getMean());
+        try {
+            run.setErrorBreakdown(objectMapper.writeValueAsString(errors));
+            run.setHistogram(objectMapper.writeValueAsString(h.toBuckets()));
+        } catch (Exception e) {
+            log.warn("Failed to serialize load test {} results: {}", run.getId(), e.getMessage());
+        }
+        runRepository.save(run);
+    }
+
+    private static Map<String, Long> errorCounts(ActiveRun state) {
+        Map<String, Long> counts = new TreeMap<>();
+        state.errors.forEach((k, v) -> counts.put(k, v.sum()));
+        return counts;
+    }
+
+    private static double errorRate(LoadTestRun run) {
+        return run.getTotalRequests() == 0 ? 0 : (double) run.getErrorCount() / run.getTotalRequests();
+    }
+
+    private static Double percentChange(double baseline, double candidate) {
+        if (baseline == 0) return candidate == 0 ? 0.0 : null;
+        return (candidate - baseline) / baseline * 100.0;
+    }
+}
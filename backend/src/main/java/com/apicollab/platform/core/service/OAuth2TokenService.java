@@ -1,27 +1,73 @@
 package com.apicollab.platform.core.service;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.annotation.PreDestroy;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
-import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * OAuth2 client-credentials token cache.
+ * <p>
+ * Loads are single-flight per key, hot tokens are refreshed in the background
+ * at a jittered point before expiry, and failures are cached with exponential
+ * backoff so a broken token endpoint is not hammered by every proxy call.
+ */
 @Service
 @Slf4j
 public class OAuth2TokenService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final Map<String, TokenCache> tokenCache = new ConcurrentHashMap<>();
+    private static final double REFRESH_AT_FRACTION = 0.75;
+    private static final double REFRESH_JITTER_FRACTION = 0.10;
+    private static final Duration EXPIRY_BUFFER = Duration.ofSeconds(30);
+
+    private final RestTemplate restTemplate;
+    private final Map<CacheKey, CachedToken> tokenCache = new ConcurrentHashMap<>();
+    private final Map<CacheKey, CompletableFuture<CachedToken>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int maxEntries;
+    private final Duration idleTtl;
+    private final Duration failureBackoff;
+    private final Duration maxFailureBackoff;
+
+    public OAuth2TokenService(
+            RestTemplate proxyRestTemplate,
+            @Value("${application.oauth2.cache.max-entries:1000}") int maxEntries,
+            @Value("${application.oauth2.cache.idle-ttl-minutes:60}") long idleTtlMinutes,
+            @Value("${application.oauth2.cache.failure-backoff-ms:1000}") long failureBackoffMs,
+            @Value("${application.oauth2.cache.max-failure-backoff-ms:60000}") long maxFailureBackoffMs
+    ) {
+        this.restTemplate = proxyRestTemplate;
+        this.maxEntries = maxEntries;
+        this.idleTtl = Duration.ofMinutes(idleTtlMinutes);
+        this.failureBackoff = Duration.ofMillis(failureBackoffMs);
+        this.maxFailureBackoff = Duration.ofMillis(maxFailureBackoffMs);
+    }
 
     @Data
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -41,30 +87,142 @@ public class OAuth2TokenService {
         private String token_type;
     }
 
-    @Data
-    private static class TokenCache {
-        private String token;
-        private LocalDateTime expiresAt;
+    /**
+     * Identifies a token by where and for whom it was issued. The secret is
+     * hashed in so an environment with a wrong secret never receives a token
+     * obtained with the right one.
+     */
+    private record CacheKey(String tokenUrl, String clientId, String scope, String grantType, String secretHash) {
+        static CacheKey of(OAuth2Config config) {
+            return new CacheKey(
+                    config.getTokenUrl(),
+                    config.getClientId(),
+                    config.getScope() != null ? config.getScope() : "",
+                    grantTypeOf(config),
+                    sha256(config.getClientSecret()));
+        }
+
+        @Override
+        public String toString() {
+            return clientId + "@" + tokenUrl + (scope.isEmpty() ? "" : " [" + scope + "]");
+        }
     }
 
-    public String getToken(String configKey, OAuth2Config config) {
-        // 1. Check Cache
-        if (tokenCache.containsKey(configKey)) {
-            TokenCache cache = tokenCache.get(configKey);
-            if (cache.getExpiresAt().isAfter(LocalDateTime.now().plusSeconds(30))) { // Buffer
-                log.info("Using cached token for {}", configKey);
-                return cache.getToken();
+    private static class CachedToken {
+        final OAuth2Config config;
+        final String token;
+        final Instant expiresAt;
+        final Instant refreshAt;
+        final RuntimeException failure;
+        final int failures;
+        final Instant retryAt;
+        volatile Instant lastAccess = Instant.now();
+
+        private CachedToken(OAuth2Config config, String token, Instant expiresAt, Instant refreshAt,
+                            RuntimeException failure, int failures, Instant retryAt) {
+            this.config = config;
+            this.token = token;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+            this.failure = failure;
+            this.failures = failures;
+            this.retryAt = retryAt;
+        }
+
+        boolean isUsable(Instant now) {
+            return token != null && now.isBefore(expiresAt.minus(EXPIRY_BUFFER));
+        }
+
+        boolean needsRefresh(Instant now) {
+            return now.isAfter(refreshAt) && (retryAt == null || now.isAfter(retryAt));
+        }
+    }
+
+    public String getToken(OAuth2Config config) {
+        CacheKey key = CacheKey.of(config);
+        Instant now = Instant.now();
+        CachedToken cached = tokenCache.get(key);
+
+        if (cached != null) {
+            cached.lastAccess = now;
+            if (cached.isUsable(now)) {
+                if (cached.needsRefresh(now)) {
+                    load(key, config); // refresh-ahead, the caller keeps the current token
+                }
+                log.debug("Using cached token for {}", key);
+                return cached.token;
+            }
+            if (cached.failure != null && now.isBefore(cached.retryAt)) {
+                throw cached.failure;
             }
         }
 
-        // 2. Fetch New Token
-        log.info("Fetching new token for {}", configKey);
+        try {
+            return load(key, config).join().token;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.oauth2.cache.sweep-interval-ms:15000}")
+    public void sweep() {
+        Instant now = Instant.now();
+        tokenCache.forEach((key, cached) -> {
+            boolean idle = cached.lastAccess.plus(idleTtl).isBefore(now);
+            if (idle && !cached.isUsable(now)) {
+                tokenCache.remove(key, cached);
+            } else if (!idle && cached.isUsable(now) && cached.needsRefresh(now)) {
+                load(key, cached.config);
+            }
+        });
+
+        int overflow = tokenCache.size() - maxEntries;
+        if (overflow > 0) {
+            tokenCache.entrySet().stream()
+                    .sorted(Comparator.comparing(e -> e.getValue().lastAccess))
+                    .limit(overflow)
+                    .forEach(e -> tokenCache.remove(e.getKey(), e.getValue()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private CompletableFuture<CachedToken> load(CacheKey key, OAuth2Config config) {
+        CompletableFuture<CachedToken> created = new CompletableFuture<>();
+        CompletableFuture<CachedToken> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        loader.execute(() -> {
+            CachedToken previous = tokenCache.get(key);
+            try {
+                CachedToken fresh = fetch(key, config);
+                tokenCache.put(key, fresh);
+                created.complete(fresh);
+            } catch (RuntimeException e) {
+                CachedToken failed = failed(config, previous, e);
+                tokenCache.put(key, failed);
+                created.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, created);
+            }
+        });
+        return created;
+    }
+
+    private CachedToken fetch(CacheKey key, OAuth2Config config) {
+        log.info("Fetching new token for {}", key);
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
 
             MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
-            map.add("grant_type", config.getGrantType() != null ? config.getGrantType() : "client_credentials");
+            map.add("grant_type", grantTypeOf(config));
             map.add("client_id", config.getClientId());
             map.add("client_secret", config.getClientSecret());
             if (config.getScope() != null && !config.getScope().isEmpty()) {
@@ -80,22 +238,52 @@ public class OAuth2TokenService {
             );
 
             if (response.getBody() != null && response.getBody().getAccess_token() != null) {
-                String token = response.getBody().getAccess_token();
-                int expiresIn = response.getBody().getExpires_in();
-                
-                TokenCache newCache = new TokenCache();
-                newCache.setToken(token);
                 // Default 1 hour if not provided, else use expires_in
-                newCache.setExpiresAt(LocalDateTime.now().plusSeconds(expiresIn > 0 ? expiresIn : 3600));
-                
-                tokenCache.put(configKey, newCache);
-                return token;
+                int expiresIn = response.getBody().getExpires_in() > 0 ? response.getBody().getExpires_in() : 3600;
+                Instant now = Instant.now();
+                long lifetimeMs = expiresIn * 1000L;
+                long jitterMs = (long) (lifetimeMs * REFRESH_JITTER_FRACTION * ThreadLocalRandom.current().nextDouble());
+                Instant refreshAt = now.plusMillis((long) (lifetimeMs * REFRESH_AT_FRACTION) - jitterMs);
+                return new CachedToken(config, response.getBody().getAccess_token(),
+                        now.plusSeconds(expiresIn), refreshAt, null, 0, null);
             }
         } catch (Exception e) {
-            log.error("Failed to fetch token for {}: {}", configKey, e.getMessage());
+            log.error("Failed to fetch token for {}: {}", key, e.getMessage());
             throw new RuntimeException("Failed to fetch OAuth2 token: " + e.getMessage());
         }
 
+        log.error("Token endpoint for {} returned no access_token", key);
         throw new RuntimeException("Failed to retrieve access token");
     }
+
+    /**
+     * Records a failed load. A still-valid previous token is kept so callers
+     * ride out a flaky token endpoint; either way the next attempt is pushed
+     * back exponentially with jitter.
+     */
+    private CachedToken failed(OAuth2Config config, CachedToken previous, RuntimeException error) {
+        int failures = previous != null ? previous.failures + 1 : 1;
+        long backoffMs = Math.min(maxFailureBackoff.toMillis(), failureBackoff.toMillis() << Math.min(failures - 1, 20));
+        backoffMs += ThreadLocalRandom.current().nextLong(backoffMs / 4 + 1);
+        Instant retryAt = Instant.now().plusMillis(backoffMs);
+
+        if (previous != null && previous.token != null) {
+            return new CachedToken(config, previous.token, previous.expiresAt, previous.refreshAt, error, failures, retryAt);
+        }
+        return new CachedToken(config, null, Instant.EPOCH, Instant.EPOCH, error, failures, retryAt);
+    }
+
+    private static String grantTypeOf(OAuth2Config config) {
+        return config.getGrantType() != null ? config.getGrantType() : "client_credentials";
+    }
+
+    private static String sha256(String value) {
+        if (value == null) return "";
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,216 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.common.ProxyCapacityExceededException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs upstream proxy work off the servlet threads, behind its own bulkhead,
+ * so a slow partner API cannot starve unrelated endpoints of Tomcat workers.
+ * Server-side jobs (collection runs, load tests) go through a second, smaller
+ * bulkhead ({@link #runBackground}) so they cannot take the connections
+ * interactive calls need.
+ * <p>
+ * Both bulkheads together are sized within the connection pool's
+ * {@code max-total}, so excess load is shed here with a 503 instead of
+ * queueing for a pooled connection. Calls to a single host can still wait on
+ * {@code max-per-route}, bounded by the pool's acquire timeout.
+ */
+@Component
+@Slf4j
+public class ProxyExecutor {
+
+    public enum Mode { VIRTUAL, BLOCKING }
+
+    private final Mode mode;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long acquireTimeoutMs;
+    private final ExecutorService executor;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final Semaphore backgroundPermits;
+    private final int maxBackground;
+    private final AtomicInteger backgroundWaiting = new AtomicInteger();
+
+    public ProxyExecutor(
+            @Value("${application.proxy.execution.mode:VIRTUAL}") Mode mode,
+            @Value("${application.proxy.execution.max-concurrent:100}") int maxConcurrent,
+            @Value("${application.proxy.execution.acquire-timeout-ms:2000}") long acquireTimeoutMs,
+            @Value("${application.proxy.execution.max-background:100}") int maxBackground,
+            @Value("${application.proxy.pool.max-total:200}") int poolMaxTotal
+    ) {
+        if (maxConcurrent + maxBackground > poolMaxTotal) {
+            log.warn("Proxy bulkheads ({} interactive + {} background) exceed the connection pool ({}); "
+                    + "the excess queues for connections instead of being rejected", maxConcurrent, maxBackground, poolMaxTotal);
+        }
+        this.mode = mode;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.maxBackground = maxBackground;
+        this.backgroundPermits = new Semaphore(maxBackground);
+        this.executor = new DelegatingSecurityContextExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @FunctionalInterface
+    public interface ProxyTask<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * A task whose work continues after it returns (a streamed body). It owns
+     * the permit and must release it when that work ends; if the task itself
+     * throws, the permit is released for it.
+     */
+    @FunctionalInterface
+    public interface HeldProxyTask<T> {
+        T call(Permit permit) throws Exception;
+    }
+
+    /**
+     * One bulkhead slot. Releasing is idempotent, so every exit path may call it.
+     */
+    public static final class Permit {
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(ProxyTask<T> task) {
+        return submit(permit -> task.call(), false);
+    }
+
+    /**
+     * Like {@link #submit(ProxyTask)}, but the permit is kept after the task
+     * returns until the task's result releases it.
+     */
+    public <T> CompletableFuture<T> submitHolding(HeldProxyTask<T> task) {
+        return submit(task, true);
+    }
+
+    private <T> CompletableFuture<T> submit(HeldProxyTask<T> task, boolean hold) {
+        if (mode == Mode.BLOCKING) {
+            try {
+                return CompletableFuture.completedFuture(runGuarded(task, hold));
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return runGuarded(task, hold);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Runs proxy work of a server-side job on the calling thread, behind the
+     * background bulkhead. Waits for a slot rather than failing; the jobs
+     * already pace themselves and count the wait as latency.
+     */
+    public <T> T runBackground(ProxyTask<T> task) throws Exception {
+        backgroundWaiting.incrementAndGet();
+        try {
+            backgroundPermits.acquire();
+        } finally {
+            backgroundWaiting.decrementAndGet();
+        }
+        try {
+            return task.call();
+        } finally {
+            backgroundPermits.release();
+        }
+    }
+
+    public int getAvailableBackgroundPermits() {
+        return backgroundPermits.availablePermits();
+    }
+
+    public int getMaxBackground() {
+        return maxBackground;
+    }
+
+    public int getBackgroundWaiting() {
+        return backgroundWaiting.get();
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private <T> T runGuarded(HeldProxyTask<T> task, boolean hold) throws Exception {
+        boolean acquired;
+        waiting.incrementAndGet();
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!acquired) {
+            rejected.incrementAndGet();
+            throw new ProxyCapacityExceededException("Proxy is at capacity (" + maxConcurrent + " concurrent requests), try again shortly");
+        }
+        Permit permit = new Permit(permits);
+        boolean handedOver = false;
+        try {
+            T result = task.call(permit);
+            handedOver = hold;
+            return result;
+        } finally {
+            if (!handedOver) permit.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Proxy executor did not drain within 10s, interrupting in-flight calls");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
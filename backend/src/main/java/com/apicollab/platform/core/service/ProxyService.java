@@ -1,33 +1,37 @@
 package com.apicollab.platform.core.service;
 
+import com.apicollab.platform.core.config.ProxyTimingRecorder;
 import com.apicollab.platform.core.domain.Environment;
-import com.apicollab.platform.core.repository.EnvironmentRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
 public class ProxyService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final EnvironmentRepository environmentRepository;
-    private final OAuth2TokenService oAuth2TokenService;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RestTemplate restTemplate;
+    private final PoolingHttpClientConnectionManager proxyConnectionManager;
+    private final EnvironmentCache environmentCache;
+    private final EnvironmentTemplateEngine templateEngine;
 
     @Data
     public static class ProxyRequest {
         private String url;
         private String method;
         private Map<String, String> headers;
+        private Map<String, String> queryParams;
         private String body;
         private Long environmentId;
     }
@@ -37,13 +41,96 @@ public class ProxyService {
         private int status;
         private Map<String, String> headers;
         private String body;
+        private Timing timing;
     }
 
-    public ProxyResponse execute(ProxyRequest request) {
-        // 1. Load Environment & Process Auto-Auth
-        if (request.getEnvironmentId() != null) {
-            processEnvironment(request);
+    /**
+     * Phase breakdown of one exchange in milliseconds. Connection phases are
+     * zero when a pooled connection was reused; tls is zero for plain http.
+     * {@code queue} covers placeholder resolution and pool lease wait,
+     * {@code ttfb} runs from connection ready to response headers.
+     */
+    @Data
+    public static class Timing {
+        private double queue;
+        private double dns;
+        private double connect;
+        private double tls;
+        private double ttfb;
+        private double download;
+        private double total;
+        private boolean connectionReused;
+        private long requestBytes;
+        private long responseBytes;
+        private long responseHeaderBytes;
+
+        static Timing of(ProxyTimingRecorder.Marks m, long requestStartedAt, long finishedAt) {
+            Timing t = new Timing();
+            long connectEnd = m.connectedAt != 0 ? m.connectedAt : finishedAt;
+            if (m.newConnection) {
+                long tcpStart = m.dnsStartedAt + m.dnsNanos;
+                long tcpEnd = m.tlsStartedAt != 0 ? m.tlsStartedAt : connectEnd;
+                t.setQueue(ms(m.dnsStartedAt - requestStartedAt));
+                t.setDns(ms(m.dnsNanos));
+                t.setConnect(ms(tcpEnd - tcpStart));
+                t.setTls(m.tlsStartedAt != 0 ? ms(connectEnd - m.tlsStartedAt) : 0);
+            } else {
+                t.setQueue(ms(connectEnd - requestStartedAt));
+                t.setConnectionReused(m.connectedAt != 0);
+            }
+            if (m.headersAt != 0) {
+                t.setTtfb(ms(m.headersAt - connectEnd));
+                t.setDownload(ms(finishedAt - m.headersAt));
+            }
+            t.setTotal(ms(finishedAt - requestStartedAt));
+            return t;
+        }
+
+        private static double ms(long nanos) {
+            return Math.max(0, nanos) / 10_000 / 100.0;
         }
+    }
+
+    @Data
+    public static class PoolStatsResponse {
+        private RouteStats total;
+        private List<RouteStats> routes;
+    }
+
+    @Data
+    public static class RouteStats {
+        private String route;
+        private int leased;
+        private int pending;
+        private int available;
+        private int max;
+
+        static RouteStats of(String route, PoolStats stats) {
+            RouteStats rs = new RouteStats();
+            rs.setRoute(route);
+            rs.setLeased(stats.getLeased());
+            rs.setPending(stats.getPending());
+            rs.setAvailable(stats.getAvailable());
+            rs.setMax(stats.getMax());
+            return rs;
+        }
+    }
+
+    public PoolStatsResponse getPoolStats() {
+        PoolStatsResponse response = new PoolStatsResponse();
+        response.setTotal(RouteStats.of("*", proxyConnectionManager.getTotalStats()));
+        List<RouteStats> routes = new ArrayList<>();
+        for (HttpRoute route : proxyConnectionManager.getRoutes()) {
+            routes.add(RouteStats.of(route.getTargetHost().toURI(), proxyConnectionManager.getStats(route)));
+        }
+        response.setRoutes(routes);
+        return response;
+    }
+
+    public ProxyResponse execute(ProxyRequest request) {
+        long requestStartedAt = System.nanoTime();
+        // 1. Resolve Environment Variables & Auto-Auth
+        prepare(request);
 
         HttpHeaders headers = new HttpHeaders();
         if (request.getHeaders() != null) {
@@ -52,7 +139,9 @@ public class ProxyService {
 
         HttpEntity<String> entity = new HttpEntity<>(request.getBody(), headers);
         HttpMethod method = HttpMethod.valueOf(request.getMethod().toUpperCase());
+        long requestBytes = request.getBody() != null ? request.getBody().getBytes(StandardCharsets.UTF_8).length : 0;
 
+        ProxyTimingRecorder.Marks marks = ProxyTimingRecorder.start();
         try {
             ResponseEntity<byte[]> response = restTemplate.exchange(
                     request.getUrl(),
@@ -60,6 +149,7 @@ public class ProxyService {
                     entity,
                     byte[].class
             );
+            long finishedAt = System.nanoTime();
 
             ProxyResponse proxyResponse = new ProxyResponse();
             proxyResponse.setStatus(response.getStatusCode().value());
@@ -81,79 +171,89 @@ public class ProxyService {
             response.getHeaders().forEach((k, v) -> respHeaders.put(k, v.get(0)));
             proxyResponse.setHeaders(respHeaders);
 
+            Timing timing = Timing.of(marks, requestStartedAt, finishedAt);
+            timing.setRequestBytes(requestBytes);
+            timing.setResponseBytes(bodyBytes != null ? bodyBytes.length : 0);
+            timing.setResponseHeaderBytes(headerBytes(response.getHeaders()));
+            proxyResponse.setTiming(timing);
+
             return proxyResponse;
         } catch (org.springframework.web.client.HttpStatusCodeException e) {
             ProxyResponse proxyResponse = new ProxyResponse();
             proxyResponse.setStatus(e.getStatusCode().value());
             proxyResponse.setBody(e.getResponseBodyAsString());
+            Timing timing = Timing.of(marks, requestStartedAt, System.nanoTime());
+            timing.setRequestBytes(requestBytes);
+            timing.setResponseBytes(e.getResponseBodyAsByteArray().length);
+            timing.setResponseHeaderBytes(headerBytes(e.getResponseHeaders()));
+            proxyResponse.setTiming(timing);
             return proxyResponse;
         } catch (Exception e) {
             ProxyResponse proxyResponse = new ProxyResponse();
             proxyResponse.setStatus(500);
             proxyResponse.setBody(e.getMessage());
+            Timing timing = Timing.of(marks, requestStartedAt, System.nanoTime());
+            timing.setRequestBytes(requestBytes);
+            proxyResponse.setTiming(timing);
             return proxyResponse;
+        } finally {
+            ProxyTimingRecorder.stop();
         }
     }
 
-    private void processEnvironment(ProxyRequest request) {
-        Environment env = environmentRepository.findById(request.getEnvironmentId()).orElse(null);
-        if (env == null || env.getAuthConfigs() == null) return;
-
-        try {
-            Map<String, OAuth2TokenService.OAuth2Config> authConfigs = 
-                objectMapper.readValue(env.getAuthConfigs(), new TypeReference<>() {});
-            
-            System.out.println("DEBUG: Loaded Auth Configs: " + authConfigs.keySet());
-
-            // Regex to find {{key}}
-            Pattern pattern = Pattern.compile("\\{\\{(.+?)}}");
-            
-            // Check Headers
-            if (request.getHeaders() != null) {
-                request.getHeaders().replaceAll((k, v) -> {
-                    String newVal = replaceToken(v, authConfigs);
-                    if (!v.equals(newVal)) {
-                        System.out.println("DEBUG: Header " + k + " replaced. Old: " + v + ", New: " + newVal);
-                    }
-                    return newVal;
-                });
-            }
-            
-            // Check URL
-            String newUrl = replaceToken(request.getUrl(), authConfigs);
-            if (!request.getUrl().equals(newUrl)) {
-                System.out.println("DEBUG: URL replaced. New: " + newUrl);
+    /**
+     * Approximate size of the header block as sent on the wire ("Name: value\r\n").
+     */
+    private static long headerBytes(HttpHeaders headers) {
+        if (headers == null) return 0;
+        long bytes = 0;
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            for (String value : header.getValue()) {
+                bytes += header.getKey().length() + 2 + (value != null ? value.length() : 0) + 2;
             }
-            request.setUrl(newUrl);
-
-        } catch (Exception e) {
-            System.err.println("Failed to process environment auth: " + e.getMessage());
-            e.printStackTrace();
         }
+        return bytes;
     }
 
-    private String replaceToken(String input, Map<String, OAuth2TokenService.OAuth2Config> authConfigs) {
-        if (input == null) return null;
-        Matcher matcher = Pattern.compile("\\{\\{(.+?)}}").matcher(input);
-        StringBuffer sb = new StringBuffer();
-        while (matcher.find()) {
-            String key = matcher.group(1).trim(); // Fix: Trim whitespace
-            System.out.println("DEBUG: Found placeholder: " + key);
-            if (authConfigs.containsKey(key)) {
-                try {
-                    String token = oAuth2TokenService.getToken(key, authConfigs.get(key));
-                    System.out.println("DEBUG: Token fetched for " + key + ": " + (token != null ? "Yes" : "No"));
-                    matcher.appendReplacement(sb, "Bearer " + token);
-                } catch (Exception e) {
-                    System.err.println("DEBUG: Token fetch failed for " + key + ": " + e.getMessage());
-                    matcher.appendReplacement(sb, matcher.group(0));
+    /**
+     * Resolves environment placeholders in url, headers, query params and body,
+     * then folds query params into the url. Shared by every proxy mode.
+     */
+    void prepare(ProxyRequest request) {
+        if (request.getEnvironmentId() != null) {
+            Environment env = environmentCache.get(request.getEnvironmentId()).orElse(null);
+            if (env != null) {
+                EnvironmentTemplateEngine.CompiledEnvironment compiled = templateEngine.compile(env);
+                request.setUrl(templateEngine.render(request.getUrl(), compiled));
+                if (request.getHeaders() != null) {
+                    request.getHeaders().replaceAll((k, v) -> templateEngine.render(v, compiled));
                 }
-            } else {
-                System.out.println("DEBUG: Key " + key + " not found in auth configs.");
-                matcher.appendReplacement(sb, matcher.group(0)); // Keep original if not found
+                if (request.getQueryParams() != null) {
+                    request.getQueryParams().replaceAll((k, v) -> templateEngine.render(v, compiled));
+                }
+                request.setBody(templateEngine.render(request.getBody(), compiled));
             }
         }
-        matcher.appendTail(sb);
-        return sb.toString();
+
+        if (request.getQueryParams() != null && !request.getQueryParams().isEmpty()) {
+            // Params are raw values (after rendering), so &, =, #, spaces etc. must be encoded; a fragment stays last
+            String base = request.getUrl();
+            int hash = base.indexOf('#');
+            String fragment = hash >= 0 ? base.substring(hash) : "";
+            StringBuilder url = new StringBuilder(hash >= 0 ? base.substring(0, hash) : base);
+            char separator = url.indexOf("?") >= 0 ? '&' : '?';
+            for (Map.Entry<String, String> param : request.getQueryParams().entrySet()) {
+                url.append(separator).append(encodeQueryComponent(param.getKey()))
+                        .append('=').append(encodeQueryComponent(param.getValue() != null ? param.getValue() : ""));
+                separator = '&';
+            }
+            request.setUrl(url.append(fragment).toString());
+            request.setQueryParams(null);
+        }
+    }
+
+    private static String encodeQueryComponent(String value) {
+        // URLEncoder does form encoding; %20 is understood by every server, '+' is not
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
     }
 }
@@ -0,0 +1,293 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.common.ResourceNotFoundException;
+import com.apicollab.platform.common.SecurityUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Proxy modes that never hold the upstream body in heap: straight pass-through
+ * to the servlet output, or spill to a temp file that the UI reads page by page.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProxyStreamService {
+
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            "content-length", "transfer-encoding", "connection", "keep-alive", "host");
+
+    private final ProxyService proxyService;
+    private final CloseableHttpClient proxyHttpClient;
+    private final Map<String, SpillEntry> spills = new ConcurrentHashMap<>();
+
+    @Value("${application.proxy.stream.max-bytes:104857600}")
+    private long streamMaxBytes;
+
+    @Value("${application.proxy.stream.body-start-timeout-ms:30000}")
+    private long streamBodyStartTimeoutMs;
+
+    @Value("${application.proxy.spill.max-bytes:1073741824}")
+    private long spillMaxBytes;
+
+    @Value("${application.proxy.spill.max-page-bytes:1048576}")
+    private int spillMaxPageBytes;
+
+    @Value("${application.proxy.spill.ttl-minutes:15}")
+    private long spillTtlMinutes;
+
+    @Data
+    public static class SpillResponse {
+        private String spillId;
+        private int status;
+        private Map<String, String> headers;
+        private String contentType;
+        private long size;
+        private boolean truncated;
+    }
+
+    @Data
+    private static class SpillEntry {
+        private String owner;
+        private Path file;
+        private String contentType;
+        private long size;
+        private LocalDateTime expiresAt;
+    }
+
+    /**
+     * Opens the upstream response and returns a body that copies it to the
+     * client. {@code permit} (the proxy bulkhead slot) is held until the body
+     * has been written or has failed; a body that Spring never runs, e.g.
+     * because the client went away first, is abandoned after
+     * {@code body-start-timeout-ms}, which closes upstream and frees the slot.
+     */
+    public ResponseEntity<StreamingResponseBody> stream(ProxyService.ProxyRequest request, ProxyExecutor.Permit permit) throws IOException {
+        ClassicHttpResponse upstream = open(request);
+        AtomicBoolean claimed = new AtomicBoolean();
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            for (Header header : upstream.getHeaders()) {
+                if (!SKIPPED_HEADERS.contains(header.getName().toLowerCase())) {
+                    headers.add(header.getName(), header.getValue());
+                }
+            }
+
+            StreamingResponseBody body = out -> {
+                if (!claimed.compareAndSet(false, true)) return; // abandoned, upstream already closed
+                try (upstream) {
+                    HttpEntity entity = upstream.getEntity();
+                    if (entity == null) return;
+                    try (InputStream in = entity.getContent()) {
+                        if (copy(in, out, streamMaxBytes) > streamMaxBytes) {
+                            log.warn("Streamed response from {} exceeded {} bytes, truncated", request.getUrl(), streamMaxBytes);
+                        }
+                    }
+                } finally {
+                    permit.release();
+                }
+            };
+            CompletableFuture.delayedExecutor(streamBodyStartTimeoutMs, TimeUnit.MILLISECONDS).execute(() -> {
+                if (claimed.compareAndSet(false, true)) {
+                    log.debug("Streamed response from {} was never written, closing upstream", request.getUrl());
+                    closeQuietly(upstream);
+                    permit.release();
+                }
+            });
+            return ResponseEntity.status(upstream.getCode()).headers(headers).body(body);
+        } catch (RuntimeException e) {
+            closeQuietly(upstream);
+            throw e;
+        }
+    }
+
+    public SpillResponse spill(ProxyService.ProxyRequest request) throws IOException {
+        try (ClassicHttpResponse upstream = open(request)) {
+            SpillResponse response = new SpillResponse();
+            response.setStatus(upstream.getCode());
+
+            Map<String, String> respHeaders = new HashMap<>();
+            for (Header header : upstream.getHeaders()) {
+                respHeaders.putIfAbsent(header.getName(), header.getValue());
+            }
+            response.setHeaders(respHeaders);
+
+            HttpEntity entity = upstream.getEntity();
+            if (entity == null) return response;
+
+            Path file = Files.createTempFile("proxy-spill-", ".bin");
+            long written;
+            try (InputStream in = entity.getContent();
+                 OutputStream out = Files.newOutputStream(file, StandardOpenOption.WRITE)) {
+                written = copy(in, out, spillMaxBytes);
+            } catch (IOException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+
+            SpillEntry entry = new SpillEntry();
+            entry.setOwner(SecurityUtils.getCurrentUsername());
+            entry.setFile(file);
+            entry.setContentType(entity.getContentType() != null ? entity.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            entry.setSize(Math.min(written, spillMaxBytes));
+            entry.setExpiresAt(LocalDateTime.now().plusMinutes(spillTtlMinutes));
+
+            String id = UUID.randomUUID().toString();
+            spills.put(id, entry);
+
+            response.setSpillId(id);
+            response.setContentType(entry.getContentType());
+            response.setSize(entry.getSize());
+            response.setTruncated(written > spillMaxBytes);
+            return response;
+        }
+    }
+
+    public ResponseEntity<StreamingResponseBody> readSpill(String spillId, long offset, int length) {
+        SpillEntry entry = getOwnedSpill(spillId);
+        long start = Math.max(0, Math.min(offset, entry.getSize()));
+        long count = Math.min(Math.min(Math.max(length, 0), spillMaxPageBytes), entry.getSize() - start);
+
+        StreamingResponseBody body = out -> {
+            try (FileChannel channel = FileChannel.open(entry.getFile(), StandardOpenOption.READ)) {
+                var target = Channels.newChannel(out);
+                long position = start;
+                long remaining = count;
+                while (remaining > 0) {
+                    long sent = channel.transferTo(position, remaining, target);
+                    if (sent <= 0) break;
+                    position += sent;
+                    remaining -= sent;
+                }
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(entry.getContentType()))
+                .contentLength(count)
+                .header("X-Spill-Offset", String.valueOf(start))
+                .header("X-Spill-Size", String.valueOf(entry.getSize()))
+                .body(body);
+    }
+
+    public void deleteSpill(String spillId) {
+        getOwnedSpill(spillId);
+        discard(spills.remove(spillId));
+    }
+
+    @Scheduled(fixedDelayString = "${application.proxy.spill.cleanup-interval-ms:60000}")
+    public void evictExpiredSpills() {
+        LocalDateTime now = LocalDateTime.now();
+        spills.entrySet().removeIf(e -> {
+            if (e.getValue().getExpiresAt().isBefore(now)) {
+                discard(e.getValue());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        spills.values().forEach(this::discard);
+        spills.clear();
+    }
+
+    private SpillEntry getOwnedSpill(String spillId) {
+        SpillEntry entry = spills.get(spillId);
+        // Someone else's spill is reported as missing so its id can't be probed
+        if (entry == null || !entry.getOwner().equals(SecurityUtils.getCurrentUsername())) {
+            throw new ResourceNotFoundException("Spilled response not found");
+        }
+        return entry;
+    }
+
+    private ClassicHttpResponse open(ProxyService.ProxyRequest request) throws IOException {
+        proxyService.prepare(request);
+
+        ClassicRequestBuilder builder = ClassicRequestBuilder.create(request.getMethod().toUpperCase())
+                .setUri(request.getUrl());
+        if (request.getHeaders() != null) {
+            request.getHeaders().forEach((k, v) -> {
+                if (!SKIPPED_HEADERS.contains(k.toLowerCase())) {
+                    builder.addHeader(k, v);
+                }
+            });
+        }
+        if (request.getBody() != null) {
+            builder.setEntity(new StringEntity(request.getBody(), StandardCharsets.UTF_8));
+        }
+        return proxyHttpClient.executeOpen(null, builder.build(), null);
+    }
+
+    private static void closeQuietly(ClassicHttpResponse upstream) {
+        try {
+            upstream.close();
+        } catch (IOException e) {
+            log.debug("Failed to close upstream response", e);
+        }
+    }
+
+    /**
+     * Copies at most {@code limit} bytes and returns the number of bytes seen,
+     * which is {@code limit + 1} when the source had more to give.
+     */
+    private static long copy(InputStream in, OutputStream out, long limit) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            long allowed = limit - total;
+            if (read > allowed) {
+                out.write(buffer, 0, (int) allowed);
+                return limit + 1;
+            }
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        return total;
+    }
+
+    private void discard(SpillEntry entry) {
+        if (entry == null) return;
+        try {
+            Files.deleteIfExists(entry.getFile());
+        } catch (IOException e) {
+            log.warn("Failed to delete spill file {}: {}", entry.getFile(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.apicollab.platform.core.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compact in-memory inverted index. Documents get ascending ids in indexing
+ * order, so every posting list is sorted and "newest first" is a reverse walk
+ * over the intersection. Re-indexing a document appends a new id and
+ * tombstones the old one; {@link #compact()} drops tombstones.
+ * <p>
+ * Queries are AND over their terms; the last term also matches as a prefix
+ * while the user is still typing.
+ */
+class SearchIndex {
+
+    enum Kind { HISTORY, DEFINITION, TEST_CASE }
+
+    /**
+     * What a hit returns; {@code parentId} is the api definition of a test case
+     * or history entry, {@code owner} the user a history entry belongs to.
+     */
+    record Doc(Kind kind, long entityId, long workspaceId, long parentId, String owner,
+               String title, String subtitle, long timestamp) {}
+
+    private static final int MAGIC = 0x41435358; // "ACSX"
+    private static final int VERSION = 1;
+    private static final int MIN_TOKEN = 2;
+    private static final int MAX_TOKEN = 40;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_STORED_CHARS = 300;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Doc> docs = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    private final Map<String, Integer> liveByKey = new HashMap<>();
+    private final TreeMap<String, IntList> terms = new TreeMap<>();
+    private int deletedCount;
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+    }
+
+    void put(Doc doc, int maxChars, String... texts) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String text : texts) {
+            tokenize(text, maxChars, tokens);
+        }
+        Doc stored = new Doc(doc.kind(), doc.entityId(), doc.workspaceId(), doc.parentId(), doc.owner(),
+                truncate(doc.title()), truncate(doc.subtitle()), doc.timestamp());
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(key(doc.kind(), doc.entityId()));
+            int docId = docs.size();
+            docs.add(stored);
+            liveByKey.put(key(doc.kind(), doc.entityId()), docId);
+            for (String token : tokens) {
+                terms.computeIfAbsent(token, t -> new IntList()).add(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Kind kind, long entityId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key(kind, entityId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every live document of {@code kind} whose parent is {@code parentId}.
+     */
+    void removeChildren(Kind kind, long parentId) {
+        lock.writeLock().lock();
+        try {
+            for (int docId = 0; docId < docs.size(); docId++) {
+                Doc d = docs.get(docId);
+                if (!deleted.get(docId) && d.kind() == kind && d.parentId() == parentId) {
+                    removeLocked(key(kind, d.entityId()));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Entity ids of every live document of {@code kind}.
+     */
+    List<Long> liveIds(Kind kind) {
+        lock.readLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>();
+            for (int docId = 0; docId < docs.size(); docId++) {
+                Doc d = docs.get(docId);
+                if (!deleted.get(docId) && d.kind() == kind) ids.add(d.entityId());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Doc find(Kind kind, long entityId) {
+        lock.readLock().lock();
+        try {
+            Integer docId = liveByKey.get(key(kind, entityId));
+            return docId != null ? docs.get(docId) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Doc> search(String query, Predicate<Doc> visible, int limit) {
+        List<String> tokens = new ArrayList<>(tokenize(query, query.length(), new LinkedHashSet<>()));
+        if (tokens.isEmpty()) return List.of();
+        boolean lastIsPrefix = Character.isLetterOrDigit(query.charAt(query.length() - 1));
+
+        lock.readLock().lock();
+        try {
+            List<Run> runs = new ArrayList<>(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                Run postings = i == tokens.size() - 1 && lastIsPrefix
+                        ? prefixPostings(tokens.get(i))
+                        : exactPostings(tokens.get(i));
+                if (postings.size() == 0) return List.of();
+                runs.add(postings);
+            }
+            runs.sort((a, b) -> Integer.compare(a.size(), b.size()));
+            Run matches = runs.get(0);
+            for (int i = 1; i < runs.size() && matches.size() > 0; i++) {
+                matches = intersect(matches, runs.get(i));
+            }
+
+            List<Doc> hits = new ArrayList<>(Math.min(limit, matches.size()));
+            for (int i = matches.size() - 1; i >= 0 && hits.size() < limit; i--) {
+                int docId = matches.values()[i];
+                if (deleted.get(docId)) continue;
+                Doc d = docs.get(docId);
+                if (visible.test(d)) hits.add(d);
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int liveCount() {
+        lock.readLock().lock();
+        try {
+            return docs.size() - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Renumbers live documents densely and rewrites postings without tombstones.
+     */
+    void compact() {
+        lock.writeLock().lock();
+        try {
+            if (deletedCount == 0) return;
+            int[] remap = new int[docs.size()];
+            List<Doc> live = new ArrayList<>(docs.size() - deletedCount);
+            for (int docId = 0; docId < docs.size(); docId++) {
+                if (deleted.get(docId)) {
+                    remap[docId] = -1;
+                } else {
+                    remap[docId] = live.size();
+                    live.add(docs.get(docId));
+                }
+            }
+            var it = terms.entrySet().iterator();
+            while (it.hasNext()) {
+                IntList postings = it.next().getValue();
+                int kept = 0;
+                for (int i = 0; i < postings.size; i++) {
+                    int mapped = remap[postings.values[i]];
+                    if (mapped >= 0) postings.values[kept++] = mapped;
+                }
+                postings.size = kept;
+                if (kept == 0) {
+                    it.remove();
+                } else if (kept < postings.values.length / 4) {
+                    postings.values = Arrays.copyOf(postings.values, Math.max(4, kept));
+                }
+            }
+            liveByKey.replaceAll((k, docId) -> remap[docId]);
+            docs.clear();
+            docs.addAll(live);
+            deleted.clear();
+            deletedCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void writeTo(DataOutputStream out, long snapshotAt) throws IOException {
+        compact();
+        lock.readLock().lock();
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshotAt);
+            out.writeInt(docs.size());
+            for (Doc d : docs) {
+                out.writeByte(d.kind().ordinal());
+                out.writeLong(d.entityId());
+                out.writeLong(d.workspaceId());
+                out.writeLong(d.parentId());
+                writeNullable(out, d.owner());
+                writeNullable(out, d.title());
+                writeNullable(out, d.subtitle());
+                out.writeLong(d.timestamp());
+            }
+            out.writeInt(terms.size());
+            for (Map.Entry<String, IntList> term : terms.entrySet()) {
+                out.writeUTF(term.getKey());
+                IntList postings = term.getValue();
+                writeVarInt(out, postings.size);
+                int previous = 0;
+                for (int i = 0; i < postings.size; i++) {
+                    writeVarInt(out, postings.values[i] - previous); // ascending, so deltas stay small
+                    previous = postings.values[i];
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads a snapshot written by {@link #writeTo}; returns its snapshot time.
+     */
+    long readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Unsupported search index snapshot");
+        }
+        long snapshotAt = in.readLong();
+        lock.writeLock().lock();
+        try {
+            int docCount = in.readInt();
+            Kind[] kinds = Kind.values();
+            for (int docId = 0; docId < docCount; docId++) {
+                Doc d = new Doc(kinds[in.readByte()], in.readLong(), in.readLong(), in.readLong(),
+                        readNullable(in), readNullable(in), readNullable(in), in.readLong());
+                docs.add(d);
+                liveByKey.put(key(d.kind(), d.entityId()), docId);
+            }
+            int termCount = in.readInt();
+            for (int t = 0; t < termCount; t++) {
+                String term = in.readUTF();
+                IntList postings = new IntList();
+                int size = readVarInt(in);
+                postings.values = new int[Math.max(4, size)];
+                int previous = 0;
+                for (int i = 0; i < size; i++) {
+                    previous += readVarInt(in);
+                    postings.values[i] = previous;
+                }
+                postings.size = size;
+                terms.put(term, postings);
+            }
+            return snapshotAt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static Set<String> tokenize(String text, int maxChars, Set<String> into) {
+        if (text == null) return into;
+        int end = Math.min(text.length(), maxChars);
+        int start = -1;
+        for (int i = 0; i <= end; i++) {
+            boolean wordChar = i < end && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                int length = i - start;
+                if (length >= MIN_TOKEN && length <= MAX_TOKEN) {
+                    into.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return into;
+    }
+
+    private void removeLocked(String key) {
+        Integer previous = liveByKey.remove(key);
+        if (previous != null) {
+            deleted.set(previous);
+            deletedCount++;
+        }
+    }
+
+    // View over the first size entries of a posting array; only valid under the read lock
+    private record Run(int[] values, int size) {}
+
+    private static final Run EMPTY = new Run(new int[0], 0);
+
+    private Run exactPostings(String token) {
+        IntList postings = terms.get(token);
+        return postings != null ? new Run(postings.values, postings.size) : EMPTY;
+    }
+
+    private Run prefixPostings(String prefix) {
+        SortedMap<String, IntList> expansions = terms.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (expansions.isEmpty()) return EMPTY;
+        if (expansions.size() == 1) return exactPostings(expansions.firstKey());
+        int total = 0;
+        int taken = 0;
+        for (IntList postings : expansions.values()) {
+            if (taken++ == MAX_PREFIX_EXPANSIONS) break;
+            total += postings.size;
+        }
+        int[] merged = new int[total];
+        int offset = 0;
+        taken = 0;
+        for (IntList postings : expansions.values()) {
+            if (taken++ == MAX_PREFIX_EXPANSIONS) break;
+            System.arraycopy(postings.values, 0, merged, offset, postings.size);
+            offset += postings.size;
+        }
+        Arrays.sort(merged);
+        int unique = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (i == 0 || merged[i] != merged[i - 1]) merged[unique++] = merged[i];
+        }
+        return new Run(merged, unique);
+    }
+
+    /**
+     * Intersects two ascending runs, binary-searching through the longer one.
+     */
+    private static Run intersect(Run small, Run large) {
+        int[] out = new int[small.size()];
+        int count = 0;
+        int from = 0;
+        for (int i = 0; i < small.size() && from < large.size(); i++) {
+            int value = small.values()[i];
+            int pos = Arrays.binarySearch(large.values(), from, large.size(), value);
+            if (pos >= 0) {
+                out[count++] = value;
+                from = pos + 1;
+            } else {
+                from = -pos - 1;
+            }
+        }
+        return new Run(out, count);
+    }
+
+    private static String key(Kind kind, long entityId) {
+        return kind.ordinal() + ":" + entityId;
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > MAX_STORED_CHARS ? value.substring(0, MAX_STORED_CHARS) : value;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+}
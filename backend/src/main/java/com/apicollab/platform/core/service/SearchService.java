@@ -0,0 +1,428 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.common.InvalidRequestException;
+import com.apicollab.platform.common.SecurityUtils;
+import com.apicollab.platform.core.domain.ApiDefinition;
+import com.apicollab.platform.core.domain.ApiRequestHistory;
+import com.apicollab.platform.core.domain.ApiTestCase;
+import com.apicollab.platform.core.repository.ApiDefinitionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Full-text search over request history, API definitions and test cases,
+ * backed by {@link SearchIndex}. The index is kept current from the save and
+ * delete paths, snapshotted to local disk periodically and on shutdown, and
+ * on startup either loaded and caught up from the database or rebuilt.
+ * <p>
+ * Results are filtered by workspace membership; history entries are only
+ * visible to the user who sent them, as in the history sidebar.
+ */
+@Service
+@Slf4j
+public class SearchService {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final WorkspaceAccessIndex accessIndex;
+    private final ApiDefinitionRepository apiDefinitionRepository;
+    private final HistoryBlobStore blobStore;
+
+    private final Path snapshotFile;
+    private final int maxIndexedChars;
+    private final int batchSize;
+    private final int compactThreshold;
+
+    private volatile SearchIndex index = new SearchIndex();
+    private volatile SearchIndex rebuilding;
+    private volatile boolean ready;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean rebuildRunning = new AtomicBoolean();
+
+    public SearchService(
+            JdbcTemplate jdbcTemplate,
+            WorkspaceAccessIndex accessIndex,
+            ApiDefinitionRepository apiDefinitionRepository,
+            HistoryBlobStore blobStore,
+            @Value("${application.search.snapshot-file:data/search-index/index.bin}") String snapshotFile,
+            @Value("${application.search.max-indexed-chars:32768}") int maxIndexedChars,
+            @Value("${application.search.rebuild-batch-size:1000}") int batchSize,
+            @Value("${application.search.compact-threshold:100000}") int compactThreshold
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accessIndex = accessIndex;
+        this.apiDefinitionRepository = apiDefinitionRepository;
+        this.blobStore = blobStore;
+        this.snapshotFile = Paths.get(snapshotFile);
+        this.maxIndexedChars = maxIndexedChars;
+        this.batchSize = batchSize;
+        this.compactThreshold = compactThreshold;
+    }
+
+    @Data
+    public static class SearchHit {
+        private String type;
+        private Long id;
+        private Long workspaceId;
+        private Long apiDefinitionId;
+        private String title;
+        private String subtitle;
+        private LocalDateTime timestamp;
+    }
+
+    @Data
+    public static class SearchResponse {
+        private List<SearchHit> hits;
+        private double tookMs;
+        private boolean ready; // false while the index is still loading after startup
+    }
+
+    public record Stats(int documents, int terms, int tombstones, boolean ready, boolean rebuilding) {}
+
+    // --- queries ---
+
+    public SearchResponse search(String query, Long workspaceId, Set<String> types, int limit) {
+        long start = System.nanoTime();
+        String username = SecurityUtils.getCurrentUsername();
+        Set<Long> allowed = new HashSet<>(accessIndex.workspaceIds(username));
+        if (workspaceId != null) {
+            allowed.retainAll(Set.of(workspaceId));
+        }
+        Set<SearchIndex.Kind> kinds = EnumSet.noneOf(SearchIndex.Kind.class);
+        if (types == null || types.isEmpty()) {
+            kinds.addAll(EnumSet.allOf(SearchIndex.Kind.class));
+        } else {
+            for (String type : types) {
+                try {
+                    kinds.add(SearchIndex.Kind.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidRequestException("Unknown search type: " + type);
+                }
+            }
+        }
+
+        List<SearchIndex.Doc> docs = allowed.isEmpty() || query == null || query.isBlank()
+                ? List.of()
+                : index.search(query.trim(), d -> kinds.contains(d.kind())
+                        && allowed.contains(d.workspaceId())
+                        && (d.kind() != SearchIndex.Kind.HISTORY || username.equals(d.owner())),
+                Math.max(1, Math.min(limit, 100)));
+
+        SearchResponse response = new SearchResponse();
+        response.setHits(docs.stream().map(SearchService::toHit).toList());
+        response.setTookMs((System.nanoTime() - start) / 10_000 / 100.0);
+        response.setReady(ready);
+        return response;
+    }
+
+    public Stats getStats() {
+        SearchIndex current = index;
+        return new Stats(current.liveCount(), current.termCount(), current.deletedCount(), ready, rebuilding != null);
+    }
+
+    // --- incremental updates ---
+
+    public void indexDefinition(ApiDefinition definition) {
+        apply(i -> putDefinition(i, definition.getId(), definition.getWorkspace().getId(), definition.getTitle(),
+                definition.getVersion(), definition.getContent(), definition.getUpdatedAt()));
+    }
+
+    public void removeDefinition(Long id) {
+        apply(i -> {
+            i.remove(SearchIndex.Kind.DEFINITION, id);
+            i.removeChildren(SearchIndex.Kind.TEST_CASE, id);
+        });
+    }
+
+    public void indexTestCase(ApiTestCase testCase) {
+        Long definitionId = testCase.getApiDefinition().getId();
+        SearchIndex.Doc definition = index.find(SearchIndex.Kind.DEFINITION, definitionId);
+        Long workspaceId = definition != null
+                ? Long.valueOf(definition.workspaceId())
+                : apiDefinitionRepository.findById(definitionId).map(d -> d.getWorkspace().getId()).orElse(null);
+        if (workspaceId == null) return;
+        apply(i -> putTestCase(i, testCase.getId(), definitionId, workspaceId, testCase.getName(),
+                testCase.getContent(), testCase.getCreatedAt()));
+    }
+
+    public void removeTestCase(Long id) {
+        apply(i -> i.remove(SearchIndex.Kind.TEST_CASE, id));
+    }
+
+    public void indexHistory(long id, String username, ApiRequestHistory history) {
+        Long apiDefinitionId = history.getApiDefinition() != null ? history.getApiDefinition().getId() : null;
+        apply(i -> putHistory(i, id, history.getWorkspace().getId(), username, apiDefinitionId, history.getMethod(),
+                history.getUrl(), history.getHeaders(), history.getQueryParams(), history.getBodyContent(), history.getExecutedAt()));
+    }
+
+    public void removeHistory(Collection<Long> ids) {
+        apply(i -> ids.forEach(id -> i.remove(SearchIndex.Kind.HISTORY, id)));
+    }
+
+    private void apply(Consumer<SearchIndex> change) {
+        change.accept(index);
+        SearchIndex next = rebuilding;
+        if (next != null) change.accept(next); // keep the index being rebuilt in step
+        dirty.set(true);
+    }
+
+    // --- lifecycle ---
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread.ofVirtual().name("search-index-loader").start(() -> {
+            try {
+                if (Files.exists(snapshotFile)) {
+                    SearchIndex loaded = new SearchIndex();
+                    long snapshotAt;
+                    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+                        snapshotAt = loaded.readFrom(in);
+                    }
+                    // Catch up on changes made after the snapshot, applied on top of the loaded index
+                    rebuilding = loaded;
+                    index(loaded, LocalDateTime.ofInstant(Instant.ofEpochMilli(snapshotAt), ZONE));
+                    index = loaded;
+                    rebuilding = null;
+                    log.info("Loaded search index snapshot with {} documents", loaded.liveCount());
+                } else {
+                    rebuild();
+                }
+            } catch (Exception e) {
+                log.warn("Search index snapshot unusable ({}), rebuilding", e.getMessage());
+                rebuilding = null;
+                rebuild();
+            } finally {
+                ready = true;
+            }
+        });
+    }
+
+    /**
+     * Re-indexes everything from the database into a fresh index and swaps it
+     * in; searches keep hitting the old index meanwhile.
+     */
+    public boolean rebuild() {
+        if (!rebuildRunning.compareAndSet(false, true)) return false;
+        try {
+            SearchIndex fresh = new SearchIndex();
+            rebuilding = fresh;
+            index(fresh, null);
+            index = fresh;
+            dirty.set(true);
+            log.info("Rebuilt search index with {} documents", fresh.liveCount());
+            return true;
+        } finally {
+            rebuilding = null;
+            rebuildRunning.set(false);
+        }
+    }
+
+    /**
+     * Starts {@link #rebuild()} in the background; false if one is already running.
+     */
+    public boolean startRebuild() {
+        if (rebuildRunning.get()) return false;
+        Thread.ofVirtual().name("search-index-rebuild").start(this::rebuild);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${application.search.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        if (!ready || rebuilding != null || !dirty.getAndSet(false)) return;
+        SearchIndex current = index;
+        if (current.deletedCount() > compactThreshold) {
+            current.compact();
+        }
+        long snapshotAt = System.currentTimeMillis();
+        try {
+            Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+            Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                current.writeTo(out, snapshotAt);
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("Failed to write search index snapshot to {}", snapshotFile, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    // --- bulk indexing ---
+
+    /**
+     * Indexes every definition, test case and history row, or only those
+     * changed since {@code since} when catching up after a snapshot; a
+     * catch-up also drops documents whose rows were deleted meanwhile.
+     */
+    private void index(SearchIndex target, LocalDateTime since) {
+        Timestamp from = Timestamp.valueOf(since != null ? since.minusMinutes(1) : LocalDateTime.of(1970, 1, 2, 0, 0));
+
+        long lastId = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT id, workspace_id, title, version, content, updated_at FROM api_definitions " +
+                    "WHERE id > ? AND (updated_at IS NULL OR updated_at >= ?) ORDER BY id LIMIT ?", lastId, from, batchSize);
+            for (Map<String, Object> r : rows) {
+                putDefinition(target, id(r, "id"), id(r, "workspace_id"), (String) r.get("title"), (String) r.get("version"),
+                        (String) r.get("content"), time(r.get("updated_at")));
+            }
+            if (rows.size() < batchSize) break;
+            lastId = id(rows.get(rows.size() - 1), "id");
+        }
+
+        lastId = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT t.id, t.api_definition_id, d.workspace_id, t.name, t.content, t.created_at FROM api_test_cases t " +
+                    "JOIN api_definitions d ON d.id = t.api_definition_id " +
+                    "WHERE t.id > ? AND (t.updated_at IS NULL OR t.updated_at >= ?) ORDER BY t.id LIMIT ?", lastId, from, batchSize);
+            for (Map<String, Object> r : rows) {
+                putTestCase(target, id(r, "id"), id(r, "api_definition_id"), id(r, "workspace_id"), (String) r.get("name"),
+                        (String) r.get("content"), time(r.get("created_at")));
+            }
+            if (rows.size() < batchSize) break;
+            lastId = id(rows.get(rows.size() - 1), "id");
+        }
+
+        lastId = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT h.id, h.workspace_id, u.username, h.api_definition_id, h.method, h.url, h.headers_hash, " +
+                    "h.query_params_hash, h.body_hash, h.headers, h.query_params, h.body_content, h.executed_at " +
+                    "FROM api_request_history h JOIN users u ON u.id = h.user_id " +
+                    "WHERE h.id > ? AND h.executed_at >= ? ORDER BY h.id LIMIT ?", lastId, from, batchSize);
+            Set<String> hashes = new HashSet<>();
+            for (Map<String, Object> r : rows) {
+                for (String column : List.of("headers_hash", "query_params_hash", "body_hash")) {
+                    if (r.get(column) != null) hashes.add((String) r.get(column));
+                }
+            }
+            Map<String, String> contents = blobStore.load(hashes);
+            for (Map<String, Object> r : rows) {
+                Object definitionId = r.get("api_definition_id");
+                putHistory(target, id(r, "id"), id(r, "workspace_id"), (String) r.get("username"),
+                        definitionId != null ? ((Number) definitionId).longValue() : null,
+                        (String) r.get("method"), (String) r.get("url"),
+                        payload(r, "headers", contents), payload(r, "query_params", contents), payload(r, "body", contents),
+                        time(r.get("executed_at")));
+            }
+            if (rows.size() < batchSize) break;
+            lastId = id(rows.get(rows.size() - 1), "id");
+        }
+
+        if (since != null) {
+            removeDeleted(target, SearchIndex.Kind.DEFINITION, "api_definitions");
+            removeDeleted(target, SearchIndex.Kind.TEST_CASE, "api_test_cases");
+            removeDeleted(target, SearchIndex.Kind.HISTORY, "api_request_history");
+        }
+    }
+
+    // Checks the index's ids against the table in batches and drops those that no longer exist
+    private void removeDeleted(SearchIndex target, SearchIndex.Kind kind, String table) {
+        List<Long> ids = target.liveIds(kind);
+        int removed = 0;
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            List<Long> batch = ids.subList(i, Math.min(i + batchSize, ids.size()));
+            String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+            Set<Long> present = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT id FROM " + table + " WHERE id IN (" + placeholders + ")", Long.class, batch.toArray()));
+            for (Long id : batch) {
+                if (!present.contains(id)) {
+                    target.remove(kind, id);
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            log.info("Removed {} {} documents deleted since the search index snapshot", removed, kind);
+        }
+    }
+
+    private void putDefinition(SearchIndex target, long id, long workspaceId, String title, String version,
+                               String content, LocalDateTime updatedAt) {
+        target.put(new SearchIndex.Doc(SearchIndex.Kind.DEFINITION, id, workspaceId, 0, null, title, version, millis(updatedAt)),
+                maxIndexedChars, title, content);
+    }
+
+    private void putTestCase(SearchIndex target, long id, long definitionId, long workspaceId, String name,
+                             String content, LocalDateTime createdAt) {
+        target.put(new SearchIndex.Doc(SearchIndex.Kind.TEST_CASE, id, workspaceId, definitionId, null, name, null, millis(createdAt)),
+                maxIndexedChars, name, content);
+    }
+
+    private void putHistory(SearchIndex target, long id, long workspaceId, String username, Long apiDefinitionId,
+                            String method, String url, String headers, String queryParams, String body, LocalDateTime executedAt) {
+        target.put(new SearchIndex.Doc(SearchIndex.Kind.HISTORY, id, workspaceId, apiDefinitionId != null ? apiDefinitionId : 0,
+                        username, method + " " + url, null, millis(executedAt)),
+                maxIndexedChars, method, url, queryParams, headers, body);
+    }
+
+    private static SearchHit toHit(SearchIndex.Doc d) {
+        SearchHit hit = new SearchHit();
+        hit.setType(d.kind().name());
+        hit.setId(d.entityId());
+        hit.setWorkspaceId(d.workspaceId());
+        hit.setApiDefinitionId(d.kind() == SearchIndex.Kind.DEFINITION ? d.entityId() : d.parentId() != 0 ? d.parentId() : null);
+        hit.setTitle(d.title());
+        hit.setSubtitle(d.subtitle());
+        hit.setTimestamp(d.timestamp() != 0 ? LocalDateTime.ofInstant(Instant.ofEpochMilli(d.timestamp()), ZONE) : null);
+        return hit;
+    }
+
+    private static String payload(Map<String, Object> row, String column, Map<String, String> contents) {
+        Object hash = row.get(column + "_hash");
+        if (hash != null) return contents.get(hash);
+        return (String) row.get(column.equals("body") ? "body_content" : column);
+    }
+
+    private static long id(Map<String, Object> row, String column) {
+        return ((Number) row.get(column)).longValue();
+    }
+
+    private static LocalDateTime time(Object value) {
+        if (value instanceof Timestamp ts) return ts.toLocalDateTime();
+        if (value instanceof LocalDateTime ldt) return ldt;
+        return null;
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time != null ? time.atZone(ZONE).toInstant().toEpochMilli() : 0;
+    }
+}
@@ -0,0 +1,91 @@
+package com.apicollab.platform.core.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batches change notifications per destination instead of sending one frame
+ * per change to every client. Events are collected for
+ * {@code application.sync.batch-window-ms} and repeated events for the same
+ * entity collapse into one (a DELETE always wins), so twenty quick UPDATEs of
+ * a definition reach its workspace as a single entry. Each destination then
+ * gets one frame holding the list of events.
+ * <p>
+ * Destinations: {@code /topic/workspaces/{id}} for changes to a workspace's
+ * definitions and environments, {@code /topic/api-definitions/{id}} for
+ * activity on one definition (comments).
+ */
+@Component
+@Slf4j
+public class SyncEventBroadcaster {
+
+    private static final String DELETE = "DELETE";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private Map<Key, ApiDefinitionService.SyncMessage> pending = new LinkedHashMap<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+
+    public SyncEventBroadcaster(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    private record Key(String destination, String type, Long id) {}
+
+    public record Stats(long published, long coalesced, long frames, int pending) {}
+
+    public void toWorkspace(Long workspaceId, String type, Long id, String action) {
+        publish("/topic/workspaces/" + workspaceId, type, id, action);
+    }
+
+    public void toApiDefinition(Long apiId, String type, Long id, String action) {
+        publish("/topic/api-definitions/" + apiId, type, id, action);
+    }
+
+    private void publish(String destination, String type, Long id, String action) {
+        published.increment();
+        synchronized (this) {
+            ApiDefinitionService.SyncMessage previous = pending.putIfAbsent(new Key(destination, type, id),
+                    new ApiDefinitionService.SyncMessage(type, id, action));
+            if (previous != null) {
+                coalesced.increment();
+                if (!DELETE.equals(previous.getAction())) previous.setAction(action);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.sync.batch-window-ms:100}")
+    public void flush() {
+        Map<Key, ApiDefinitionService.SyncMessage> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        Map<String, List<ApiDefinitionService.SyncMessage>> byDestination = new LinkedHashMap<>();
+        batch.forEach((key, message) -> byDestination.computeIfAbsent(key.destination(), d -> new ArrayList<>()).add(message));
+        byDestination.forEach((destination, events) -> {
+            try {
+                messagingTemplate.convertAndSend(destination, events);
+                frames.increment();
+            } catch (Exception e) {
+                log.warn("Failed to deliver {} sync events to {}: {}", events.size(), destination, e.getMessage());
+            }
+        });
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(published.sum(), coalesced.sum(), frames.sum(), pending.size());
+    }
+}
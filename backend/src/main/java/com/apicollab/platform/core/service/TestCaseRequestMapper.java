@@ -0,0 +1,101 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.core.domain.ApiTestCase;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns the request state the debugger saves into {@link ApiTestCase#getContent()}
+ * into a {@link ProxyService.ProxyRequest}, mirroring what the UI sends.
+ */
+@Component
+public class TestCaseRequestMapper {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class CaseContent {
+        private String method;
+        private String url;
+        private List<KeyValue> queryParams;
+        private List<KeyValue> pathVariables;
+        private List<KeyValue> headers;
+        private String bodyType;
+        private String bodyContent;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class KeyValue {
+        private String key;
+        private String value;
+        private boolean enabled = true;
+    }
+
+    public ProxyService.ProxyRequest toProxyRequest(ApiTestCase testCase, Long environmentId) throws Exception {
+        CaseContent content = objectMapper.readValue(testCase.getContent(), CaseContent.class);
+
+        String url = content.getUrl() != null ? content.getUrl() : "";
+        if (content.getPathVariables() != null) {
+            for (KeyValue v : content.getPathVariables()) {
+                if (v.isEnabled() && v.getKey() != null && !v.getKey().isEmpty()) {
+                    String value = v.getValue() != null ? v.getValue() : "";
+                    url = url.replace("{" + v.getKey() + "}", value).replace(":" + v.getKey(), value);
+                }
+            }
+        }
+
+        Map<String, String> queryParams = new LinkedHashMap<>();
+        if (content.getQueryParams() != null) {
+            for (KeyValue p : content.getQueryParams()) {
+                if (p.isEnabled() && p.getKey() != null && !p.getKey().isEmpty()) {
+                    queryParams.put(p.getKey(), p.getValue());
+                }
+            }
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (content.getHeaders() != null) {
+            for (KeyValue h : content.getHeaders()) {
+                if (h.isEnabled() && h.getKey() != null && !h.getKey().isEmpty()) {
+                    headers.put(h.getKey(), h.getValue() != null ? h.getValue() : "");
+                }
+            }
+        }
+
+        boolean jsonBody = "json".equals(content.getBodyType());
+        if (jsonBody && headers.keySet().stream().noneMatch(k -> k.equalsIgnoreCase("Content-Type"))) {
+            headers.put("Content-Type", "application/json");
+        }
+
+        ProxyService.ProxyRequest request = new ProxyService.ProxyRequest();
+        request.setMethod(content.getMethod() != null ? content.getMethod() : "GET");
+        request.setUrl(url);
+        request.setQueryParams(queryParams);
+        request.setHeaders(headers);
+        request.setBody(jsonBody ? content.getBodyContent() : null);
+        request.setEnvironmentId(environmentId);
+        return request;
+    }
+
+    /**
+     * Fresh copy for repeated sends; {@link ProxyService} resolves placeholders in place.
+     */
+    public static ProxyService.ProxyRequest copyOf(ProxyService.ProxyRequest source) {
+        ProxyService.ProxyRequest copy = new ProxyService.ProxyRequest();
+        copy.setMethod(source.getMethod());
+        copy.setUrl(source.getUrl());
+        copy.setQueryParams(source.getQueryParams() != null ? new LinkedHashMap<>(source.getQueryParams()) : null);
+        copy.setHeaders(source.getHeaders() != null ? new LinkedHashMap<>(source.getHeaders()) : null);
+        copy.setBody(source.getBody());
+        copy.setEnvironmentId(source.getEnvironmentId());
+        return copy;
+    }
+}
@@ -0,0 +1,179 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.core.config.ClusterBrokerRelay;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory access-control index: username → workspace ids with the user's
+ * role in each. Answers "can X access workspace Y" with two map lookups and
+ * without loading any entity, so it can sit in front of every workspace
+ * scoped request.
+ * <p>
+ * It is built from two projections over {@code workspaces} and
+ * {@code workspace_shares} on first use, kept current by
+ * {@link WorkspaceService} as workspaces are created, shared, unshared and
+ * deleted, and rebuilt every {@code refresh-ms} as a safety net. Other nodes
+ * learn about a change from the {@code WORKSPACE} sync event it produces and
+ * reload that workspace's rows.
+ */
+@Component
+@Slf4j
+public class WorkspaceAccessIndex {
+
+    public enum Role { OWNER, MEMBER }
+
+    public static final String SYNC_TYPE = "WORKSPACE";
+
+    private static final String OWNERS_SQL = "SELECT w.id, u.username FROM workspaces w JOIN users u ON u.id = w.owner_id";
+    private static final String SHARES_SQL = "SELECT s.workspace_id, u.username FROM workspace_shares s JOIN users u ON u.id = s.user_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Inner maps are immutable and replaced on change, so readers never lock
+    private final Map<String, Map<Long, Role>> byUser = new ConcurrentHashMap<>();
+    // Only touched while holding the monitor
+    private final Map<Long, Set<String>> byWorkspace = new HashMap<>();
+    private volatile boolean loaded;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    public WorkspaceAccessIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record Stats(boolean loaded, int users, int workspaces, long checks, long rebuilds) {}
+
+    public boolean canAccess(String username, Long workspaceId) {
+        return roleOf(username, workspaceId) != null;
+    }
+
+    public boolean isOwner(String username, Long workspaceId) {
+        return roleOf(username, workspaceId) == Role.OWNER;
+    }
+
+    /**
+     * The user's role in the workspace, or null if they cannot access it.
+     */
+    public Role roleOf(String username, Long workspaceId) {
+        ensureLoaded();
+        checks.increment();
+        if (username == null || workspaceId == null) return null;
+        return byUser.getOrDefault(username, Map.of()).get(workspaceId);
+    }
+
+    /**
+     * Ids of every workspace the user owns or is shared into.
+     */
+    public Set<Long> workspaceIds(String username) {
+        ensureLoaded();
+        return byUser.getOrDefault(username, Map.of()).keySet();
+    }
+
+    public synchronized void grant(Long workspaceId, String username, Role role) {
+        ensureLoaded();
+        Map<Long, Role> current = byUser.getOrDefault(username, Map.of());
+        // Sharing a workspace with its owner does not demote them
+        if (current.get(workspaceId) == Role.OWNER && role != Role.OWNER) return;
+        Map<Long, Role> updated = new HashMap<>(current);
+        updated.put(workspaceId, role);
+        byUser.put(username, Map.copyOf(updated));
+        byWorkspace.computeIfAbsent(workspaceId, id -> new HashSet<>()).add(username);
+    }
+
+    public synchronized void revoke(Long workspaceId, String username) {
+        ensureLoaded();
+        Map<Long, Role> current = byUser.get(username);
+        if (current == null || current.get(workspaceId) != Role.MEMBER) return;
+        remove(workspaceId, username, current);
+    }
+
+    public synchronized void removeWorkspace(Long workspaceId) {
+        Set<String> members = byWorkspace.remove(workspaceId);
+        if (members == null) return;
+        for (String username : members) {
+            Map<Long, Role> current = byUser.get(username);
+            if (current != null) remove(workspaceId, username, current);
+        }
+    }
+
+    /**
+     * Re-reads one workspace's owner and shares, e.g. after another node changed them.
+     */
+    public synchronized void reload(Long workspaceId) {
+        if (!loaded) return;
+        removeWorkspace(workspaceId);
+        jdbcTemplate.query(OWNERS_SQL + " WHERE w.id = ?", rs -> {
+            grant(workspaceId, rs.getString(2), Role.OWNER);
+        }, workspaceId);
+        jdbcTemplate.query(SHARES_SQL + " WHERE s.workspace_id = ?", rs -> {
+            grant(workspaceId, rs.getString(2), Role.MEMBER);
+        }, workspaceId);
+    }
+
+    @Scheduled(fixedDelayString = "${application.workspace-acl.refresh-ms:300000}", initialDelayString = "${application.workspace-acl.refresh-ms:300000}")
+    public synchronized void rebuild() {
+        Map<String, Map<Long, Role>> users = new HashMap<>();
+        jdbcTemplate.query(SHARES_SQL, rs -> {
+            users.computeIfAbsent(rs.getString(2), u -> new HashMap<>()).put(rs.getLong(1), Role.MEMBER);
+        });
+        jdbcTemplate.query(OWNERS_SQL, rs -> {
+            users.computeIfAbsent(rs.getString(2), u -> new HashMap<>()).put(rs.getLong(1), Role.OWNER);
+        });
+
+        byWorkspace.clear();
+        users.forEach((username, roles) -> roles.keySet()
+                .forEach(id -> byWorkspace.computeIfAbsent(id, k -> new HashSet<>()).add(username)));
+        byUser.keySet().retainAll(users.keySet());
+        users.forEach((username, roles) -> byUser.put(username, Map.copyOf(roles)));
+        loaded = true;
+        rebuilds.increment();
+        log.debug("Workspace access index rebuilt: {} users, {} workspaces", users.size(), byWorkspace.size());
+    }
+
+    // Another node changed a workspace's owner or shares
+    @EventListener
+    public void onRemoteSync(ClusterBrokerRelay.RemoteSync sync) {
+        sync.events().stream()
+                .filter(event -> SYNC_TYPE.equals(event.getType()))
+                .forEach(event -> reload(event.getId()));
+    }
+
+    public Stats getStats() {
+        return new Stats(loaded, byUser.size(), byWorkspace.size(), checks.sum(), rebuilds.sum());
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) rebuild();
+            }
+        }
+    }
+
+    private void remove(Long workspaceId, String username, Map<Long, Role> current) {
+        Map<Long, Role> updated = new HashMap<>(current);
+        updated.remove(workspaceId);
+        if (updated.isEmpty()) {
+            byUser.remove(username);
+        } else {
+            byUser.put(username, Map.copyOf(updated));
+        }
+        Set<String> members = byWorkspace.get(workspaceId);
+        if (members != null) {
+            members.remove(username);
+            if (members.isEmpty()) byWorkspace.remove(workspaceId);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.apicollab.platform.core.service;
+
+import com.apicollab.platform.auth.domain.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether the current user may touch a workspace-scoped resource:
+ * resource id → workspace id (an id-only cache per resource kind, loaded with
+ * one indexed query on a miss) → role in that workspace
+ * ({@link WorkspaceAccessIndex}). A warm check is three map lookups.
+ * <p>
+ * Resources never move between workspaces and ids are not reused, so cached
+ * mappings need no invalidation; a deleted resource's entry still names the
+ * workspace it was in, so only that workspace's members get its "not found".
+ * Admins pass every check.
+ * Used declaratively through {@code @WorkspaceAccess} on handler methods and
+ * directly for ids that arrive in request bodies.
+ */
+@Component
+public class WorkspaceAuthorizer {
+
+    public enum Kind {
+        WORKSPACE(null),
+        API_DEFINITION("SELECT workspace_id FROM api_definitions WHERE id = ?"),
+        ENVIRONMENT("SELECT workspace_id FROM environments WHERE id = ?"),
+        TEST_CASE("SELECT d.workspace_id FROM api_test_cases t JOIN api_definitions d ON d.id = t.api_definition_id WHERE t.id = ?"),
+        COMMENT("SELECT d.workspace_id FROM comments c JOIN api_definitions d ON d.id = c.api_id WHERE c.id = ?"),
+        API_VERSION("SELECT d.workspace_id FROM api_versions v JOIN api_definitions d ON d.id = v.api_definition_id WHERE v.id = ?"),
+        LOAD_TEST_RUN("SELECT d.workspace_id FROM load_test_runs r JOIN api_test_cases t ON t.id = r.test_case_id "
+                + "JOIN api_definitions d ON d.id = t.api_definition_id WHERE r.id = ?");
+
+        private final String workspaceSql;
+
+        Kind(String workspaceSql) {
+            this.workspaceSql = workspaceSql;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final WorkspaceAccessIndex accessIndex;
+    private final int maxEntries;
+
+    private final Map<Kind, Map<Long, Long>> workspaces = new EnumMap<>(Kind.class);
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder checkNanos = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+
+    public WorkspaceAuthorizer(
+            JdbcTemplate jdbcTemplate,
+            WorkspaceAccessIndex accessIndex,
+            @Value("${application.workspace-acl.max-cached-ids:100000}") int maxEntries
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accessIndex = accessIndex;
+        this.maxEntries = maxEntries;
+        for (Kind kind : Kind.values()) {
+            workspaces.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    public record Stats(long checks, long avgCheckNanos, long loads, long denied, int cachedIds) {}
+
+    /**
+     * Throws {@link AccessDeniedException} unless the current user has at
+     * least {@code role} in the workspace that {@code id} belongs to.
+     * Unknown ids pass, so the caller reports them as not found.
+     */
+    public void require(Kind kind, Long id, WorkspaceAccessIndex.Role role) {
+        long start = System.nanoTime();
+        try {
+            if (id == null || isAdmin()) return;
+            Long workspaceId = workspaceOf(kind, id);
+            if (workspaceId == null) return;
+            WorkspaceAccessIndex.Role actual = accessIndex.roleOf(currentUsername(), workspaceId);
+            if (actual == null || (role == WorkspaceAccessIndex.Role.OWNER && actual != WorkspaceAccessIndex.Role.OWNER)) {
+                denied.increment();
+                throw new AccessDeniedException(role == WorkspaceAccessIndex.Role.OWNER
+                        ? "Only the owner of workspace " + workspaceId + " can do this"
+                        : "Not a member of workspace " + workspaceId);
+            }
+        } finally {
+            checks.increment();
+            checkNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    public void require(Kind kind, Long id) {
+        require(kind, id, WorkspaceAccessIndex.Role.MEMBER);
+    }
+
+    /**
+     * Workspace the resource belongs to, or null if it does not exist.
+     */
+    public Long workspaceOf(Kind kind, Long id) {
+        if (kind == Kind.WORKSPACE) return id;
+        Map<Long, Long> cache = workspaces.get(kind);
+        Long cached = cache.get(id);
+        if (cached != null) return cached;
+
+        loads.increment();
+        List<Long> rows = jdbcTemplate.queryForList(kind.workspaceSql, Long.class, id);
+        if (rows.isEmpty()) return null;
+        if (cache.size() >= maxEntries) {
+            // Reloading is one indexed query per id; not worth tracking recency
+            cache.clear();
+        }
+        cache.put(id, rows.get(0));
+        return rows.get(0);
+    }
+
+    public Stats getStats() {
+        long c = checks.sum();
+        int cached = workspaces.values().stream().mapToInt(Map::size).sum();
+        return new Stats(c, c == 0 ? 0 : checkNanos.sum() / c, loads.sum(), denied.sum(), cached);
+    }
+
+    private static boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof User user && user.getRole() == User.Role.ADMIN;
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) throw new AccessDeniedException("Not authenticated");
+        return authentication.getName();
+    }
+}
@@ -16,9 +16,13 @@ public class WorkspaceService {
 
     private final WorkspaceRepository workspaceRepository;
     private final UserRepository userRepository;
+    private final WorkspaceAccessIndex accessIndex;
+    private final SyncEventBroadcaster syncEventBroadcaster;
+    private final WorkspaceAuthorizer authorizer;
 
     public List<Workspace> getMyWorkspaces() {
-        return workspaceRepository.findAllForUser(SecurityUtils.getCurrentUsername());
+        // Ids from the access index, then a primary-key fetch instead of the owner-or-shared join
+        return workspaceRepository.findAllById(accessIndex.workspaceIds(SecurityUtils.getCurrentUsername()));
     }
 
     public List<Workspace> getAllWorkspaces() {
@@ -26,26 +30,25 @@ public class WorkspaceService {
     }
 
     public Workspace createWorkspace(Workspace workspace) {
-        User owner = userRepository.findByUsername(SecurityUtils.getCurrentUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        workspace.setOwner(owner);
+        // A body id would take over an existing workspace
+        workspace.setId(null);
+        workspace.setOwner(SecurityUtils.getCurrentUser());
         if (workspace.getType() == null) {
             workspace.setType(Workspace.Type.TEAM);
         }
-        return workspaceRepository.save(workspace);
+        Workspace saved = workspaceRepository.save(workspace);
+        accessIndex.grant(saved.getId(), saved.getOwner().getUsername(), WorkspaceAccessIndex.Role.OWNER);
+        syncEventBroadcaster.toWorkspace(saved.getId(), WorkspaceAccessIndex.SYNC_TYPE, saved.getId(), "ADDED");
+        return saved;
     }
 
     public Workspace getOrCreatePersonalWorkspace() {
-        String username = SecurityUtils.getCurrentUsername();
-        return workspaceRepository.findAllForUser(username).stream()
-                .filter(w -> {
-                    Workspace.Type t = w.getType();
-                    return t == Workspace.Type.PERSONAL && w.getOwner().getUsername().equals(username);
-                })
+        User owner = SecurityUtils.getCurrentUser();
+        String username = owner.getUsername();
+        return workspaceRepository.findByOwnerUsername(username).stream()
+                .filter(w -> w.getType() == Workspace.Type.PERSONAL)
                 .findFirst()
                 .orElseGet(() -> {
-                    User owner = userRepository.findByUsername(username)
-                            .orElseThrow(() -> new RuntimeException("User not found"));
                     Workspace personal = Workspace.builder()
                             .name(username + "'s Workspace")
                             .description("Private Personal Workspace")
@@ -53,7 +56,10 @@ public class WorkspaceService {
                             .type(Workspace.Type.PERSONAL)
                             .sharedUsers(new java.util.HashSet<>())
                             .build();
-                    return workspaceRepository.save(personal);
+                    Workspace saved = workspaceRepository.save(personal);
+                    accessIndex.grant(saved.getId(), username, WorkspaceAccessIndex.Role.OWNER);
+                    syncEventBroadcaster.toWorkspace(saved.getId(), WorkspaceAccessIndex.SYNC_TYPE, saved.getId(), "ADDED");
+                    return saved;
                 });
     }
 
@@ -65,7 +71,7 @@ public class WorkspaceService {
             throw new RuntimeException("Cannot share a personal workspace");
         }
 
-        // Check authorization (skipped for MVP simplicity/Admin override)
+        authorizer.require(WorkspaceAuthorizer.Kind.WORKSPACE, workspaceId, WorkspaceAccessIndex.Role.OWNER);
 
         User userToShare = userRepository.findByUsername(usernameToShare)
                 .orElseThrow(() -> new RuntimeException("User to share with not found"));
@@ -74,12 +80,16 @@ public class WorkspaceService {
             workspace.setSharedUsers(new java.util.HashSet<>());
         }
         workspace.getSharedUsers().add(userToShare);
-        return workspaceRepository.save(workspace);
+        Workspace saved = workspaceRepository.save(workspace);
+        accessIndex.grant(workspaceId, userToShare.getUsername(), WorkspaceAccessIndex.Role.MEMBER);
+        syncEventBroadcaster.toWorkspace(workspaceId, WorkspaceAccessIndex.SYNC_TYPE, workspaceId, "SHARED");
+        return saved;
     }
 
     public Workspace removeUserFromWorkspace(Long workspaceId, String usernameToRemove) {
         Workspace workspace = workspaceRepository.findById(workspaceId)
                 .orElseThrow(() -> new RuntimeException("Workspace not found"));
+        authorizer.require(WorkspaceAuthorizer.Kind.WORKSPACE, workspaceId, WorkspaceAccessIndex.Role.OWNER);
         
         User userToRemove = userRepository.findByUsername(usernameToRemove)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -87,21 +97,21 @@ public class WorkspaceService {
         if (workspace.getSharedUsers() != null) {
             workspace.getSharedUsers().remove(userToRemove);
         }
-        return workspaceRepository.save(workspace);
+        Workspace saved = workspaceRepository.save(workspace);
+        accessIndex.revoke(workspaceId, userToRemove.getUsername());
+        syncEventBroadcaster.toWorkspace(workspaceId, WorkspaceAccessIndex.SYNC_TYPE, workspaceId, "UNSHARED");
+        return saved;
     }
 
     public void deleteWorkspace(Long id) {
         Workspace workspace = workspaceRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Workspace not found"));
         
-        String currentUser = SecurityUtils.getCurrentUsername();
-        // Allow Owner OR Admin (Assuming admin role logic is handled upstream or check here)
-        // For now, strict owner check + admin check if we had role info easily available here.
-        // Let's rely on the controller or just check owner for MVP safety.
-        if (!workspace.getOwner().getUsername().equals(currentUser) && !"admin".equals(currentUser)) { // Simple admin check hack or use UserDetails
-             // Ideally: check SecurityContext authorities
-        }
+        // Owner or admin; the controller checks the same through @WorkspaceAccess
+        authorizer.require(WorkspaceAuthorizer.Kind.WORKSPACE, id, WorkspaceAccessIndex.Role.OWNER);
         
         workspaceRepository.delete(workspace);
+        accessIndex.removeWorkspace(id);
+        syncEventBroadcaster.toWorkspace(id, WorkspaceAccessIndex.SYNC_TYPE, id, "DELETE");
     }
 }
@@ -1,9 +1,15 @@
 package com.apicollab.platform.core.web;
 
+import com.apicollab.platform.auth.domain.User;
+import com.apicollab.platform.core.config.WorkspaceAccess;
 import com.apicollab.platform.core.domain.ApiDefinition;
+import com.apicollab.platform.core.service.ApiDefinitionAutosaver;
 import com.apicollab.platform.core.service.ApiDefinitionService;
+import com.apicollab.platform.core.service.CollaborationService;
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -15,32 +21,54 @@ import java.util.List;
 public class ApiDefinitionController {
 
     private final ApiDefinitionService apiDefinitionService;
+    private final ApiDefinitionAutosaver autosaver;
+    private final CollaborationService collaborationService;
+    private final WorkspaceAuthorizer authorizer;
 
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.WORKSPACE, param = "workspaceId")
     @GetMapping("/workspace/{workspaceId}")
     public ResponseEntity<List<ApiDefinition>> getByWorkspace(@PathVariable Long workspaceId) {
-        return ResponseEntity.ok(apiDefinitionService.getByWorkspace(workspaceId));
+        return ResponseEntity.ok(collaborationService.overlay(autosaver.overlay(apiDefinitionService.getByWorkspace(workspaceId))));
     }
 
     @PostMapping
     public ResponseEntity<ApiDefinition> create(@RequestBody ApiDefinition apiDefinition) {
+        authorizer.require(WorkspaceAuthorizer.Kind.WORKSPACE, apiDefinition.getWorkspace() != null ? apiDefinition.getWorkspace().getId() : null);
+        // POST always creates; a client-supplied id would overwrite (and move) a resource the check above never saw
+        apiDefinition.setId(null);
         return ResponseEntity.ok(apiDefinitionService.save(apiDefinition));
     }
 
+    @WorkspaceAccess(WorkspaceAuthorizer.Kind.API_DEFINITION)
     @GetMapping("/{id}")
     public ResponseEntity<ApiDefinition> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(apiDefinitionService.getById(id));
+        return ResponseEntity.ok(collaborationService.overlay(autosaver.overlay(apiDefinitionService.getById(id))));
     }
 
+    @WorkspaceAccess(WorkspaceAuthorizer.Kind.API_DEFINITION)
     @PutMapping("/{id}")
     public ResponseEntity<ApiDefinition> update(@PathVariable Long id, @RequestBody ApiDefinition apiDefinition) {
+        // Acknowledged now, written once the editor goes quiet (see ApiDefinitionAutosaver)
         ApiDefinition existing = apiDefinitionService.getById(id);
-        existing.setTitle(apiDefinition.getTitle());
-        existing.setContent(apiDefinition.getContent());
-        return ResponseEntity.ok(apiDefinitionService.save(existing));
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return ResponseEntity.ok(autosaver.submit(existing, apiDefinition.getTitle(), apiDefinition.getContent(), currentUser));
     }
 
+    /**
+     * Joins the live editing session of a definition; edits then go over
+     * STOMP to /app/collab/{id} (see CollaborationController).
+     */
+    @WorkspaceAccess(WorkspaceAuthorizer.Kind.API_DEFINITION)
+    @GetMapping("/{id}/collab")
+    public ResponseEntity<CollaborationService.DocumentState> joinCollaboration(@PathVariable Long id) {
+        autosaver.flush(id);
+        return ResponseEntity.ok(collaborationService.join(id));
+    }
+
+    @WorkspaceAccess(WorkspaceAuthorizer.Kind.API_DEFINITION)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
+        autosaver.discard(id);
         apiDefinitionService.delete(id);
         return ResponseEntity.noContent().build();
     }
@@ -1,7 +1,13 @@
 package com.apicollab.platform.core.web;
 
+import com.apicollab.platform.core.config.WorkspaceAccess;
 import com.apicollab.platform.core.domain.ApiRequestHistory;
+import com.apicollab.platform.core.domain.HistoryRetentionPolicy;
+import com.apicollab.platform.core.repository.ApiRequestHistoryRepository;
 import com.apicollab.platform.core.service.ApiRequestHistoryService;
+import com.apicollab.platform.core.service.HistoryRetentionService;
+import com.apicollab.platform.core.service.WorkspaceAccessIndex;
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,14 +20,53 @@ import java.util.List;
 public class ApiRequestHistoryController {
 
     private final ApiRequestHistoryService historyService;
+    private final HistoryRetentionService retentionService;
+    private final WorkspaceAuthorizer authorizer;
 
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.WORKSPACE, param = "workspaceId")
     @GetMapping("/workspace/{workspaceId}")
     public ResponseEntity<List<ApiRequestHistory>> getHistory(@PathVariable Long workspaceId) {
         return ResponseEntity.ok(historyService.getHistory(workspaceId));
     }
 
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.WORKSPACE, param = "workspaceId")
+    @GetMapping("/workspace/{workspaceId}/page")
+    public ResponseEntity<ApiRequestHistoryService.HistoryPage> queryHistory(@PathVariable Long workspaceId,
+                                                                             ApiRequestHistoryService.HistoryFilter filter) {
+        return ResponseEntity.ok(historyService.queryHistory(workspaceId, filter));
+    }
+
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.WORKSPACE, param = "workspaceId")
+    @GetMapping("/workspace/{workspaceId}/latency")
+    public ResponseEntity<List<ApiRequestHistoryRepository.LatencyTrendPoint>> getLatencyTrend(
+            @PathVariable Long workspaceId,
+            @RequestParam String method,
+            @RequestParam String url,
+            @RequestParam(defaultValue = "30") int days) {
+        return ResponseEntity.ok(historyService.getLatencyTrend(workspaceId, method, url, days));
+    }
+
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.WORKSPACE, param = "workspaceId")
+    @GetMapping("/workspace/{workspaceId}/retention")
+    public ResponseEntity<HistoryRetentionPolicy> getRetentionPolicy(@PathVariable Long workspaceId) {
+        return ResponseEntity.ok(retentionService.getEffectivePolicy(workspaceId));
+    }
+
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.WORKSPACE, param = "workspaceId", role = WorkspaceAccessIndex.Role.OWNER)
+    @PutMapping("/workspace/{workspaceId}/retention")
+    public ResponseEntity<HistoryRetentionPolicy> updateRetentionPolicy(@PathVariable Long workspaceId,
+                                                                        @RequestBody HistoryRetentionService.PolicyRequest request) {
+        return ResponseEntity.ok(retentionService.updatePolicy(workspaceId, request));
+    }
+
+    @GetMapping("/retention/last-run")
+    public ResponseEntity<HistoryRetentionService.CompactionReport> getLastCompaction() {
+        return ResponseEntity.ok(retentionService.getLastReport());
+    }
+
     @PostMapping
     public ResponseEntity<Void> logRequest(@RequestBody ApiRequestHistory history) {
+        authorizer.require(WorkspaceAuthorizer.Kind.WORKSPACE, history.getWorkspace() != null ? history.getWorkspace().getId() : null);
         historyService.logRequest(history);
         return ResponseEntity.ok().build();
     }
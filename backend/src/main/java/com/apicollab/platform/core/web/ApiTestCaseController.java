@@ -1,7 +1,10 @@
 package com.apicollab.platform.core.web;
 
+import com.apicollab.platform.core.config.WorkspaceAccess;
 import com.apicollab.platform.core.domain.ApiTestCase;
 import com.apicollab.platform.core.repository.ApiTestCaseRepository;
+import com.apicollab.platform.core.service.SearchService;
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,7 +18,10 @@ import java.util.List;
 public class ApiTestCaseController {
 
     private final ApiTestCaseRepository repository;
+    private final SearchService searchService;
+    private final WorkspaceAuthorizer authorizer;
 
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.API_DEFINITION, param = "apiId")
     @GetMapping("/api-definition/{apiId}")
     public ResponseEntity<List<ApiTestCase>> getByApi(@PathVariable Long apiId) {
         return ResponseEntity.ok(repository.findByApiDefinitionId(apiId));
@@ -23,20 +29,30 @@ public class ApiTestCaseController {
 
     @PostMapping
     public ResponseEntity<ApiTestCase> create(@RequestBody ApiTestCase testCase) {
-        return ResponseEntity.ok(repository.save(testCase));
+        authorizer.require(WorkspaceAuthorizer.Kind.API_DEFINITION, testCase.getApiDefinition() != null ? testCase.getApiDefinition().getId() : null);
+        // Create only; existing test cases are changed through PUT /{id}
+        testCase.setId(null);
+        ApiTestCase saved = repository.save(testCase);
+        searchService.indexTestCase(saved);
+        return ResponseEntity.ok(saved);
     }
 
+    @WorkspaceAccess(WorkspaceAuthorizer.Kind.TEST_CASE)
     @PutMapping("/{id}")
     public ResponseEntity<ApiTestCase> update(@PathVariable Long id, @RequestBody ApiTestCase testCase) {
         ApiTestCase existing = repository.findById(id).orElseThrow();
         existing.setName(testCase.getName());
         existing.setContent(testCase.getContent());
-        return ResponseEntity.ok(repository.save(existing));
+        ApiTestCase saved = repository.save(existing);
+        searchService.indexTestCase(saved);
+        return ResponseEntity.ok(saved);
     }
 
+    @WorkspaceAccess(WorkspaceAuthorizer.Kind.TEST_CASE)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         repository.deleteById(id);
+        searchService.removeTestCase(id);
         return ResponseEntity.noContent().build();
     }
 }
@@ -1,18 +1,27 @@
 package com.apicollab.platform.core.web;
 
 import com.apicollab.platform.auth.domain.User;
+import com.apicollab.platform.core.config.WorkspaceAccess;
 import com.apicollab.platform.core.domain.ApiDefinition;
 import com.apicollab.platform.core.domain.ApiVersion;
+import com.apicollab.platform.core.service.ApiDefinitionAutosaver;
 import com.apicollab.platform.core.service.ApiDefinitionService;
+import com.apicollab.platform.core.service.ApiVersionDiffService;
 import com.apicollab.platform.core.service.ApiVersionService;
+import com.apicollab.platform.core.service.CollaborationService;
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/v1/api-versions")
@@ -22,22 +31,50 @@ public class ApiVersionController {
 
     private final ApiVersionService apiVersionService;
     private final ApiDefinitionService apiDefinitionService;
+    private final ApiDefinitionAutosaver autosaver;
+    private final ApiVersionDiffService diffService;
+    private final CollaborationService collaborationService;
 
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.API_DEFINITION, param = "apiId")
     @GetMapping("/api/{apiId}")
-    public ResponseEntity<List<ApiVersion>> getHistory(@PathVariable Long apiId) {
+    public ResponseEntity<List<ApiVersionService.VersionInfo>> getHistory(@PathVariable Long apiId) {
         return ResponseEntity.ok(apiVersionService.getHistory(apiId));
     }
 
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.API_VERSION, param = "versionId")
+    @GetMapping("/{versionId}/content")
+    public ResponseEntity<Map<String, String>> getContent(@PathVariable Long versionId) {
+        return ResponseEntity.ok(Map.of("content", apiVersionService.getContent(versionId)));
+    }
+
+    // Versions are immutable, so a diff between two of them can be cached by the client too
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.API_VERSION, param = "fromId")
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.API_VERSION, param = "toId")
+    @GetMapping("/{fromId}/diff/{toId}")
+    public ResponseEntity<StreamingResponseBody> diff(@PathVariable Long fromId, @PathVariable Long toId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate())
+                .body(diffService.diff(fromId, toId));
+    }
+
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.API_DEFINITION, param = "apiId")
     @PostMapping("/api/{apiId}")
     public ResponseEntity<ApiVersion> createSnapshot(@PathVariable Long apiId, @RequestBody Map<String, String> body) {
+        autosaver.flush(apiId); // snapshot what the editor has already acknowledged
+        collaborationService.flush(apiId);
         ApiDefinition api = apiDefinitionService.getById(apiId);
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         User currentUser = (User) authentication.getPrincipal();
         return ResponseEntity.ok(apiVersionService.createSnapshot(api, body.get("description"), currentUser));
     }
 
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.API_VERSION, param = "versionId")
     @PostMapping("/{versionId}/restore")
     public ResponseEntity<ApiDefinition> restore(@PathVariable Long versionId) {
+        Long apiId = apiVersionService.getApiDefinitionId(versionId);
+        autosaver.flush(apiId);
+        collaborationService.flush(apiId);
         return ResponseEntity.ok(apiVersionService.restore(versionId));
     }
 }
@@ -0,0 +1,56 @@
+package com.apicollab.platform.core.web;
+
+import com.apicollab.platform.auth.domain.User;
+import com.apicollab.platform.auth.repository.UserRepository;
+import com.apicollab.platform.core.config.ClusterBrokerRelay;
+import com.apicollab.platform.core.service.CollaborationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Node-to-node endpoints of the cluster broker. Not behind JWT
+ * authentication; every call must carry the shared cluster secret.
+ */
+@RestController
+@RequestMapping("/api/v1/internal/broker")
+@RequiredArgsConstructor
+public class ClusterBrokerController {
+
+    private final ClusterBrokerRelay clusterBrokerRelay;
+    private final CollaborationService collaborationService;
+    private final UserRepository userRepository;
+
+    @PostMapping("/publish")
+    public ResponseEntity<Void> publish(@RequestHeader(value = ClusterBrokerRelay.SECRET_HEADER, required = false) String secret,
+                                        @RequestBody ClusterBrokerRelay.Batch batch) {
+        if (!clusterBrokerRelay.isTrusted(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        clusterBrokerRelay.receive(batch);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/collab/{apiId}/join")
+    public ResponseEntity<CollaborationService.DocumentState> join(@RequestHeader(value = ClusterBrokerRelay.SECRET_HEADER, required = false) String secret,
+                                                                   @PathVariable Long apiId) {
+        if (!clusterBrokerRelay.isTrusted(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(collaborationService.joinLocal(apiId));
+    }
+
+    @PostMapping("/collab/{apiId}/submit")
+    public ResponseEntity<Void> submit(@RequestHeader(value = ClusterBrokerRelay.SECRET_HEADER, required = false) String secret,
+                                       @PathVariable Long apiId,
+                                       @RequestBody CollaborationService.ForwardedOperation operation) {
+        if (!clusterBrokerRelay.isTrusted(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        User user = userRepository.findByUsername(operation.username())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        collaborationService.submitLocal(apiId, operation.message(), user);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.apicollab.platform.core.web;
+
+import com.apicollab.platform.auth.domain.User;
+import com.apicollab.platform.core.service.CollaborationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+@Controller
+@RequiredArgsConstructor
+public class CollaborationController {
+
+    private final CollaborationService collaborationService;
+
+    @MessageMapping("/collab/{apiId}")
+    public void submit(@DestinationVariable Long apiId, CollaborationService.OperationMessage message, Principal principal) {
+        if (!(principal instanceof Authentication authentication) || !(authentication.getPrincipal() instanceof User user)) {
+            throw new RuntimeException("Authentication required");
+        }
+        collaborationService.submit(apiId, message, user);
+    }
+}
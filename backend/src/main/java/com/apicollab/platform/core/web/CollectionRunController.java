@@ -0,0 +1,40 @@
+package com.apicollab.platform.core.web;
+
+import com.apicollab.platform.core.service.CollectionRunService;
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/runs")
+@RequiredArgsConstructor
+public class CollectionRunController {
+
+    private final CollectionRunService runService;
+    private final WorkspaceAuthorizer authorizer;
+
+    @PostMapping
+    public ResponseEntity<CollectionRunService.RunStatus> start(@RequestBody CollectionRunService.RunRequest request) {
+        authorizer.require(WorkspaceAuthorizer.Kind.WORKSPACE, request.getWorkspaceId());
+        authorizer.require(WorkspaceAuthorizer.Kind.API_DEFINITION, request.getApiDefinitionId());
+        authorizer.require(WorkspaceAuthorizer.Kind.ENVIRONMENT, request.getEnvironmentId());
+        if (request.getTestCaseIds() != null) {
+            request.getTestCaseIds().forEach(id -> authorizer.require(WorkspaceAuthorizer.Kind.TEST_CASE, id));
+        }
+        return ResponseEntity.ok(runService.start(request));
+    }
+
+    @GetMapping("/{runId}")
+    public ResponseEntity<CollectionRunService.RunStatus> getStatus(@PathVariable String runId) {
+        authorizer.require(WorkspaceAuthorizer.Kind.WORKSPACE, runService.workspaceOf(runId));
+        return ResponseEntity.ok(runService.getStatus(runId));
+    }
+
+    @PostMapping("/{runId}/cancel")
+    public ResponseEntity<Void> cancel(@PathVariable String runId) {
+        authorizer.require(WorkspaceAuthorizer.Kind.WORKSPACE, runService.workspaceOf(runId));
+        runService.cancel(runId);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -1,7 +1,9 @@
 package com.apicollab.platform.core.web;
 
+import com.apicollab.platform.core.config.WorkspaceAccess;
 import com.apicollab.platform.core.domain.Comment;
 import com.apicollab.platform.core.service.CommentService;
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -16,11 +18,13 @@ public class CommentController {
 
     private final CommentService commentService;
 
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.API_DEFINITION, param = "apiId")
     @GetMapping("/api/{apiId}")
     public ResponseEntity<List<Comment>> getComments(@PathVariable Long apiId) {
         return ResponseEntity.ok(commentService.getComments(apiId));
     }
 
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.API_DEFINITION, param = "apiId")
     @PostMapping("/api/{apiId}")
     public ResponseEntity<Comment> addComment(
             @PathVariable Long apiId, 
@@ -28,6 +32,7 @@ public class CommentController {
         return ResponseEntity.ok(commentService.addComment(apiId, request.getContent(), request.getFieldPath()));
     }
 
+    @WorkspaceAccess(WorkspaceAuthorizer.Kind.COMMENT)
     @PutMapping("/{id}/resolve")
     public ResponseEntity<Void> resolveComment(@PathVariable Long id) {
         commentService.resolveComment(id);
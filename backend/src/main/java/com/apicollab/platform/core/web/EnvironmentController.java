@@ -1,7 +1,9 @@
 package com.apicollab.platform.core.web;
 
+import com.apicollab.platform.core.config.WorkspaceAccess;
 import com.apicollab.platform.core.domain.Environment;
 import com.apicollab.platform.core.service.EnvironmentService;
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,7 +16,9 @@ import java.util.List;
 public class EnvironmentController {
 
     private final EnvironmentService environmentService;
+    private final WorkspaceAuthorizer authorizer;
 
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.WORKSPACE, param = "workspaceId")
     @GetMapping("/workspace/{workspaceId}")
     public ResponseEntity<List<Environment>> getByWorkspace(@PathVariable Long workspaceId) {
         return ResponseEntity.ok(environmentService.getByWorkspace(workspaceId));
@@ -22,14 +26,19 @@ public class EnvironmentController {
 
     @PostMapping
     public ResponseEntity<Environment> create(@RequestBody Environment environment) {
+        authorizer.require(WorkspaceAuthorizer.Kind.WORKSPACE, environment.getWorkspace() != null ? environment.getWorkspace().getId() : null);
+        // Create only; a body id must not reach an existing environment
+        environment.setId(null);
         return ResponseEntity.ok(environmentService.create(environment));
     }
 
+    @WorkspaceAccess(WorkspaceAuthorizer.Kind.ENVIRONMENT)
     @PutMapping("/{id}")
     public ResponseEntity<Environment> update(@PathVariable Long id, @RequestBody Environment environment) {
         return ResponseEntity.ok(environmentService.update(id, environment));
     }
 
+    @WorkspaceAccess(WorkspaceAuthorizer.Kind.ENVIRONMENT)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         environmentService.delete(id);
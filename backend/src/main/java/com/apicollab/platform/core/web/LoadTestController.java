@@ -0,0 +1,52 @@
+package com.apicollab.platform.core.web;
+
+import com.apicollab.platform.core.config.WorkspaceAccess;
+import com.apicollab.platform.core.domain.LoadTestRun;
+import com.apicollab.platform.core.service.LoadTestService;
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/load-tests")
+@RequiredArgsConstructor
+public class LoadTestController {
+
+    private final LoadTestService loadTestService;
+    private final WorkspaceAuthorizer authorizer;
+
+    @PostMapping
+    public ResponseEntity<LoadTestRun> start(@RequestBody LoadTestService.LoadTestRequest request) {
+        authorizer.require(WorkspaceAuthorizer.Kind.TEST_CASE, request.getTestCaseId());
+        return ResponseEntity.ok(loadTestService.start(request));
+    }
+
+    @WorkspaceAccess(WorkspaceAuthorizer.Kind.LOAD_TEST_RUN)
+    @GetMapping("/{id}")
+    public ResponseEntity<LoadTestRun> getRun(@PathVariable Long id) {
+        return ResponseEntity.ok(loadTestService.getRun(id));
+    }
+
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.TEST_CASE, param = "testCaseId")
+    @GetMapping("/test-case/{testCaseId}")
+    public ResponseEntity<List<LoadTestRun>> getRunsForTestCase(@PathVariable Long testCaseId) {
+        return ResponseEntity.ok(loadTestService.getRunsForTestCase(testCaseId));
+    }
+
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.LOAD_TEST_RUN, param = "baseline")
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.LOAD_TEST_RUN, param = "candidate")
+    @GetMapping("/compare")
+    public ResponseEntity<LoadTestService.Comparison> compare(@RequestParam Long baseline, @RequestParam Long candidate) {
+        return ResponseEntity.ok(loadTestService.compare(baseline, candidate));
+    }
+
+    @WorkspaceAccess(WorkspaceAuthorizer.Kind.LOAD_TEST_RUN)
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<Void> cancel(@PathVariable Long id) {
+        loadTestService.cancel(id);
+        return ResponseEntity.ok().build();
+    }
+}
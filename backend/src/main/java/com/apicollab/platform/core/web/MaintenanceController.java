@@ -0,0 +1,30 @@
+package com.apicollab.platform.core.web;
+
+import com.apicollab.platform.core.service.HistoryRetentionService;
+import com.apicollab.platform.core.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Maintenance passes that span every workspace; admin only (see /api/v1/admin/** in ApplicationConfig).
+ */
+@RestController
+@RequestMapping("/api/v1/admin/maintenance")
+@RequiredArgsConstructor
+public class MaintenanceController {
+
+    private final HistoryRetentionService retentionService;
+    private final SearchService searchService;
+
+    @PostMapping("/history/compact")
+    public ResponseEntity<HistoryRetentionService.CompactionReport> compactHistory() {
+        HistoryRetentionService.CompactionReport report = retentionService.compact();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.status(409).build();
+    }
+
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<Void> rebuildSearchIndex() {
+        return searchService.startRebuild() ? ResponseEntity.accepted().build() : ResponseEntity.status(409).build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.apicollab.platform.core.web;
+
+import com.apicollab.platform.core.config.ClusterBrokerRelay;
+import com.apicollab.platform.core.service.ApiDefinitionAutosaver;
+import com.apicollab.platform.core.service.ApiRequestHistoryService;
+import com.apicollab.platform.core.service.ApiRequestHistoryWriter;
+import com.apicollab.platform.core.service.EnvironmentCache;
+import com.apicollab.platform.core.service.EnvironmentService;
+import com.apicollab.platform.core.service.HistoryBlobStore;
+import com.apicollab.platform.core.service.ProxyExecutor;
+import com.apicollab.platform.core.service.ProxyService;
+import com.apicollab.platform.core.service.SearchService;
+import com.apicollab.platform.core.service.SyncEventBroadcaster;
+import com.apicollab.platform.core.service.WorkspaceAccessIndex;
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Node-wide pool, cache and pipeline counters; they span every workspace
+ * (upstream hosts, peer URLs), so admin only (see /api/v1/admin/** in ApplicationConfig).
+ */
+@RestController
+@RequestMapping("/api/v1/admin/stats")
+@RequiredArgsConstructor
+public class OperationsStatsController {
+
+    private final ProxyService proxyService;
+    private final ProxyExecutor proxyExecutor;
+    private final EnvironmentService environmentService;
+    private final ApiRequestHistoryService historyService;
+    private final SearchService searchService;
+    private final ApiDefinitionAutosaver autosaver;
+    private final SyncEventBroadcaster syncEventBroadcaster;
+    private final ClusterBrokerRelay clusterBrokerRelay;
+    private final WorkspaceAccessIndex accessIndex;
+    private final WorkspaceAuthorizer authorizer;
+
+    @GetMapping("/proxy/pool")
+    public ResponseEntity<ProxyService.PoolStatsResponse> poolStats() {
+        return ResponseEntity.ok(proxyService.getPoolStats());
+    }
+
+    @GetMapping("/proxy/execution")
+    public ResponseEntity<Map<String, Object>> executionStats() {
+        return ResponseEntity.ok(Map.of(
+                "maxConcurrent", proxyExecutor.getMaxConcurrent(),
+                "availablePermits", proxyExecutor.getAvailablePermits(),
+                "waiting", proxyExecutor.getWaiting(),
+                "rejected", proxyExecutor.getRejected(),
+                "maxBackground", proxyExecutor.getMaxBackground(),
+                "availableBackgroundPermits", proxyExecutor.getAvailableBackgroundPermits(),
+                "backgroundWaiting", proxyExecutor.getBackgroundWaiting()
+        ));
+    }
+
+    @GetMapping("/environments/cache")
+    public ResponseEntity<EnvironmentCache.Stats> getCacheStats() {
+        return ResponseEntity.ok(environmentService.getCacheStats());
+    }
+
+    @GetMapping("/history/writer")
+    public ResponseEntity<ApiRequestHistoryWriter.Stats> getWriterStats() {
+        return ResponseEntity.ok(historyService.getWriterStats());
+    }
+
+    @GetMapping("/history/blobs")
+    public ResponseEntity<HistoryBlobStore.Stats> getBlobStats() {
+        return ResponseEntity.ok(historyService.getBlobStats());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<SearchService.Stats> getSearchStats() {
+        return ResponseEntity.ok(searchService.getStats());
+    }
+
+    @GetMapping("/api-definitions/autosave")
+    public ResponseEntity<ApiDefinitionAutosaver.Stats> getAutosaveStats() {
+        return ResponseEntity.ok(autosaver.getStats());
+    }
+
+    @GetMapping("/workspaces/sync")
+    public ResponseEntity<SyncEventBroadcaster.Stats> getSyncStats() {
+        return ResponseEntity.ok(syncEventBroadcaster.getStats());
+    }
+
+    @GetMapping("/workspaces/broker")
+    public ResponseEntity<ClusterBrokerRelay.Stats> getBrokerStats() {
+        return ResponseEntity.ok(clusterBrokerRelay.getStats());
+    }
+
+    @GetMapping("/workspaces/acl")
+    public ResponseEntity<WorkspaceAccessIndex.Stats> getAclStats() {
+        return ResponseEntity.ok(accessIndex.getStats());
+    }
+
+    @GetMapping("/workspaces/authz")
+    public ResponseEntity<WorkspaceAuthorizer.Stats> getAuthzStats() {
+        return ResponseEntity.ok(authorizer.getStats());
+    }
+}
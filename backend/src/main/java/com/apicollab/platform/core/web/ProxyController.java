@@ -1,12 +1,15 @@
 package com.apicollab.platform.core.web;
 
+import com.apicollab.platform.core.service.ProxyExecutor;
 import com.apicollab.platform.core.service.ProxyService;
+import com.apicollab.platform.core.service.ProxyStreamService;
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/proxy")
@@ -14,11 +17,48 @@ import org.springframework.web.bind.annotation.RestController;
 public class ProxyController {
 
     private final ProxyService proxyService;
+    private final ProxyStreamService proxyStreamService;
+    private final ProxyExecutor proxyExecutor;
+    private final WorkspaceAuthorizer authorizer;
 
     @PostMapping("/execute")
-    public ResponseEntity<ProxyService.ProxyResponse> execute(
+    public CompletableFuture<ResponseEntity<ProxyService.ProxyResponse>> execute(
+            @RequestBody ProxyService.ProxyRequest request
+    ) {
+        // The environment's variables (and secrets) are only for its workspace's members
+        authorizer.require(WorkspaceAuthorizer.Kind.ENVIRONMENT, request.getEnvironmentId());
+        return proxyExecutor.submit(() -> ResponseEntity.ok(proxyService.execute(request)));
+    }
+
+    @PostMapping("/stream")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> stream(
+            @RequestBody ProxyService.ProxyRequest request
+    ) {
+        authorizer.require(WorkspaceAuthorizer.Kind.ENVIRONMENT, request.getEnvironmentId());
+        // The bulkhead slot stays taken until the body has been streamed
+        return proxyExecutor.submitHolding(permit -> proxyStreamService.stream(request, permit));
+    }
+
+    @PostMapping("/spill")
+    public CompletableFuture<ResponseEntity<ProxyStreamService.SpillResponse>> spill(
             @RequestBody ProxyService.ProxyRequest request
     ) {
-        return ResponseEntity.ok(proxyService.execute(request));
+        authorizer.require(WorkspaceAuthorizer.Kind.ENVIRONMENT, request.getEnvironmentId());
+        return proxyExecutor.submit(() -> ResponseEntity.ok(proxyStreamService.spill(request)));
+    }
+
+    @GetMapping("/spill/{spillId}")
+    public ResponseEntity<StreamingResponseBody> readSpill(
+            @PathVariable String spillId,
+            @RequestParam(defaultValue = "0") long offset,
+            @RequestParam(defaultValue = "65536") int length
+    ) {
+        return proxyStreamService.readSpill(spillId, offset, length);
+    }
+
+    @DeleteMapping("/spill/{spillId}")
+    public ResponseEntity<Void> deleteSpill(@PathVariable String spillId) {
+        proxyStreamService.deleteSpill(spillId);
+        return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,25 @@
+package com.apicollab.platform.core.web;
+
+import com.apicollab.platform.core.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/v1/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @GetMapping
+    public ResponseEntity<SearchService.SearchResponse> search(
+            @RequestParam String q,
+            @RequestParam(required = false) Long workspaceId,
+            @RequestParam(required = false) Set<String> types,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(searchService.search(q, workspaceId, types, limit));
+    }
+}
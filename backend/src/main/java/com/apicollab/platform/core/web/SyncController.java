@@ -1,15 +1,20 @@
 package com.apicollab.platform.core.web;
 
+import com.apicollab.platform.core.service.SyncEventBroadcaster;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.stereotype.Controller;
 
 @Controller
+@RequiredArgsConstructor
 public class SyncController {
 
+    private final SyncEventBroadcaster syncEventBroadcaster;
+
     @Data
     @AllArgsConstructor
     @NoArgsConstructor
@@ -19,9 +24,9 @@ public class SyncController {
         private String action;
     }
 
-    @MessageMapping("/sync")
-    @SendTo("/topic/updates")
-    public SyncMessage broadcastUpdate(SyncMessage message) {
-        return message;
+    // Membership is checked by WorkspaceChannelInterceptor before this runs
+    @MessageMapping("/workspaces/{workspaceId}/sync")
+    public void broadcastUpdate(@DestinationVariable Long workspaceId, SyncMessage message) {
+        syncEventBroadcaster.toWorkspace(workspaceId, message.getType(), message.getId(), message.getAction());
     }
 }
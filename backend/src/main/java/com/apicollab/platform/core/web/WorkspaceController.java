@@ -1,6 +1,9 @@
 package com.apicollab.platform.core.web;
 
+import com.apicollab.platform.core.config.WorkspaceAccess;
 import com.apicollab.platform.core.domain.Workspace;
+import com.apicollab.platform.core.service.WorkspaceAccessIndex;
+import com.apicollab.platform.core.service.WorkspaceAuthorizer;
 import com.apicollab.platform.core.service.WorkspaceService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +17,7 @@ import java.util.List;
 public class WorkspaceController {
 
     private final WorkspaceService workspaceService;
+    private final WorkspaceAuthorizer authorizer;
 
     @GetMapping
     public ResponseEntity<List<Workspace>> getMyWorkspaces() {
@@ -36,16 +40,19 @@ public class WorkspaceController {
         return ResponseEntity.ok(workspaceService.createWorkspace(workspace));
     }
 
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.WORKSPACE, role = WorkspaceAccessIndex.Role.OWNER)
     @PostMapping("/{id}/share")
     public ResponseEntity<Workspace> shareWorkspace(@PathVariable Long id, @RequestParam String username) {
         return ResponseEntity.ok(workspaceService.shareWorkspace(id, username));
     }
 
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.WORKSPACE, role = WorkspaceAccessIndex.Role.OWNER)
     @DeleteMapping("/{id}/share")
     public ResponseEntity<Workspace> unshareWorkspace(@PathVariable Long id, @RequestParam String username) {
         return ResponseEntity.ok(workspaceService.removeUserFromWorkspace(id, username));
     }
 
+    @WorkspaceAccess(value = WorkspaceAuthorizer.Kind.WORKSPACE, role = WorkspaceAccessIndex.Role.OWNER)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteWorkspace(@PathVariable Long id) {
         workspaceService.deleteWorkspace(id);
@@ -0,0 +1,160 @@
+# Cluster Broker Test
+# Starts two backend nodes in CLUSTER broker mode (8080 and 8082), subscribes to a workspace topic
+# on node B over raw STOMP and saves definitions on node A. Passes when every change reaches the
+# node-B subscriber, in the order it was made, and both nodes agree on the collaboration state.
+# Use -SkipStart to run against nodes that are already up with matching cluster settings.
+param(
+    [string]$NodeA = "http://localhost:8080",
+    [string]$NodeB = "http://localhost:8082",
+    [int]$Changes = 10,
+    [int]$TimeoutMs = 15000,
+    [switch]$SkipStart
+)
+
+$backendJar = "backend/target/platform-0.0.1-SNAPSHOT.jar"
+$secret = "cluster-test-secret"
+$adminUser = "admin"
+$adminPass = "password"
+$procs = @()
+
+function Assert-Success($stepName) {
+    Write-Host "[$stepName] ... SUCCESS" -ForegroundColor Green
+}
+
+function Assert-Error($stepName, $details) {
+    Write-Host "[$stepName] ... FAILED" -ForegroundColor Red
+    Write-Host "Error Details: $details" -ForegroundColor Red
+    $procs | ForEach-Object { Stop-Process -Id $_.Id -Force -ErrorAction SilentlyContinue }
+    exit 1
+}
+
+function Start-Node($selfUrl, $port) {
+    $clusterArgs = @(
+        "-jar", $backendJar,
+        "--server.port=$port",
+        "--application.websocket.broker.mode=CLUSTER",
+        "--application.websocket.broker.cluster.self-url=$selfUrl",
+        "--application.websocket.broker.cluster.nodes=$NodeA,$NodeB",
+        "--application.websocket.broker.cluster.secret=$secret",
+        "--application.search.snapshot-file=data/search-index/index-$port.bin",
+        "--application.security.jwt.key-file=data/jwt-keys-$port.json",
+        "--application.versions.migration.enabled=false",
+        "--application.history.blobs.migration.enabled=false"
+    )
+    Start-Process -FilePath "java" -ArgumentList $clusterArgs -RedirectStandardOutput "node-$port.log" -RedirectStandardError "node-$port.err" -PassThru -NoNewWindow
+}
+
+function Wait-Node($url) {
+    $body = @{ username = $adminUser; password = $adminPass } | ConvertTo-Json
+    for ($i = 0; $i -lt 90; $i++) {
+        try {
+            return (Invoke-RestMethod -Uri "$url/api/v1/auth/authenticate" -Method Post -Body $body -ContentType "application/json").token
+        } catch { Start-Sleep -Seconds 1 }
+    }
+    Assert-Error "Wait for $url" "node did not come up"
+}
+
+function Send-Frame($ws, $frame) {
+    $bytes = [System.Text.Encoding]::UTF8.GetBytes($frame + [char]0)
+    $ws.SendAsync([ArraySegment[byte]]::new($bytes), [System.Net.WebSockets.WebSocketMessageType]::Text, $true, [Threading.CancellationToken]::None).Wait()
+}
+
+# Returns the STOMP frames of the next WebSocket message, or nothing on timeout
+function Receive-Frames($ws, $timeoutMs) {
+    $buffer = New-Object byte[] 65536
+    $text = New-Object System.Text.StringBuilder
+    $cts = [Threading.CancellationTokenSource]::new($timeoutMs)
+    try {
+        do {
+            $result = $ws.ReceiveAsync([ArraySegment[byte]]::new($buffer), $cts.Token).GetAwaiter().GetResult()
+            [void]$text.Append([System.Text.Encoding]::UTF8.GetString($buffer, 0, $result.Count))
+        } while (-not $result.EndOfMessage)
+    } catch { return @() }
+    return $text.ToString().Split([char]0) | Where-Object { $_.Trim() -ne "" } | ForEach-Object {
+        $parts = $_.TrimStart("`n", "`r") -split "`n`n", 2
+        $lines = $parts[0] -split "`n"
+        [pscustomobject]@{ Command = $lines[0].Trim(); Headers = $lines[1..($lines.Length)]; Body = if ($parts.Length -gt 1) { $parts[1] } else { "" } }
+    }
+}
+
+# --- 1. Nodes ---
+Write-Host "`n--- 1. Cluster Nodes ---"
+if (-not $SkipStart) {
+    $procs += Start-Node $NodeA ([Uri]$NodeA).Port
+    $procs += Start-Node $NodeB ([Uri]$NodeB).Port
+}
+$tokenA = Wait-Node $NodeA
+$tokenB = Wait-Node $NodeB
+Assert-Success "Both nodes up"
+
+$headersA = @{ "Authorization" = "Bearer $tokenA"; "Content-Type" = "application/json" }
+$headersB = @{ "Authorization" = "Bearer $tokenB"; "Content-Type" = "application/json" }
+$workspaceId = (Invoke-RestMethod -Uri "$NodeA/api/v1/workspaces/personal" -Headers $headersA).id
+
+# --- 2. Subscribe on node B ---
+Write-Host "`n--- 2. STOMP Subscriber on Node B ---"
+$ws = [System.Net.WebSockets.ClientWebSocket]::new()
+try {
+    $wsUri = [Uri]("$NodeB/ws-stomp" -replace "^http", "ws")
+    $ws.ConnectAsync($wsUri, [Threading.CancellationToken]::None).Wait()
+    Send-Frame $ws "CONNECT`naccept-version:1.2`nheart-beat:0,0`nAuthorization:Bearer $tokenB`n`n"
+    $connected = Receive-Frames $ws 5000 | Where-Object { $_.Command -eq "CONNECTED" }
+    if (-not $connected) { throw "no CONNECTED frame" }
+    Send-Frame $ws "SUBSCRIBE`nid:sub-0`ndestination:/topic/workspaces/$workspaceId`n`n"
+    Start-Sleep -Milliseconds 500
+    Assert-Success "Subscribed to /topic/workspaces/$workspaceId on $NodeB"
+} catch { Assert-Error "STOMP subscribe" $_ }
+
+# --- 3. Changes on node A ---
+Write-Host "`n--- 3. $Changes Saves on Node A ---"
+$created = @()
+try {
+    for ($i = 1; $i -le $Changes; $i++) {
+        $body = @{ title = "Cluster Test $i"; content = "{}"; workspace = @{ id = $workspaceId } } | ConvertTo-Json
+        $created += (Invoke-RestMethod -Uri "$NodeA/api/v1/api-definitions" -Method Post -Headers $headersA -Body $body).id
+    }
+    Assert-Success "Created $($created.Count) definitions on $NodeA"
+} catch { Assert-Error "Create definitions" $_ }
+
+# --- 4. Delivery on node B ---
+Write-Host "`n--- 4. Cross-Node Delivery ---"
+$seen = New-Object System.Collections.Generic.List[long]
+$sw = [System.Diagnostics.Stopwatch]::StartNew()
+while ($seen.Count -lt $created.Count -and $sw.ElapsedMilliseconds -lt $TimeoutMs) {
+    foreach ($frame in (Receive-Frames $ws 1000)) {
+        if ($frame.Command -ne "MESSAGE") { continue }
+        foreach ($event in ($frame.Body | ConvertFrom-Json)) {
+            if ($event.type -eq "API_DEFINITION" -and $created -contains $event.id -and -not $seen.Contains($event.id)) {
+                $seen.Add($event.id)
+            }
+        }
+    }
+}
+if ($seen.Count -ne $created.Count) {
+    Assert-Error "Delivery" "node B received $($seen.Count) of $($created.Count) changes within $TimeoutMs ms"
+}
+Assert-Success "All $($created.Count) changes reached $NodeB in $($sw.ElapsedMilliseconds) ms"
+if (($seen -join ",") -ne ($created -join ",")) {
+    Assert-Error "Ordering" "expected $($created -join ',') but got $($seen -join ',')"
+}
+Assert-Success "Changes arrived in publish order"
+
+# --- 5. Collaboration owner ---
+Write-Host "`n--- 5. Collaboration Document Ownership ---"
+try {
+    $stateA = Invoke-RestMethod -Uri "$NodeA/api/v1/api-definitions/$($created[0])/collab" -Headers $headersA
+    $stateB = Invoke-RestMethod -Uri "$NodeB/api/v1/api-definitions/$($created[0])/collab" -Headers $headersB
+    if ($stateA.epoch -ne $stateB.epoch -or $stateA.revision -ne $stateB.revision -or $stateA.content -ne $stateB.content) {
+        throw "nodes disagree: A at revision $($stateA.revision), B at revision $($stateB.revision)"
+    }
+    Assert-Success "Both nodes serve the same live document"
+} catch { Assert-Error "Collaboration ownership" $_ }
+
+$stats = Invoke-RestMethod -Uri "$NodeA/api/v1/admin/stats/workspaces/broker" -Headers $headersA
+Write-Host "Node A relay: forwarded=$($stats.forwarded) peers=$(($stats.peers | ForEach-Object { "$($_.url) up=$($_.up) sent=$($_.sent) dropped=$($_.dropped)" }) -join '; ')"
+
+# --- Cleanup ---
+$created | ForEach-Object { try { Invoke-RestMethod -Uri "$NodeA/api/v1/api-definitions/$_" -Method Delete -Headers $headersA } catch {} }
+$ws.Dispose()
+$procs | ForEach-Object { Stop-Process -Id $_.Id -Force -ErrorAction SilentlyContinue }
+Write-Host "`nCluster broker test passed." -ForegroundColor Green
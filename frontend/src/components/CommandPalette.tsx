@@ -1,6 +1,6 @@
 import React, { useState, useEffect, useMemo } from 'react';
 import { Modal, Input, List, Typography, Tag, Space } from 'antd';
-import { SearchOutlined, AppstoreOutlined, FileTextOutlined } from '@ant-design/icons';
+import { SearchOutlined, AppstoreOutlined, FileTextOutlined, ExperimentOutlined, HistoryOutlined } from '@ant-design/icons';
 import api from '../api';
 import { useNavigate } from 'react-router-dom';
 
@@ -9,11 +9,40 @@ const { Text } = Typography;
 interface SearchItem {
     id: number;
     title: string;
-    type: 'workspace' | 'api';
+    type: 'workspace' | 'api' | 'case' | 'history';
+    subtitle?: string;
     workspaceId?: number;
     path: string;
+    state?: any;
 }
 
+interface SearchHit {
+    type: 'DEFINITION' | 'TEST_CASE' | 'HISTORY';
+    id: number;
+    workspaceId: number;
+    apiDefinitionId?: number;
+    title: string;
+    subtitle?: string;
+    timestamp?: string;
+}
+
+const TYPE_COLORS: Record<SearchItem['type'], string> = { workspace: 'blue', api: 'green', case: 'purple', history: 'orange' };
+
+const toItem = (hit: SearchHit): SearchItem => {
+    const path = `/workspace/${hit.workspaceId}`;
+    if (hit.type === 'DEFINITION') {
+        return { id: hit.id, title: hit.title, subtitle: hit.subtitle, type: 'api', workspaceId: hit.workspaceId, path,
+            state: { openTab: { tab: { key: `api-${hit.id}`, title: hit.title, type: 'api', id: hit.id } } } };
+    }
+    if (hit.type === 'TEST_CASE') {
+        return { id: hit.id, title: hit.title, type: 'case', workspaceId: hit.workspaceId, path,
+            state: { openTab: { tab: { key: `case-${hit.id}`, title: hit.title, type: 'case', id: hit.id, parentId: hit.apiDefinitionId } } } };
+    }
+    return { id: hit.id, title: hit.title, type: 'history', workspaceId: hit.workspaceId, path,
+        subtitle: hit.timestamp ? new Date(hit.timestamp).toLocaleString() : undefined,
+        state: { openTab: { sidebar: 'history' } } };
+};
+
 interface CommandPaletteProps {
     open: boolean;
     onClose: () => void;
@@ -22,6 +51,7 @@ interface CommandPaletteProps {
 const CommandPalette: React.FC<CommandPaletteProps> = ({ open, onClose }) => {
     const [search, setSearch] = useState('');
     const [items, setItems] = useState<SearchItem[]>([]);
+    const [hits, setHits] = useState<SearchItem[]>([]);
     const [loading, setLoading] = useState(false);
     const navigate = useNavigate();
 
@@ -57,14 +87,36 @@ const CommandPalette: React.FC<CommandPaletteProps> = ({ open, onClose }) => {
         }
     };
 
+    // Full-text search over APIs, test cases and history once the query is long enough; debounced per keystroke
+    useEffect(() => {
+        const q = search.trim();
+        if (q.length < 2) {
+            setHits([]);
+            return;
+        }
+        let cancelled = false;
+        const timer = setTimeout(async () => {
+            try {
+                const res = await api.get('/search', { params: { q, limit: 20 } });
+                if (!cancelled) setHits(res.data.hits.map(toItem));
+            } catch (e) {
+                if (!cancelled) setHits([]);
+            }
+        }, 150);
+        return () => {
+            cancelled = true;
+            clearTimeout(timer);
+        };
+    }, [search]);
+
     const filteredItems = useMemo(() => {
         if (!search) return items;
         const s = search.toLowerCase();
-        return items.filter(item => item.title.toLowerCase().includes(s));
-    }, [search, items]);
+        return [...items.filter(item => item.title.toLowerCase().includes(s)), ...hits];
+    }, [search, items, hits]);
 
     const handleSelect = (item: SearchItem) => {
-        navigate(item.path);
+        navigate(item.path, { state: item.state });
         onClose();
     };
 
@@ -82,7 +134,7 @@ const CommandPalette: React.FC<CommandPaletteProps> = ({ open, onClose }) => {
                 autoFocus
                 size="large"
                 prefix={<SearchOutlined style={{ color: '#bfbfbf' }} />}
-                placeholder="Search workspaces..."
+                placeholder="Search workspaces, APIs, test cases and history..."
                 variant="borderless"
                 value={search}
                 onChange={e => setSearch(e.target.value)}
@@ -103,9 +155,12 @@ const CommandPalette: React.FC<CommandPaletteProps> = ({ open, onClose }) => {
                             className="search-item-hover"
                         >
                             <Space>
-                                {item.type === 'workspace' ? <AppstoreOutlined /> : <FileTextOutlined />}
+                                {item.type === 'workspace' ? <AppstoreOutlined />
+                                    : item.type === 'case' ? <ExperimentOutlined />
+                                    : item.type === 'history' ? <HistoryOutlined /> : <FileTextOutlined />}
                                 <Text>{item.title}</Text>
-                                <Tag color={item.type === 'workspace' ? 'blue' : 'green'}>
+                                {item.subtitle && <Text type="secondary" style={{ fontSize: 12 }}>{item.subtitle}</Text>}
+                                <Tag color={TYPE_COLORS[item.type]}>
                                     {item.type.toUpperCase()}
                                 </Tag>
                             </Space>
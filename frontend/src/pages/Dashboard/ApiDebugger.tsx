@@ -614,7 +614,15 @@ const ApiDebugger: React.FC<ApiDebuggerProps> = ({ apiData, isCase, onSave, onDe
 
 
 
-                                    bodyContent
+                                    bodyContent,
+                                    responseStatus: res.data.status,
+                                    totalMs: res.data.timing?.total,
+                                    dnsMs: res.data.timing?.dns,
+                                    connectMs: res.data.timing?.connect,
+                                    tlsMs: res.data.timing?.tls,
+                                    ttfbMs: res.data.timing?.ttfb,
+                                    downloadMs: res.data.timing?.download,
+                                    responseBytes: res.data.timing?.responseBytes
 
 
 
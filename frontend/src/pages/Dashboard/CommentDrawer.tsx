@@ -2,6 +2,7 @@ import React, { useState, useEffect } from 'react';
 import { Drawer, List, Avatar, Input, Button, message, Typography, Space, Tag, Empty } from 'antd';
 import { UserOutlined, SendOutlined, CheckCircleOutlined, ClockCircleOutlined } from '@ant-design/icons';
 import api from '../../api';
+import { useSocket } from '../../store/useSocket';
 
 const { Text } = Typography;
 
@@ -42,6 +43,13 @@ const CommentDrawer: React.FC<CommentDrawerProps> = ({ apiId, open, onClose }) =
         }
     }, [open, apiId]);
 
+    // Comments added or resolved by others while the drawer is open
+    useSocket(open && apiId ? `/topic/api-definitions/${apiId}` : '', (events: { type: string }[]) => {
+        if (events.some(e => e.type === 'COMMENT')) {
+            fetchComments();
+        }
+    });
+
     const handleAddComment = async () => {
         if (!content.trim()) return;
         setLoading(true);
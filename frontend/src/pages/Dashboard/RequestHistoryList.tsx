@@ -1,5 +1,5 @@
 import React, { useEffect, useState } from 'react';
-import { Typography, Tag, Empty, Flex, Divider } from 'antd';
+import { Typography, Tag, Empty, Flex, Divider, Button } from 'antd';
 import { RightOutlined } from '@ant-design/icons';
 import api from '../../api';
 
@@ -26,6 +26,8 @@ interface Props {
 
 const RequestHistoryList: React.FC<Props> = ({ workspaceId, onSelect, refreshTrigger, sidebarWidth }) => {
   const [groupedHistory, setGroupedHistory] = useState<GroupedHistory[]>([]);
+  const [items, setItems] = useState<RequestHistory[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
 
   const groupHistoryByDate = (history: RequestHistory[]) => {
     const groups = history.reduce((acc, item) => {
@@ -46,10 +48,15 @@ const RequestHistoryList: React.FC<Props> = ({ workspaceId, onSelect, refreshTri
         .sort((a, b) => new Date(b.date).getTime() - new Date(a.date).getTime());
   };
 
-  const fetchHistory = async () => {
+  const fetchHistory = async (cursor?: string) => {
     try {
-      const res = await api.get(`/history/workspace/${workspaceId}`);
-      setGroupedHistory(groupHistoryByDate(res.data));
+      const res = await api.get(`/history/workspace/${workspaceId}/page`, {
+        params: { includeBody: true, limit: 50, cursor }
+      });
+      const merged = cursor ? [...items, ...res.data.items] : res.data.items;
+      setItems(merged);
+      setNextCursor(res.data.nextCursor);
+      setGroupedHistory(groupHistoryByDate(merged));
     } catch (e) {}
   };
 
@@ -97,6 +104,11 @@ const RequestHistoryList: React.FC<Props> = ({ workspaceId, onSelect, refreshTri
                 </Flex>
             </div>
         ))}
+        {nextCursor && (
+            <Flex justify="center" style={{ padding: 12 }}>
+                <Button size="small" onClick={() => fetchHistory(nextCursor)}>Load more</Button>
+            </Flex>
+        )}
     </div>
   );
 };
@@ -7,7 +7,6 @@ const { Text } = Typography;
 
 interface ApiVersion {
   id: number;
-  content: string;
   description: string;
   createdAt: string;
   createdBy: {
@@ -1,5 +1,5 @@
 import React, { useEffect, useState, useRef, useCallback } from 'react';
-import { useParams } from 'react-router-dom';
+import { useParams, useLocation, useNavigate } from 'react-router-dom';
 import { Layout, Tree, Button, Modal, Form, Input, message, Typography, Select, Space, Segmented, Tabs } from 'antd';
 import { 
   PlusOutlined, 
@@ -24,6 +24,7 @@ import VersionHistory from './VersionHistory';
 import RequestHistoryList from './RequestHistoryList';
 import ImportConflictModal from './ImportConflictModal';
 import { useSocket } from '../../store/useSocket';
+import { useCollab } from '../../store/useCollab';
 import { useAuthStore } from '../../store/useAuthStore';
 import { useEnvStore } from '../../store/useEnvStore';
 import type { Environment } from '../../store/useEnvStore';
@@ -49,6 +50,8 @@ interface ApiTestCase {
 
 const WorkspaceDetail: React.FC = () => {
   const { id } = useParams<{ id: string }>();
+  const location = useLocation();
+  const navigate = useNavigate();
   const [apis, setApis] = useState<ApiDef[]>([]);
   const [testCases, setTestCases] = useState<Record<number, ApiTestCase[]>>({});
   
@@ -269,12 +272,18 @@ const WorkspaceDetail: React.FC = () => {
     }, 500);
   }, [id]);
 
-  useSocket('/topic/updates', (msg) => {
-    if (msg.type === 'API_DEFINITION') {
+  // Changes in this workspace arrive as one coalesced batch per window
+  useSocket(`/topic/workspaces/${id}`, (events: { type: string }[]) => {
+    if (events.some(e => e.type === 'API_DEFINITION')) {
       debouncedFetchApis();
     }
   });
 
+  // Live editing session for the open definition
+  const collab = useCollab(selectedApiId, useCallback((apiId: number, content: string) => {
+    setApis(prev => prev.map(a => a.id === apiId && a.content !== content ? { ...a, content } : a));
+  }, []));
+
   const fetchApis = async () => {
     try {
       const res = await api.get(`/api-definitions/workspace/${id}`);
@@ -304,6 +313,18 @@ const WorkspaceDetail: React.FC = () => {
     fetchEnvs();
   }, [id]);
 
+  // Deep link from the command palette: open the hit's tab (and the history sidebar for history hits)
+  useEffect(() => {
+    const target = (location.state as any)?.openTab;
+    if (!target) return;
+    if (target.sidebar) setSidebarTab(target.sidebar);
+    if (target.tab) {
+        setOpenTabs(prev => prev.find(t => t.key === target.tab.key) ? prev : [...prev, target.tab]);
+        setActiveTabKey(target.tab.key);
+    }
+    navigate(location.pathname, { replace: true, state: null });
+  }, [location.state]);
+
   const handleCreateApi = async (values: any) => {
     try {
       const newApi = await api.post('/api-definitions', {
@@ -331,6 +352,14 @@ const WorkspaceDetail: React.FC = () => {
       const apiDef = apis.find(a => a.id === selectedApiId);
       if (!apiDef) return;
 
+      const content = JSON.stringify(data.content);
+      // Content-only edits go through the live session; title changes still use PUT
+      if (data.title === apiDef.title && collab.submit(content)) {
+          setApis(prev => prev.map(a => a.id === selectedApiId ? { ...a, content } : a));
+          message.success('API saved');
+          return;
+      }
+
       try {
           await api.put(`/api-definitions/${selectedApiId}`, {
               ...apiDef,
@@ -422,8 +451,8 @@ const WorkspaceDetail: React.FC = () => {
           // If we select history for an API that is deleted or general history?
           // For now, history applies to current view.
           // Ideally, we select the API it belonged to?
-          if (item.apiDefinition && item.apiDefinition.id) {
-              setSelectedApiId(item.apiDefinition.id);
+          if (item.apiDefinitionId) {
+              setSelectedApiId(item.apiDefinitionId);
           }
       }
   };
@@ -0,0 +1,158 @@
+import { useCallback, useEffect, useRef, useState } from 'react';
+import { Client } from '@stomp/stompjs';
+import SockJS from 'sockjs-client';
+import api from '../api';
+import { useAuthStore } from './useAuthStore';
+import { TextOperation } from '../utils/textOperation';
+
+interface CollabEvent {
+  type: 'OP' | 'RESYNC' | 'CLOSED';
+  apiId: number;
+  epoch?: string;        // OP only: the server's load of the document
+  revision: number;
+  clientId?: string;
+  username?: string;
+  ops?: (number | string)[];
+}
+
+interface CollabState {
+  epoch: string;         // revisions restart whenever the server loads the document again
+  revision: number;      // last server revision applied locally
+  text: string;          // local document, including unacknowledged edits
+  outstanding: TextOperation | null; // sent, waiting for the server echo
+  buffer: TextOperation | null;      // local edits made while waiting
+}
+
+/**
+ * Live editing session for an API definition's content. Local edits are sent
+ * as text operations and remote ones are transformed against anything still
+ * unacknowledged, so every editor converges on the server's document.
+ */
+export const useCollab = (apiId: number | null, onRemoteChange: (apiId: number, content: string) => void) => {
+  const token = useAuthStore(state => state.token);
+  const clientRef = useRef<Client | null>(null);
+  const stateRef = useRef<CollabState | null>(null);
+  const clientIdRef = useRef(Math.random().toString(36).slice(2));
+  const onRemoteChangeRef = useRef(onRemoteChange);
+  const [active, setActive] = useState(false);
+
+  useEffect(() => {
+    onRemoteChangeRef.current = onRemoteChange;
+  }, [onRemoteChange]);
+
+  useEffect(() => {
+    if (!token || !apiId) return;
+    let cancelled = false;
+    const clientId = clientIdRef.current;
+
+    const send = (op: TextOperation) => {
+      const state = stateRef.current!;
+      client.publish({
+        destination: `/app/collab/${apiId}`,
+        body: JSON.stringify({ clientId, epoch: state.epoch, revision: state.revision, ops: op.toJSON() })
+      });
+    };
+
+    const join = async () => {
+      stateRef.current = null;
+      setActive(false);
+      try {
+        const res = await api.get(`/api-definitions/${apiId}/collab`);
+        if (cancelled) return;
+        stateRef.current = { epoch: res.data.epoch, revision: res.data.revision, text: res.data.content, outstanding: null, buffer: null };
+        setActive(true);
+        onRemoteChangeRef.current(apiId, res.data.content);
+      } catch (e) {
+        console.error('Failed to join editing session', e);
+      }
+    };
+
+    const handle = (event: CollabEvent) => {
+      if (event.type === 'CLOSED') {
+        stateRef.current = null;
+        setActive(false);
+        return;
+      }
+      if (event.type === 'RESYNC') {
+        // Without a clientId it is meant for every editor (e.g. the document moved to another node)
+        if (!event.clientId || event.clientId === clientId) join();
+        return;
+      }
+      const state = stateRef.current;
+      if (!state) return;
+      if (event.epoch !== state.epoch) {
+        // The server reloaded the document (new owner, idle eviction) and its revisions started over
+        join();
+        return;
+      }
+      if (event.revision <= state.revision) return;
+      if (event.revision !== state.revision + 1) {
+        // Missed an operation (e.g. while joining): start over from the server copy
+        join();
+        return;
+      }
+      state.revision = event.revision;
+      if (event.clientId === clientId) {
+        state.outstanding = state.buffer;
+        state.buffer = null;
+        if (state.outstanding) send(state.outstanding);
+        return;
+      }
+      let op = TextOperation.fromJSON(event.ops || []);
+      if (state.outstanding) [state.outstanding, op] = TextOperation.transform(state.outstanding, op);
+      if (state.buffer) [state.buffer, op] = TextOperation.transform(state.buffer, op);
+      state.text = op.apply(state.text);
+      onRemoteChangeRef.current(apiId, state.text);
+    };
+
+    const client = new Client({
+      webSocketFactory: () => new SockJS('/ws-stomp'),
+      connectHeaders: {
+        Authorization: `Bearer ${token}`
+      },
+      onConnect: () => {
+        client.subscribe(`/topic/collab/${apiId}`, (message) => handle(JSON.parse(message.body)));
+        join();
+      },
+      onWebSocketClose: () => {
+        stateRef.current = null;
+        setActive(false);
+      },
+      onStompError: (frame) => {
+        console.error('WS Error', frame);
+      }
+    });
+
+    client.activate();
+    clientRef.current = client;
+
+    return () => {
+      cancelled = true;
+      stateRef.current = null;
+      setActive(false);
+      client.deactivate();
+    };
+  }, [token, apiId]);
+
+  // Sends the edit as an operation; returns false when there is no live session
+  const submit = useCallback((content: string): boolean => {
+    const state = stateRef.current;
+    const client = clientRef.current;
+    if (!state || !client || !client.connected || !apiId) return false;
+    const op = TextOperation.replace(state.text, content);
+    if (op.isNoop()) return true;
+    state.text = content;
+    if (!state.outstanding) {
+      state.outstanding = op;
+      client.publish({
+        destination: `/app/collab/${apiId}`,
+        body: JSON.stringify({ clientId: clientIdRef.current, epoch: state.epoch, revision: state.revision, ops: op.toJSON() })
+      });
+    } else {
+      state.buffer = state.buffer ? state.buffer.compose(op) : op;
+    }
+    return true;
+  }, [apiId]);
+
+  return { active, submit };
+};
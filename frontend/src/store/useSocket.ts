@@ -14,7 +14,7 @@ export const useSocket = (topic: string, onMessage: (msg: any) => void) => {
   }, [onMessage]);
 
   useEffect(() => {
-    if (!token) return;
+    if (!token || !topic) return;
 
     const client = new Client({
       webSocketFactory: () => new SockJS('/ws-stomp'),
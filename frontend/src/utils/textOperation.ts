@@ -0,0 +1,199 @@
+// Plain-text operations for collaborative editing, in the same wire format as
+// the server's TextOperation: a positive number retains that many characters,
+// a negative number deletes that many, and a string inserts it.
+export type OpComponent = number | string;
+
+export class TextOperation {
+    ops: OpComponent[] = [];
+    baseLength = 0;
+    targetLength = 0;
+
+    static fromJSON(components: OpComponent[]): TextOperation {
+        const op = new TextOperation();
+        components.forEach(c => {
+            if (typeof c === 'string') op.insert(c);
+            else if (c > 0) op.retain(c);
+            else if (c < 0) op.delete(-c);
+        });
+        return op;
+    }
+
+    toJSON(): OpComponent[] {
+        return this.ops;
+    }
+
+    isNoop(): boolean {
+        return this.ops.length === 0 || (this.ops.length === 1 && typeof this.ops[0] === 'number' && this.ops[0] > 0);
+    }
+
+    retain(n: number): TextOperation {
+        if (n <= 0) return this;
+        this.baseLength += n;
+        this.targetLength += n;
+        const last = this.ops[this.ops.length - 1];
+        if (typeof last === 'number' && last > 0) this.ops[this.ops.length - 1] = last + n;
+        else this.ops.push(n);
+        return this;
+    }
+
+    insert(s: string): TextOperation {
+        if (!s) return this;
+        this.targetLength += s.length;
+        const ops = this.ops;
+        const last = ops[ops.length - 1];
+        if (typeof last === 'string') {
+            ops[ops.length - 1] = last + s;
+        } else if (typeof last === 'number' && last < 0) {
+            // Keep inserts before deletes so equal operations have one canonical form
+            const prev = ops[ops.length - 2];
+            if (typeof prev === 'string') ops[ops.length - 2] = prev + s;
+            else ops.splice(ops.length - 1, 0, s);
+        } else {
+            ops.push(s);
+        }
+        return this;
+    }
+
+    delete(n: number): TextOperation {
+        if (n <= 0) return this;
+        this.baseLength += n;
+        const last = this.ops[this.ops.length - 1];
+        if (typeof last === 'number' && last < 0) this.ops[this.ops.length - 1] = last - n;
+        else this.ops.push(-n);
+        return this;
+    }
+
+    apply(text: string): string {
+        if (text.length !== this.baseLength) {
+            throw new Error(`Operation expects length ${this.baseLength} but document has ${text.length}`);
+        }
+        const out: string[] = [];
+        let index = 0;
+        this.ops.forEach(op => {
+            if (typeof op === 'string') {
+                out.push(op);
+            } else if (op > 0) {
+                out.push(text.slice(index, index + op));
+                index += op;
+            } else {
+                index -= op;
+            }
+        });
+        return out.join('');
+    }
+
+    // Single operation with the effect of this followed by `other`
+    compose(other: TextOperation): TextOperation {
+        if (this.targetLength !== other.baseLength) {
+            throw new Error('Operations cannot be composed');
+        }
+        const result = new TextOperation();
+        const a = this.ops, b = other.ops;
+        let i = 0, j = 0;
+        let x: OpComponent | undefined = a[i++];
+        let y: OpComponent | undefined = b[j++];
+        while (x !== undefined || y !== undefined) {
+            if (typeof x === 'number' && x < 0) {
+                result.delete(-x);
+                x = a[i++];
+                continue;
+            }
+            if (typeof y === 'string') {
+                result.insert(y);
+                y = b[j++];
+                continue;
+            }
+            if (x === undefined || y === undefined) {
+                throw new Error('Operations cannot be composed');
+            }
+            if (typeof x === 'string') {
+                if (y > 0) {
+                    const n = Math.min(x.length, y);
+                    result.insert(x.slice(0, n));
+                    x = x.length > n ? x.slice(n) : a[i++];
+                    y = y > n ? y - n : b[j++];
+                } else {
+                    const n = Math.min(x.length, -y);
+                    x = x.length > n ? x.slice(n) : a[i++];
+                    y = -y > n ? y + n : b[j++];
+                }
+            } else if (y > 0) {
+                const n = Math.min(x, y);
+                result.retain(n);
+                x = x > n ? x - n : a[i++];
+                y = y > n ? y - n : b[j++];
+            } else {
+                const n = Math.min(x, -y);
+                result.delete(n);
+                x = x > n ? x - n : a[i++];
+                y = -y > n ? y + n : b[j++];
+            }
+        }
+        return result;
+    }
+
+    // Returns [a', b'] such that a then b' equals b then a'; inserts of `a` win ties
+    static transform(a: TextOperation, b: TextOperation): [TextOperation, TextOperation] {
+        if (a.baseLength !== b.baseLength) {
+            throw new Error('Concurrent operations must share a base length');
+        }
+        const aPrime = new TextOperation();
+        const bPrime = new TextOperation();
+        let i = 0, j = 0;
+        let x: OpComponent | undefined = a.ops[i++];
+        let y: OpComponent | undefined = b.ops[j++];
+        while (x !== undefined || y !== undefined) {
+            if (typeof x === 'string') {
+                aPrime.insert(x);
+                bPrime.retain(x.length);
+                x = a.ops[i++];
+                continue;
+            }
+            if (typeof y === 'string') {
+                aPrime.retain(y.length);
+                bPrime.insert(y);
+                y = b.ops[j++];
+                continue;
+            }
+            if (x === undefined || y === undefined) {
+                throw new Error('Operations do not cover the same document');
+            }
+            if (x > 0 && y > 0) {
+                const n = Math.min(x, y);
+                aPrime.retain(n);
+                bPrime.retain(n);
+                x = x > n ? x - n : a.ops[i++];
+                y = y > n ? y - n : b.ops[j++];
+            } else if (x < 0 && y < 0) {
+                const n = Math.min(-x, -y);
+                x = -x > n ? x + n : a.ops[i++];
+                y = -y > n ? y + n : b.ops[j++];
+            } else if (x < 0) {
+                const n = Math.min(-x, y);
+                aPrime.delete(n);
+                x = -x > n ? x + n : a.ops[i++];
+                y = y > n ? y - n : b.ops[j++];
+            } else {
+                const n = Math.min(x, -y);
+                bPrime.delete(n);
+                x = x > n ? x - n : a.ops[i++];
+                y = -y > n ? y + n : b.ops[j++];
+            }
+        }
+        return [aPrime, bPrime];
+    }
+
+    // Operation turning `from` into `to`, keeping their common prefix and suffix
+    static replace(from: string, to: string): TextOperation {
+        const max = Math.min(from.length, to.length);
+        let prefix = 0;
+        while (prefix < max && from[prefix] === to[prefix]) prefix++;
+        let suffix = 0;
+        while (suffix < max - prefix && from[from.length - 1 - suffix] === to[to.length - 1 - suffix]) suffix++;
+        return new TextOperation()
+            .retain(prefix)
+            .delete(from.length - prefix - suffix)
+            .insert(to.slice(prefix, to.length - suffix))
+            .retain(suffix);
+    }
+}
@@ -0,0 +1,87 @@
+# JWT Algorithm Benchmark
+# Starts the backend once per signing algorithm with the verified-token cache disabled, sends
+# authenticated requests and reads /admin/stats/auth/token, which times every full parse + signature
+# check inside the backend. Prints the average verify cost and the single-thread verify throughput
+# of each algorithm. Each run uses its own key file under data/, so existing keys are untouched.
+param(
+    [string[]]$Algorithms = @("HS256", "RS256", "ES256"),
+    [int]$Requests = 2000,
+    [int]$Port = 8083
+)
+
+$backendJar = "backend/target/platform-0.0.1-SNAPSHOT.jar"
+$baseUrl = "http://localhost:$Port/api/v1"
+$adminUser = "admin"
+$adminPass = "password"
+$results = @()
+
+function Assert-Success($stepName) {
+    Write-Host "[$stepName] ... SUCCESS" -ForegroundColor Green
+}
+
+function Assert-Error($stepName, $details) {
+    Write-Host "[$stepName] ... FAILED" -ForegroundColor Red
+    Write-Host "Error Details: $details" -ForegroundColor Red
+    if ($script:proc) { Stop-Process -Id $script:proc.Id -Force -ErrorAction SilentlyContinue }
+    exit 1
+}
+
+function Wait-Token() {
+    $body = @{ username = $adminUser; password = $adminPass } | ConvertTo-Json
+    for ($i = 0; $i -lt 90; $i++) {
+        try {
+            return (Invoke-RestMethod -Uri "$baseUrl/auth/authenticate" -Method Post -Body $body -ContentType "application/json").token
+        } catch { Start-Sleep -Seconds 1 }
+    }
+    Assert-Error "Wait for backend" "backend did not come up on port $Port"
+}
+
+foreach ($algorithm in $Algorithms) {
+    Write-Host "`n--- $algorithm ---"
+    $nodeArgs = @(
+        "-jar", $backendJar,
+        "--server.port=$Port",
+        "--application.security.jwt.algorithm=$algorithm",
+        "--application.security.jwt.key-file=data/jwt-bench-$algorithm.json",
+        "--application.security.jwt.verified-cache-size=0",
+        "--application.search.snapshot-file=data/search-index/index-$Port.bin",
+        "--application.versions.migration.enabled=false",
+        "--application.history.blobs.migration.enabled=false"
+    )
+    $script:proc = Start-Process -FilePath "java" -ArgumentList $nodeArgs -RedirectStandardOutput "bench-$Port.log" -RedirectStandardError "bench-$Port.err" -PassThru -NoNewWindow
+    $token = Wait-Token
+    $headers = @{ "Authorization" = "Bearer $token" }
+
+    # Warm up the JIT before measuring
+    for ($i = 0; $i -lt 200; $i++) { Invoke-RestMethod -Uri "$baseUrl/admin/stats/auth/token" -Headers $headers | Out-Null }
+    $before = Invoke-RestMethod -Uri "$baseUrl/admin/stats/auth/token" -Headers $headers
+    try {
+        for ($i = 0; $i -lt $Requests; $i++) {
+            Invoke-RestMethod -Uri "$baseUrl/admin/stats/auth/token" -Headers $headers | Out-Null
+        }
+    } catch { Assert-Error "$algorithm requests" $_ }
+    $after = Invoke-RestMethod -Uri "$baseUrl/admin/stats/auth/token" -Headers $headers
+    if ($after.algorithm -ne $algorithm) { Assert-Error "$algorithm" "backend reports $($after.algorithm)" }
+
+    $parses = $after.parses - $before.parses
+    $avgNs = if ($parses -gt 0) { [math]::Round((($after.parses * $after.avgParseNanos) - ($before.parses * $before.avgParseNanos)) / $parses) } else { 0 }
+    $results += [pscustomobject]@{
+        Algorithm = $algorithm
+        Verifies = $parses
+        AvgNs = $avgNs
+        PerSecond = if ($avgNs -gt 0) { [math]::Round(1e9 / $avgNs) } else { 0 }
+        TokenBytes = $token.Length
+    }
+    Assert-Success "$algorithm measured over $parses verifications"
+
+    Stop-Process -Id $script:proc.Id -Force -ErrorAction SilentlyContinue
+    $script:proc.WaitForExit()
+    Remove-Item "data/jwt-bench-$algorithm.json" -ErrorAction SilentlyContinue
+}
+
+# --- Results ---
+Write-Host "`n--- Verify Cost per Algorithm (one core, no cache) ---"
+Write-Host ("{0,-10} {1,10} {2,12} {3,14} {4,12}" -f "Algorithm", "Verifies", "avg ns", "verifies/s", "token bytes")
+foreach ($r in $results) {
+    Write-Host ("{0,-10} {1,10} {2,12} {3,14} {4,12}" -f $r.Algorithm, $r.Verifies, $r.AvgNs, $r.PerSecond, $r.TokenBytes)
+}
@@ -0,0 +1,74 @@
+# JWT Verification Benchmark
+# Sends authenticated requests and reports the measured end-to-end time per request. Where the backend
+# has /admin/stats/auth/token it also reports the measured full parse + signature check and verified-token
+# cache hit costs. Only measured figures are printed: to compare with the old per-request verification,
+# run this script against a build without the change (it has no token stats, so only the end-to-end
+# figure is printed) and pass that figure as -BaselineMsPerRequest to a run against the new build.
+# Run the backend with application.security.jwt.verified-cache-size=0 to measure the uncached path.
+param(
+    [int]$Requests = 2000,
+    [int]$Tokens = 20,
+    [double]$BaselineMsPerRequest = 0
+)
+
+$baseUrl = "http://localhost:8080/api/v1"
+$adminUser = "admin"
+$adminPass = "password"
+
+function Assert-Success($stepName) {
+    Write-Host "[$stepName] ... SUCCESS" -ForegroundColor Green
+}
+
+function Assert-Error($stepName, $details) {
+    Write-Host "[$stepName] ... FAILED" -ForegroundColor Red
+    Write-Host "Error Details: $details" -ForegroundColor Red
+    exit 1
+}
+
+# --- 1. Tokens ---
+Write-Host "`n--- 1. Issue $Tokens Tokens ---"
+$tokens = @()
+try {
+    $body = @{ username = $adminUser; password = $adminPass } | ConvertTo-Json
+    for ($i = 0; $i -lt $Tokens; $i++) {
+        $tokens += (Invoke-RestMethod -Uri "$baseUrl/auth/authenticate" -Method Post -Body $body -ContentType "application/json").token
+        Start-Sleep -Milliseconds 1000 # Distinct issued-at seconds give distinct tokens
+    }
+    Assert-Success "Issued $($tokens.Count) tokens"
+} catch { Assert-Error "Login" $_ }
+
+$statsHeaders = @{ "Authorization" = "Bearer $($tokens[0])" }
+$before = $null
+try { $before = Invoke-RestMethod -Uri "$baseUrl/admin/stats/auth/token" -Headers $statsHeaders } catch {
+    Write-Host "No /admin/stats/auth/token on this build; reporting end-to-end time only" -ForegroundColor Yellow
+}
+
+# --- 2. Requests ---
+Write-Host "`n--- 2. $Requests Authenticated Requests ---"
+$sw = [System.Diagnostics.Stopwatch]::StartNew()
+try {
+    for ($i = 0; $i -lt $Requests; $i++) {
+        $headers = @{ "Authorization" = "Bearer $($tokens[$i % $tokens.Count])" }
+        Invoke-RestMethod -Uri "$baseUrl/workspaces/personal" -Headers $headers | Out-Null
+    }
+} catch { Assert-Error "Requests" $_ }
+$sw.Stop()
+$msPerRequest = [math]::Round($sw.ElapsedMilliseconds / $Requests, 3)
+Assert-Success "$Requests requests in $($sw.ElapsedMilliseconds) ms ($msPerRequest ms/request end-to-end)"
+if ($BaselineMsPerRequest -gt 0) {
+    Write-Host ("Baseline build: {0} ms/request, this build: {1} ms/request ({2}x)" -f $BaselineMsPerRequest, $msPerRequest, [math]::Round($BaselineMsPerRequest / $msPerRequest, 2)) -ForegroundColor Green
+}
+if (-not $before) { exit 0 }
+
+# --- 3. Verification cost ---
+Write-Host "`n--- 3. Verification Cost ---"
+$after = Invoke-RestMethod -Uri "$baseUrl/admin/stats/auth/token" -Headers $statsHeaders
+$parses = $after.parses - $before.parses
+$hits = $after.cacheHits - $before.cacheHits
+$parseNs = $after.avgParseNanos
+$hitNs = $after.avgCacheHitNanos
+$perRequestNs = if (($parses + $hits) -gt 0) { [math]::Round((($parses * $parseNs) + ($hits * $hitNs)) / ($parses + $hits)) } else { 0 }
+
+Write-Host ("Full parses: {0,8}   avg {1,8} ns" -f $parses, $parseNs)
+Write-Host ("Cache hits:  {0,8}   avg {1,8} ns" -f $hits, $hitNs)
+Write-Host ("Verification per request: {0,8} ns" -f $perRequestNs)
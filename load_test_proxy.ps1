@@ -0,0 +1,95 @@
+# Proxy Isolation Load Test
+# Floods /proxy/execute with calls to a slow upstream (mock server /api/slow) and checks that
+# unrelated endpoints (/workspaces, /auth) stay responsive while those calls are in flight.
+# Requires PowerShell 7+ (ForEach-Object -Parallel), backend on 8080 and mock server on 8081.
+param(
+    [int]$Concurrency = 400,          # Deliberately above Tomcat's default 200 worker threads
+    [int]$UpstreamDelayMs = 5000,
+    [int]$Probes = 20,
+    [int]$MaxProbeLatencyMs = 1000
+)
+
+$baseUrl = "http://localhost:8080/api/v1"
+$slowUrl = "http://localhost:8081/api/slow?ms=$UpstreamDelayMs"
+$adminUser = "admin"
+$adminPass = "password"
+
+function Assert-Success($stepName) {
+    Write-Host "[$stepName] ... SUCCESS" -ForegroundColor Green
+}
+
+function Assert-Error($stepName, $details) {
+    Write-Host "[$stepName] ... FAILED" -ForegroundColor Red
+    Write-Host "Error Details: $details" -ForegroundColor Red
+    exit 1
+}
+
+function Measure-Probes($headers, $count) {
+    $latencies = @()
+    for ($i = 0; $i -lt $count; $i++) {
+        $sw = [System.Diagnostics.Stopwatch]::StartNew()
+        Invoke-RestMethod -Uri "$baseUrl/workspaces" -Method Get -Headers $headers | Out-Null
+        $sw.Stop()
+        $latencies += $sw.ElapsedMilliseconds
+        Start-Sleep -Milliseconds 100
+    }
+    $sorted = $latencies | Sort-Object
+    return @{
+        P50 = $sorted[[int][math]::Floor($sorted.Count * 0.50)]
+        P95 = $sorted[[int][math]::Min($sorted.Count - 1, [math]::Floor($sorted.Count * 0.95))]
+        Max = $sorted[-1]
+    }
+}
+
+# --- 1. Login ---
+try {
+    $body = @{ username = $adminUser; password = $adminPass } | ConvertTo-Json
+    $res = Invoke-RestMethod -Uri "$baseUrl/auth/authenticate" -Method Post -Body $body -ContentType "application/json"
+    $token = $res.token
+    Assert-Success "Admin Login"
+} catch { Assert-Error "Admin Login" $_ }
+
+$headers = @{ "Authorization" = "Bearer $token"; "Content-Type" = "application/json" }
+
+# --- 2. Baseline ---
+$baseline = Measure-Probes $headers $Probes
+Write-Host "Baseline /workspaces latency: p50=$($baseline.P50)ms p95=$($baseline.P95)ms max=$($baseline.Max)ms"
+
+# --- 3. Flood the proxy ---
+Write-Host "`nStarting $Concurrency proxy calls to $slowUrl ..."
+$proxyBody = @{ url = $slowUrl; method = "GET"; headers = @{} } | ConvertTo-Json
+$flood = 1..$Concurrency | ForEach-Object -Parallel {
+    try {
+        $r = Invoke-WebRequest -Uri "$($using:baseUrl)/proxy/execute" -Method Post -Headers $using:headers -Body $using:proxyBody -TimeoutSec 120 -SkipHttpErrorCheck
+        [int]$r.StatusCode
+    } catch { -1 }
+} -ThrottleLimit $Concurrency -AsJob
+
+Start-Sleep -Milliseconds 1000
+
+# --- 4. Probe unrelated endpoints while the proxy is saturated ---
+try {
+    $loaded = Measure-Probes $headers $Probes
+    Write-Host "Under load /workspaces latency: p50=$($loaded.P50)ms p95=$($loaded.P95)ms max=$($loaded.Max)ms"
+} catch { Assert-Error "Probe /workspaces under load" $_ }
+
+try {
+    $sw = [System.Diagnostics.Stopwatch]::StartNew()
+    $body = @{ username = $adminUser; password = $adminPass } | ConvertTo-Json
+    Invoke-RestMethod -Uri "$baseUrl/auth/authenticate" -Method Post -Body $body -ContentType "application/json" | Out-Null
+    $sw.Stop()
+    Write-Host "Under load /auth/authenticate latency: $($sw.ElapsedMilliseconds)ms"
+} catch { Assert-Error "Probe /auth under load" $_ }
+
+$stats = Invoke-RestMethod -Uri "$baseUrl/admin/stats/proxy/execution" -Method Get -Headers $headers
+Write-Host "Proxy bulkhead: available=$($stats.availablePermits)/$($stats.maxConcurrent) waiting=$($stats.waiting) rejected=$($stats.rejected)"
+
+# --- 5. Collect proxy results ---
+$codes = $flood | Wait-Job | Receive-Job
+Remove-Job $flood
+$codes | Group-Object | ForEach-Object { Write-Host "Proxy HTTP $($_.Name): $($_.Count)" }
+
+if ($loaded.P95 -gt $MaxProbeLatencyMs) {
+    Assert-Error "Endpoint isolation" "p95 /workspaces latency $($loaded.P95)ms exceeded $MaxProbeLatencyMs ms while proxy was saturated"
+}
+Assert-Success "Endpoint isolation (p95 $($loaded.P95)ms <= $MaxProbeLatencyMs ms)"
@@ -5,6 +5,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
@@ -33,4 +34,11 @@ public class ResourceController {
                 "timestamp", System.currentTimeMillis()
         ));
     }
+
+    // Simulates a slow partner API for proxy load testing
+    @GetMapping("/slow")
+    public ResponseEntity<?> slow(@RequestParam(defaultValue = "2000") long ms) throws InterruptedException {
+        Thread.sleep(Math.min(ms, 60000));
+        return ResponseEntity.ok(Map.of("delayMs", ms, "timestamp", System.currentTimeMillis()));
+    }
 }
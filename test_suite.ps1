@@ -131,6 +131,20 @@ try {
     }
 } catch { Assert-Error "Verify Shared Access" $_ }
 
+# Members can read the workspace's definitions, but only the owner can delete it
+try {
+    Invoke-RestMethod -Uri "$baseUrl/api-definitions/$apiId" -Method Get -Headers $collabHeaders | Out-Null
+    Assert-Success $null "Collab User can read shared API Definition"
+} catch { Assert-Error "Member Read Access" $_ }
+
+try {
+    Invoke-RestMethod -Uri "$baseUrl/workspaces/$wsId" -Method Delete -Headers $collabHeaders
+    throw "Member was allowed to delete the workspace"
+} catch {
+    if ($_.Exception.Response.StatusCode.value__ -ne 403) { Assert-Error "Owner-Only Delete" $_ }
+    Assert-Success $null "Collab User cannot delete workspace (403)"
+}
+
 # Unshare (Remove User)
 try {
     Invoke-RestMethod -Uri "$baseUrl/workspaces/$wsId/share?username=$collabUser" -Method Delete -Headers $userHeaders
@@ -148,6 +162,18 @@ try {
     }
 } catch { Assert-Error "Verify Unshare" $_ }
 
+# Former members are refused by id, not just hidden from the list
+try {
+    Invoke-RestMethod -Uri "$baseUrl/api-definitions/$apiId" -Method Get -Headers $collabHeaders
+    throw "Former member could still read the API Definition"
+} catch {
+    if ($_.Exception.Response.StatusCode.value__ -ne 403) { Assert-Error "Revoked Read Access" $_ }
+    Assert-Success $null "Collab User refused API Definition after removal (403)"
+}
+
+$authz = Invoke-RestMethod -Uri "$baseUrl/admin/stats/workspaces/authz" -Headers $adminHeaders
+Write-Host "Workspace authorization: $($authz.checks) checks, avg $($authz.avgCheckNanos) ns, $($authz.loads) id loads, $($authz.denied) denied"
+
 
 # --- 4. Proxy Test ---
 Write-Host "`n--- 4. Proxy Connectivity ---"